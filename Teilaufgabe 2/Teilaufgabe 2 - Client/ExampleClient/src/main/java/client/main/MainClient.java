@@ -21,6 +21,9 @@ public class MainClient {
         // Create ClientNetwork object and register Client
         ClientNetwork myNetwork = new ClientNetwork(serverBaseUrl, gameId);
         myNetwork.registerClient("Bryan Yi Jue", "Tan", "bryanyijut00");
+        
+        // Subscribe to the state events, so that waiting for the turn uses one long-lived connection
+        myNetwork.subscribeToGameState();
 
         // Wait until turn
         waitForTurn(myNetwork);
@@ -77,6 +80,7 @@ public class MainClient {
 	 */
 
     // Wait until turn: Check if it's client turn, then check if client have won or lost the game
+    // Instead of polling again right away, wait on the Server until the GameState changes
     private static void waitForTurn(ClientNetwork myNetwork) throws InterruptedException {
         while (!myNetwork.isTurn()) {
             if (myNetwork.hasLost()) {
@@ -85,6 +89,7 @@ public class MainClient {
             if (myNetwork.hasWon()) {
             	System.exit(-1);
             }
+            myNetwork.awaitGameStateChange();
         }
     }
 
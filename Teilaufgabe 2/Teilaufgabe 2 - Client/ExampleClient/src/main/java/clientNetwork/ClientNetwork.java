@@ -1,12 +1,21 @@
 package clientNetwork;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -16,6 +25,7 @@ import messagesbase.ResponseEnvelope;
 import messagesbase.UniquePlayerIdentifier;
 import messagesbase.messagesfromclient.*;
 import messagesbase.messagesfromserver.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -29,6 +39,9 @@ public class ClientNetwork {
     private String playerId;
     private WebClient baseWebClient;
     private NetworkConverter networkConverter;
+    private GameState cachedGameState;
+    private String cachedGameStateETag;
+    private Iterator<ServerSentEvent<String>> gameStateEvents;
 
     // Initiate ClientNetwork and connect to the Server
 	public ClientNetwork(String serverBaseUrl, String gameId) {
@@ -64,16 +77,84 @@ public class ClientNetwork {
 	}
 	
 	// Get GameState, in order to get FullMap and PlayerState later
+	// The last GameState is cached with its ETag, if the Server answers 304 the cached GameState is still up to date
+	// Otherwise only the changes since the cached GameState are requested and merged into it
 	public GameState getGameState() {
-        Mono<ResponseEnvelope> webAccess = baseWebClient.method(HttpMethod.GET)
-                .uri("/" + gameId + "/states/" + playerId).retrieve().bodyToMono(ResponseEnvelope.class);
-        ResponseEnvelope<GameState> requestResult = webAccess.block();
+		String sinceVersion = cachedGameState != null ? cachedGameState.getGameStateId() : null;
+        Mono<ResponseEntity<ResponseEnvelope>> webAccess = baseWebClient.method(HttpMethod.GET)
+                .uri(uriBuilder -> uriBuilder.path("/" + gameId + "/states/" + playerId)
+                		.queryParamIfPresent("sinceVersion", Optional.ofNullable(sinceVersion)).build())
+                .headers(headers -> {
+                	if (cachedGameStateETag != null) {
+                		headers.setIfNoneMatch(cachedGameStateETag);
+                	}
+                })
+                .retrieve().toEntity(ResponseEnvelope.class);
+        ResponseEntity<ResponseEnvelope> response = webAccess.block();
+
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cachedGameState != null) {
+        	return cachedGameState;
+        }
+        
+        ResponseEnvelope<GameState> requestResult = response.getBody();
+
+        if (requestResult.getState() == ERequestState.Error) {
+            throw new NetworkCommunicationException(requestResult.getExceptionMessage());
+        }
+        
+        cachedGameState = mergeGameState(requestResult.getData().get());
+        cachedGameStateETag = response.getHeaders().getETag();
+        return cachedGameState;
+    }
+	
+	// Subscribe to the state events of the Server, from now on one long-lived connection tells the Client when the
+	// GameState changes instead of a long-poll request per change
+	public void subscribeToGameState() {
+		logger.info("Subscribing to the game state events...");
+		
+		Flux<ServerSentEvent<String>> events = baseWebClient.method(HttpMethod.GET)
+				.uri("/" + gameId + "/states/" + playerId + "/events").accept(MediaType.TEXT_EVENT_STREAM)
+				.retrieve().bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {});
+		gameStateEvents = events.toIterable().iterator();
+		
+		logger.info("Successfully subscribed to the game state events.");
+	}
+	
+	// Wait until the GameState differs from the cached one. When subscribed, the next state event with a new game
+	// state ID is awaited and the GameState is fetched afterwards. Otherwise the Server holds the request until the
+	// GameState changes or its long-poll timeout has passed. The new GameState and its ETag replace the cached ones
+	public GameState awaitGameStateChange() {
+		String knownGameStateId = cachedGameState != null ? cachedGameState.getGameStateId() : null;
+		
+		if (gameStateEvents != null) {
+			while (gameStateEvents.hasNext()) {
+				ServerSentEvent<String> event = gameStateEvents.next();
+				// Heartbeats have no event name, any other event than a state event reports an error
+				if ("gameState".equals(event.event())) {
+					if (!event.id().equals(knownGameStateId)) {
+						return getGameState();
+					}
+				} else if (event.event() != null) {
+					throw new NetworkCommunicationException(event.data());
+				}
+			}
+			throw new NetworkCommunicationException("The Server has closed the game state events.");
+		}
+		
+        Mono<ResponseEntity<ResponseEnvelope>> webAccess = baseWebClient.method(HttpMethod.GET)
+                .uri(uriBuilder -> uriBuilder.path("/" + gameId + "/states/" + playerId + "/changes")
+                		.queryParamIfPresent("gameStateId", Optional.ofNullable(knownGameStateId)).build())
+                .retrieve().toEntity(ResponseEnvelope.class);
+        ResponseEntity<ResponseEnvelope> response = webAccess.block();
+        ResponseEnvelope<GameState> requestResult = response.getBody();
 
         if (requestResult.getState() == ERequestState.Error) {
             throw new NetworkCommunicationException(requestResult.getExceptionMessage());
         }
         
-        return requestResult.getData().get();
+        cachedGameState = requestResult.getData().get();
+        cachedGameStateETag = response.getHeaders().getETag();
+        return cachedGameState;
     }
 	
 	// Get PlayerState, in order to get collectedTreasure and EPlayerGameState later
@@ -179,4 +260,39 @@ public class ClientNetwork {
         
         logger.info("Successfully sent the Move to Server.");
     }
+    
+    // Merge the changes sent by the Server into the cached GameState
+    // Players and map nodes of the changes replace the cached ones with the same ID or position, the rest is kept
+    // A complete GameState contains every player and map node, so merging it simply replaces the cached one
+    private GameState mergeGameState(GameState changes) {
+    	if (cachedGameState == null) {
+    		return changes;
+    	}
+    	
+    	Map<String, PlayerState> players = new LinkedHashMap<>();
+    	for (PlayerState player : cachedGameState.getPlayers()) {
+    		players.put(player.getUniquePlayerID(), player);
+    	}
+    	for (PlayerState player : changes.getPlayers()) {
+    		players.put(player.getUniquePlayerID(), player);
+    	}
+    	
+    	FullMap cachedMap = cachedGameState.getMap();
+    	FullMap changedMap = changes.getMap();
+    	if (changedMap == null || changedMap.isEmpty()) {
+    		return new GameState(cachedMap, players.values(), changes.getGameStateId());
+    	}
+    	if (cachedMap == null || cachedMap.isEmpty()) {
+    		return new GameState(changedMap, players.values(), changes.getGameStateId());
+    	}
+    	
+    	Map<List<Integer>, FullMapNode> nodes = new LinkedHashMap<>();
+    	for (FullMapNode node : cachedMap.getMapNodes()) {
+    		nodes.put(List.of(node.getX(), node.getY()), node);
+    	}
+    	for (FullMapNode node : changedMap.getMapNodes()) {
+    		nodes.put(List.of(node.getX(), node.getY()), node);
+    	}
+    	return new GameState(new FullMap(nodes.values()), players.values(), changes.getGameStateId());
+    }
 }
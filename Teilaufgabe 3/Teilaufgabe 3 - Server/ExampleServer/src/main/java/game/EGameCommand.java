@@ -0,0 +1,5 @@
+package game;
+
+public enum EGameCommand {
+	Created, PlayerAdded, HalfMapAdded, Moved, Lost, TurnExpired
+}
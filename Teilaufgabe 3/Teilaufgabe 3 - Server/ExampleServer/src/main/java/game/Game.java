@@ -1,22 +1,90 @@
 package game;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
+import map.EMapNodeAttribute;
+import map.EMoveDirection;
+import map.HalfMap;
+import map.MapDimensions;
+import map.MovementState;
+import map.PackedBoard;
 import map.ServerFullMap;
 import player.EServerPlayerGameState;
 import player.Player;
+import player.PlayerSnapshot;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import scheduler.TimerHandle;
+import server.exceptions.InvalidMoveException;
 
+/**
+ * The state of one game. Changes are only made by commands running on the mailbox of the game, which makes them
+ * free of races without locking. After each command an immutable snapshot of the game is published, which is what
+ * other threads read.
+ *
+ * Every random decision of the game is drawn from its own generator, seeded when the game is created. A game created
+ * with the same seed and receiving the same commands therefore makes the same decisions.
+ */
 public class Game {
-	private final Random random = new Random();
+	// The number of recent changes each snapshot keeps for players who ask for the changes since their last version.
+	private static final int MAX_RECENT_CHANGES = 32;
+	// The attribute which marks the fields each player has revealed, indexed like the players of the MovementState.
+	private static final EMapNodeAttribute[] REVEALED_ATTRIBUTES = { EMapNodeAttribute.MY_REVEALED, EMapNodeAttribute.ENEMY_REVEALED };
+	// The treasure each player picks up and the fort each player captures with it, indexed like the revealed fields.
+	private static final EMapNodeAttribute[] TREASURE_ATTRIBUTES = { EMapNodeAttribute.MY_TREASURE, EMapNodeAttribute.ENEMY_TREASURE };
+	private static final EMapNodeAttribute[] TARGET_FORT_ATTRIBUTES = { EMapNodeAttribute.ENEMY_FORT, EMapNodeAttribute.MY_FORT };
+	
 	private final String gameId;
-	private final List<Player> players = new ArrayList<>();
-	private ServerFullMap fullMap;
-	private String gameStateId;
+	private final long seed;
+	private final SplittableRandom random;
+	private long randomDraws;
+	private final GameMailbox mailbox;
+	private final MapDimensions halfMapDimensions;
+	private final List<Player> players = new CopyOnWriteArrayList<>();
+	private volatile ServerFullMap fullMap;
+	private MovementState movement;
+	private final Map<String, MoveBatch> moveBatches = new HashMap<>();
+	private List<GameCommand> recordedCommands = new ArrayList<>();
+	private volatile long stateVersion = 1;
+	private volatile long lastAccessTime;
+	private volatile boolean removed;
+	private volatile GameSnapshot snapshot;
+	private final Queue<IGameStateListener> stateListeners = new ConcurrentLinkedQueue<>();
+	private final Sinks.Many<GameSnapshot> snapshotStream = Sinks.many().replay().latest();
+	private TurnTimeoutScheduler timeoutScheduler;
+	private TimerHandle turnDeadline;
+	private TimerHandle durationDeadline;
+	private int turnNumber;
 
-	public Game(String gameId) {
+	public Game(String gameId, MapDimensions halfMapDimensions, long seed, Executor commandPool) {
 		this.gameId = gameId;
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+		this.halfMapDimensions = halfMapDimensions;
+		this.mailbox = new GameMailbox(commandPool);
+		this.lastAccessTime = System.currentTimeMillis();
+	}
+	
+	// Retrieves the mailbox which executes the commands of this game.
+	public GameMailbox getMailbox() {
+		return mailbox;
+	}
+	
+	// Sets the scheduler which enforces the turn and game duration limits, without a scheduler no limits are enforced.
+	public void setTimeoutScheduler(TurnTimeoutScheduler timeoutScheduler) {
+		this.timeoutScheduler = timeoutScheduler;
 	}
 
 	// Retrieves the game ID.
@@ -24,6 +92,27 @@ public class Game {
 		return gameId;
 	}
 	
+	// Retrieves the seed of the random decisions of this game.
+	public long getSeed() {
+		return seed;
+	}
+	
+	// Retrieves the number of random decisions the game has made so far.
+	public long getRandomDraws() {
+		return randomDraws;
+	}
+	
+	// Creates the generator for the next random decision of the game. Must run on the mailbox of the game.
+	public SplittableRandom nextRandom() {
+		randomDraws++;
+		return random.split();
+	}
+	
+	// Retrieves the size each half map of this game must have.
+	public MapDimensions getHalfMapDimensions() {
+		return halfMapDimensions;
+	}
+	
 	// Retrieves the list of players in the game.
 	public List<Player> getPlayers() {
 		return players;
@@ -46,7 +135,104 @@ public class Game {
 		return fullMap;
 	}
 	
+	/**
+     * Places the players on the full map once it is complete. Each player has revealed what they see from their fort.
+     * Must run on the mailbox of the game.
+     */
+	public void startMovement() {
+		PackedBoard board = fullMap.getFullMap();
+		movement = MovementState.of(board);
+		for (int player = MovementState.PLAYER_ONE; player <= MovementState.PLAYER_TWO; player++) {
+			reveal(board, player);
+		}
+	}
+	
+	/**
+     * Applies one move action of a player and switches the turn. Once the player arrives at the next field, the
+     * fields seen from there are added to the fields the player has revealed, the player picks up their treasure if
+     * it lies there, and a player carrying the treasure wins the game on the enemy fort.
+     *
+     * @param player    MovementState.PLAYER_ONE or MovementState.PLAYER_TWO.
+     * @param direction The direction of the move.
+     * @return True if the player has arrived at the next field with this action.
+     * @throws InvalidMoveException If the next field is outside of the map or water.
+     */
+	public boolean applyMove(int player, EMoveDirection direction) {
+		PackedBoard board = fullMap.getFullMap();
+		boolean hasArrived = movement.applyMove(board, player, direction);
+		if (hasArrived) {
+			reveal(board, player);
+			if (checkArrival(board, player)) {
+				return true;
+			}
+		}
+		switchTurn();
+		return hasArrived;
+	}
+	
+	// Retrieves the positions and move progress of the players, null until the full map is complete.
+	public MovementState getMovement() {
+		return movement;
+	}
+	
+	// Adds the batch of move actions a player has sent. Must run on the mailbox of the game.
+	public void addMoveBatch(MoveBatch batch) {
+		moveBatches.put(batch.getPlayerId(), batch);
+	}
+	
+	// Retrieves the batch of move actions of the player, null if the player has none. Must run on the mailbox of the game.
+	public MoveBatch getMoveBatch(String playerId) {
+		return moveBatches.get(playerId);
+	}
+	
+	/**
+     * Removes the batches of move actions which are finished, i.e. have no action left or belong to a finished game.
+     * Must run on the mailbox of the game.
+     *
+     * @return The removed batches.
+     */
+	public List<MoveBatch> removeFinishedMoveBatches() {
+		if (moveBatches.isEmpty()) {
+			return List.of();
+		}
+		List<MoveBatch> finished = new ArrayList<>();
+		for (Iterator<MoveBatch> iterator = moveBatches.values().iterator(); iterator.hasNext();) {
+			MoveBatch batch = iterator.next();
+			if (!batch.hasNext() || isFinished()) {
+				finished.add(batch);
+				iterator.remove();
+			}
+		}
+		return finished;
+	}
+	
+	// Records a command which changes the state, to be journaled once it is published. Must run on the mailbox of the game.
+	public void recordCommand(GameCommand command) {
+		recordedCommands.add(command);
+	}
+	
+	// Retrieves and clears the commands recorded since the last call. Must run on the mailbox of the game.
+	public List<GameCommand> drainRecordedCommands() {
+		if (recordedCommands.isEmpty()) {
+			return List.of();
+		}
+		List<GameCommand> drained = recordedCommands;
+		recordedCommands = new ArrayList<>();
+		return drained;
+	}
+	
+	// Retrieves the ID of the player who must act, null if nobody must act.
+	public String getPlayerIdToAct() {
+		for (Player eachPlayer : players) {
+			if (eachPlayer.isTurn()) {
+				return eachPlayer.getPlayerId();
+			}
+		}
+		return null;
+	}
+	
 	// Switches the turns of the players. Players with state "MustAct" will change to "MustWait" and vice versa.
+	// The player who must act next gets a new turn deadline.
 	public void switchTurn() {
 		for (Player eachPlayer : players) {
 			if (eachPlayer.getPlayerGameState().equals(EServerPlayerGameState.MustAct)) {
@@ -55,9 +241,10 @@ public class Game {
 				eachPlayer.setPlayerGameState(EServerPlayerGameState.MustAct);
 			}
 		}
+		armTurnDeadline();
 	}
 	
-	// Sets the player's game state to lost and the other player's state to won.
+	// Sets the player's game state to lost and the other player's state to won. Pending deadlines are cancelled.
 	public void setLose(String playerId) {
 		for(Player eachPlayer : players) {
 			if(eachPlayer.getPlayerId().equals(playerId)) {
@@ -66,27 +253,359 @@ public class Game {
 				eachPlayer.setPlayerGameState(EServerPlayerGameState.Won);
 			}
 		}
+		cancelDeadlines();
+	}
+	
+	/**
+     * Lets the player who must act lose the game, if the game is still in the given turn. Used when the turn
+     * deadline or the game duration has expired.
+     *
+     * @param expiredTurnNumber The turn in which the deadline expired, or -1 to ignore the turn.
+     * @return The ID of the player who lost, null if the game has moved on in the meantime.
+     */
+	public String expireTurn(int expiredTurnNumber) {
+		if (expiredTurnNumber >= 0 && expiredTurnNumber != turnNumber) {
+			return null;
+		}
+		for (Player eachPlayer : players) {
+			if (eachPlayer.isTurn()) {
+				setLose(eachPlayer.getPlayerId());
+				return eachPlayer.getPlayerId();
+			}
+		}
+		return null;
+	}
+	
+	// Advances the state version after a state transition and returns the new version.
+	public long advanceStateVersion() {
+		return ++stateVersion;
 	}
 	
-	// Sets the game state ID.
-	public void setGameStateId(String gameStateId) {
-		this.gameStateId = gameStateId;
+	// Retrieves the state version, which increases with every state transition.
+	public long getStateVersion() {
+		return stateVersion;
 	}
 	
-	// Retrieves the game state ID.
+	// Retrieves the game state ID, which is the state version in text form.
 	public String getGameStateId() {
-		return gameStateId;
+		return String.valueOf(stateVersion);
+	}
+	
+	// Retrieves the latest published snapshot of the game.
+	public GameSnapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	/**
+     * Publishes an immutable snapshot of the current state of the game. Called after every command, readers switch to
+     * the new snapshot atomically through a single volatile reference. Nothing is published if the state version has
+     * not changed, e.g. because the command failed its validation. Otherwise the change from the previous snapshot is
+     * recorded, the listeners waiting for the next game state are notified and the snapshot is pushed to the snapshot
+     * stream.
+     *
+     * @return True if a snapshot with a new state version was published.
+     */
+	public boolean publishSnapshot() {
+		GameSnapshot previous = snapshot;
+		long version = stateVersion;
+		if (previous != null && previous.getVersion() == version) {
+			return false;
+		}
+		
+		List<PlayerSnapshot> playerSnapshots = new ArrayList<>(players.size());
+		for (Player eachPlayer : players) {
+			playerSnapshots.add(new PlayerSnapshot(eachPlayer));
+		}
+		
+		// The copy shares the board until the next command changes it, then only the changed chunks are copied.
+		PackedBoard board = null;
+		PackedBoard fullMapCopy = null;
+		String playerTwoId = null;
+		if (fullMap != null) {
+			for (HalfMap halfMap : fullMap.getHalfMaps()) {
+				if (halfMap.isPlayerTwo()) {
+					playerTwoId = halfMap.getPlayerId();
+				}
+			}
+			if (fullMap.isComplete()) {
+				board = fullMap.getFullMap();
+				fullMapCopy = new PackedBoard(board);
+			}
+		}
+		
+		List<StateChange> recentChanges = recordChange(previous, version, playerSnapshots, board);
+		// The seed of the snapshot depends on the version only, so publishing does not draw from the game's generator.
+		long snapshotSeed = new SplittableRandom(seed ^ version).nextLong();
+		GameSnapshot published = new GameSnapshot(gameId, version, playerSnapshots, fullMapCopy, playerTwoId, recentChanges, snapshotSeed);
+		snapshot = published;
+		
+		IGameStateListener listener;
+		while ((listener = stateListeners.poll()) != null) {
+			listener.onGameStateChanged(published);
+		}
+		snapshotStream.tryEmitNext(published);
+		return true;
+	}
+	
+	/**
+     * Retrieves the stream of snapshots with a new game state ID. Subscribers get the latest snapshot right away and
+     * every following one as soon as it is published. The stream completes when the game is removed.
+     *
+     * @return The snapshot stream of the game.
+     */
+	public Flux<GameSnapshot> getSnapshotStream() {
+		return snapshotStream.asFlux();
+	}
+	
+	// Completes the snapshot stream. Must run on the mailbox of the game, like every snapshot which is pushed to it.
+	public void completeSnapshotStream() {
+		snapshotStream.tryEmitComplete();
+	}
+	
+	/**
+     * Notifies the listener once as soon as a snapshot with a game state ID other than the known one is published.
+     * If the current snapshot already has a different game state ID, the listener is notified right away.
+     *
+     * @param knownGameStateId The game state ID the caller already knows, null if it knows none.
+     * @param listener         The listener to notify.
+     */
+	public void awaitStateChange(String knownGameStateId, IGameStateListener listener) {
+		stateListeners.add(listener);
+		
+		// A snapshot published before the listener was added did not see it, so check the current one again. Only
+		// the one who removes the listener from the queue notifies it.
+		GameSnapshot current = snapshot;
+		if (!current.getGameStateId().equals(knownGameStateId) && stateListeners.remove(listener)) {
+			listener.onGameStateChanged(current);
+		}
+	}
+	
+	// Removes a listener which no longer waits for the next game state, e.g. because its request has timed out.
+	public void removeStateListener(IGameStateListener listener) {
+		stateListeners.remove(listener);
+	}
+	
+	// Checks if the game is finished, i.e. one of the players has won or lost.
+	public boolean isFinished() {
+		for (Player eachPlayer : players) {
+			EServerPlayerGameState state = eachPlayer.getPlayerGameState();
+			if (state == EServerPlayerGameState.Won || state == EServerPlayerGameState.Lost) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+     * Restores the state of a game from the journal after a restart. The deadlines of a running game start anew, so
+     * the player who must act gets a full turn again.
+     *
+     * @param restoredVersion  The state version of the restored state.
+     * @param restoredDraws    The number of random decisions the game had made, the generator continues after them.
+     * @param restoredPlayers  The players, in the order of their registration.
+     * @param restoredFullMap  The full map, or null if no half map was sent yet.
+     * @param restoredMovement The positions and move progress of the players, or null if the full map is not complete.
+     */
+	public void restore(long restoredVersion, long restoredDraws, List<Player> restoredPlayers, ServerFullMap restoredFullMap,
+			MovementState restoredMovement) {
+		this.stateVersion = restoredVersion;
+		while (randomDraws < restoredDraws) {
+			nextRandom();
+		}
+		this.players.addAll(restoredPlayers);
+		this.fullMap = restoredFullMap;
+		this.movement = restoredMovement;
+		if (!isFinished() && isAnyPlayersTurn()) {
+			armTurnDeadline();
+			if (timeoutScheduler != null) {
+				durationDeadline = timeoutScheduler.armGameDuration(this);
+			}
+		}
+	}
+	
+	// Marks the game as removed from the active games, it is not recorded in the journal anymore.
+	public void markRemoved() {
+		this.removed = true;
+	}
+	
+	// Checks if the game has been removed from the active games.
+	public boolean isRemoved() {
+		return removed;
+	}
+	
+	// Marks the game as accessed at the current time.
+	public void markAccessed() {
+		this.lastAccessTime = System.currentTimeMillis();
+	}
+	
+	// Retrieves the time in milliseconds at which the game was last accessed.
+	public long getLastAccessTime() {
+		return lastAccessTime;
 	}
 	
 	/* 
 	 * From here are the private methods for the Game class.
 	 */
 	
+	/**
+     * Records the change from the previous snapshot to the new version and appends it to the recent changes, dropping
+     * the oldest ones beyond the limit. The changed fields are the ones the commands since the previous snapshot have
+     * recorded on the full map, so the map is never compared field by field.
+     *
+     * @param previous        The previous snapshot, or null if there is none.
+     * @param version         The new state version.
+     * @param playerSnapshots The players of the new version.
+     * @param board           The full map of the game, or null if it is not complete yet.
+     * @return The recent changes including the new one, oldest first.
+     */
+	private List<StateChange> recordChange(GameSnapshot previous, long version, List<PlayerSnapshot> playerSnapshots, PackedBoard board) {
+		Map<EMapNodeAttribute, int[]> changedFields = drainChangedFields(board);
+		if (previous == null) {
+			return new ArrayList<>();
+		}
+		
+		Set<String> changedPlayerIds = new HashSet<>();
+		for (PlayerSnapshot eachPlayer : playerSnapshots) {
+			if (!previous.hasSamePlayerState(eachPlayer)) {
+				changedPlayerIds.add(eachPlayer.getPlayerId());
+			}
+		}
+		
+		// A map which was completed by this change is new as a whole, so the fields recorded on it do not matter.
+		boolean isMapReplaced = board != null && previous.getFullMap() == null;
+		if (isMapReplaced) {
+			changedFields.clear();
+		}
+		
+		List<StateChange> previousChanges = previous.getRecentChanges();
+		int first = Math.max(0, previousChanges.size() - MAX_RECENT_CHANGES + 1);
+		List<StateChange> recentChanges = new ArrayList<>(previousChanges.subList(first, previousChanges.size()));
+		recentChanges.add(new StateChange(version, changedFields, changedPlayerIds, isMapReplaced));
+		return recentChanges;
+	}
+	
+	/**
+     * Retrieves the fields of the full map where an attribute changed since the previous snapshot, e.g. by a movement,
+     * a reveal or an arrival. A full map which does not record its changes yet, because it was just completed or
+     * restored, starts recording now and reports no fields.
+     *
+     * @param board The full map of the game, or null if it is not complete yet.
+     * @return The indices of the changed fields in ascending order, per attribute.
+     */
+	private static Map<EMapNodeAttribute, int[]> drainChangedFields(PackedBoard board) {
+		Map<EMapNodeAttribute, int[]> changedFields = new EnumMap<>(EMapNodeAttribute.class);
+		if (board == null) {
+			return changedFields;
+		}
+		if (!board.isRecordingChanges()) {
+			board.recordChanges();
+			return changedFields;
+		}
+		for (EMapNodeAttribute attribute : EMapNodeAttribute.values()) {
+			int[] fields = board.drainChangedFields(attribute);
+			if (fields.length > 0) {
+				changedFields.put(attribute, fields);
+			}
+		}
+		return changedFields;
+	}
+	
+	// Adds the fields seen from the current position of the player to the fields the player has revealed.
+	private void reveal(PackedBoard board, int player) {
+		fullMap.getVisibilityMasks().reveal(board, movement.getX(player), movement.getY(player), REVEALED_ATTRIBUTES[player]);
+	}
+	
+	/**
+     * Checks the field the player has just arrived at. The player picks up their treasure there, or wins the game if
+     * they carry their treasure and the field is the fort of the enemy. Both are a bit test on the field, so the
+     * check costs the same on any map size.
+     *
+     * @param board  The full map.
+     * @param player MovementState.PLAYER_ONE or MovementState.PLAYER_TWO.
+     * @return True if the player has won the game.
+     */
+	private boolean checkArrival(PackedBoard board, int player) {
+		int x = movement.getX(player);
+		int y = movement.getY(player);
+		String movingPlayerId = findPlayerId(player);
+		for (Player eachPlayer : players) {
+			if (!eachPlayer.getPlayerId().equals(movingPlayerId)) {
+				continue;
+			}
+			if (board.hasAttribute(x, y, TREASURE_ATTRIBUTES[player])) {
+				board.removeAttribute(x, y, TREASURE_ATTRIBUTES[player]);
+				eachPlayer.setCollectedTreasure(true);
+			} else if (eachPlayer.isCollectedTreasure() && board.hasAttribute(x, y, TARGET_FORT_ATTRIBUTES[player])) {
+				setWin(movingPlayerId);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	// Finds the ID of the player who sent the first or the second half map.
+	private String findPlayerId(int player) {
+		for (HalfMap halfMap : fullMap.getHalfMaps()) {
+			if (halfMap.isPlayerTwo() == (player == MovementState.PLAYER_TWO)) {
+				return halfMap.getPlayerId();
+			}
+		}
+		return null;
+	}
+	
+	// Sets the player's game state to won and the other player's state to lost.
+	private void setWin(String playerId) {
+		for (Player eachPlayer : players) {
+			if (!eachPlayer.getPlayerId().equals(playerId)) {
+				setLose(eachPlayer.getPlayerId());
+				return;
+			}
+		}
+	}
+	
 	// Starts the game if there are enough players by selecting a random player to act first.
 	private void startGame() {
 		if (players.size() == 2) {
-            int firstPlayerIndex = random.nextInt(2); 
+            int firstPlayerIndex = nextRandom().nextInt(2);
             players.get(firstPlayerIndex).setPlayerGameState(EServerPlayerGameState.MustAct);
+            armTurnDeadline();
+            if (timeoutScheduler != null) {
+            	durationDeadline = timeoutScheduler.armGameDuration(this);
+            }
         }
 	}
+	
+	// Starts a new turn and replaces the deadline of the previous turn with one for the player who must act now.
+	private void armTurnDeadline() {
+		turnNumber++;
+		if (turnDeadline != null) {
+			turnDeadline.cancel();
+			turnDeadline = null;
+		}
+		if (timeoutScheduler != null && isAnyPlayersTurn()) {
+			turnDeadline = timeoutScheduler.armTurn(this, turnNumber);
+		}
+	}
+	
+	// Checks if one of the players must act.
+	private boolean isAnyPlayersTurn() {
+		for (Player eachPlayer : players) {
+			if (eachPlayer.isTurn()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	// Cancels the pending deadlines once the game is finished.
+	private void cancelDeadlines() {
+		if (turnDeadline != null) {
+			turnDeadline.cancel();
+			turnDeadline = null;
+		}
+		if (durationDeadline != null) {
+			durationDeadline.cancel();
+			durationDeadline = null;
+		}
+	}
 }
@@ -0,0 +1,98 @@
+package game;
+
+import map.EMoveDirection;
+import map.MapDimensions;
+import map.PackedBoard;
+import player.Player;
+
+/**
+ * One command which changed the state of a game, with the input it needs to be executed again: the IDs and the
+ * information the server generated or received, but nothing it derived from them. Every random decision of a game is
+ * drawn from its seeded generator, so executing the same commands on the same state leads to the same state again.
+ * A batch of moves is recorded as the moves it applied, in the turns they were applied in.
+ */
+public final class GameCommand {
+	private final EGameCommand type;
+	private final MapDimensions halfMapDimensions;
+	private final long seed;
+	private final Player player;
+	private final String playerId;
+	private final PackedBoard halfMap;
+	private final EMoveDirection direction;
+
+	private GameCommand(EGameCommand type, MapDimensions halfMapDimensions, long seed, Player player, String playerId,
+			PackedBoard halfMap, EMoveDirection direction) {
+		this.type = type;
+		this.halfMapDimensions = halfMapDimensions;
+		this.seed = seed;
+		this.player = player;
+		this.playerId = playerId;
+		this.halfMap = halfMap;
+		this.direction = direction;
+	}
+
+	// Creates the command which created a game with the given half map size and seed.
+	public static GameCommand created(MapDimensions halfMapDimensions, long seed) {
+		return new GameCommand(EGameCommand.Created, halfMapDimensions, seed, null, null, null, null);
+	}
+
+	// Creates the command which registered the player.
+	public static GameCommand playerAdded(Player player) {
+		return new GameCommand(EGameCommand.PlayerAdded, null, 0, player, player.getPlayerId(), null, null);
+	}
+
+	// Creates the command which added the half map of the player, as it was received, before the treasure was placed on it.
+	public static GameCommand halfMapAdded(String playerId, PackedBoard halfMap) {
+		return new GameCommand(EGameCommand.HalfMapAdded, null, 0, null, playerId, halfMap, null);
+	}
+
+	// Creates the command which applied one move action of the player.
+	public static GameCommand moved(String playerId, EMoveDirection direction) {
+		return new GameCommand(EGameCommand.Moved, null, 0, null, playerId, null, direction);
+	}
+
+	// Creates the command which let the player lose, e.g. because of an invalid half map.
+	public static GameCommand lost(String playerId) {
+		return new GameCommand(EGameCommand.Lost, null, 0, null, playerId, null, null);
+	}
+
+	// Creates the command which let the player lose because their turn or the game duration expired.
+	public static GameCommand turnExpired(String playerId) {
+		return new GameCommand(EGameCommand.TurnExpired, null, 0, null, playerId, null, null);
+	}
+
+	// Retrieves the type of the command.
+	public EGameCommand getType() {
+		return type;
+	}
+
+	// Retrieves the half map size of a created game.
+	public MapDimensions getHalfMapDimensions() {
+		return halfMapDimensions;
+	}
+
+	// Retrieves the seed of a created game.
+	public long getSeed() {
+		return seed;
+	}
+
+	// Retrieves the registered player.
+	public Player getPlayer() {
+		return player;
+	}
+
+	// Retrieves the ID of the player the command belongs to, null for a created game.
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	// Retrieves the half map as it was received.
+	public PackedBoard getHalfMap() {
+		return halfMap;
+	}
+
+	// Retrieves the direction of the move action.
+	public EMoveDirection getDirection() {
+		return direction;
+	}
+}
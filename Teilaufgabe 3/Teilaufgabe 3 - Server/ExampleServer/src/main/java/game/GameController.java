@@ -1,51 +1,266 @@
 package game;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Random;
-import java.util.UUID;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import map.HalfMap;
+import map.EMoveDirection;
+import map.MapDimensions;
+import map.MovementState;
 import map.ServerFullMap;
 import player.Player;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import server.exceptions.InvalidMoveException;
+import server.exceptions.JournalUnavailableException;
+import server.exceptions.PlayerIdNotFoundException;
+import server.exceptions.ServerFullException;
 
+/**
+ * Owns the active games of one server instance. It is a singleton bean, so every service of the instance shares the
+ * same games, while several instances in one JVM stay isolated from each other.
+ */
+@Component
 public class GameController {
 	private final static Logger logger = LoggerFactory.getLogger(GameController.class);
 	
-	private final int MAX_GAMES = 99;
-	private static List<Game> activeGames = new ArrayList<Game>();
+	private final GameRegistry activeGames = new GameRegistry();
+	private final ExecutorService commandPool = createCommandPool();
+	private final IGameRemovalListener snapshotStreamCloser = game -> game.getMailbox().submit(game::completeSnapshotStream);
+	private volatile TurnTimeoutScheduler timeoutScheduler;
+	private volatile IGameJournal journal;
 	
-	public GameController() {}
+	public GameController() {
+		// Close the snapshot streams of removed games, so that their subscribers are released.
+		activeGames.addRemovalListener(snapshotStreamCloser);
+	}
 	
 	/**
-     * Creates a new game and adds it to the active games list.
+     * Creates a new game and registers it in the active games registry.
      * Generates a unique game ID, ensuring it is not already in use.
-     * If the maximum number of active games is reached, removes the oldest game.
+     * If the capacity of active games is reached, inactive games are evicted to make room for the new game.
      *
+     * @param halfMapDimensions The size each half map of the new game must have.
+     * @param seed              The seed of the random decisions of the game, or null for a random seed.
      * @return The unique game ID for the new game.
+     * @throws ServerFullException If the capacity is reached and no inactive game can be evicted.
      */
-	public String createNewGame() {
-		// Remove the oldest game if the number of active games exceeds the maximum limit.
-		if(activeGames.size() >= MAX_GAMES) {
-			activeGames.remove(0);
-		}
-		
-		String gameId = generateGameId();
+	public String createNewGame(MapDimensions halfMapDimensions, Long seed) {
+		long gameSeed = (seed != null) ? seed : ThreadLocalRandom.current().nextLong();
 		
-		// Ensure the generated game ID is unique.
-		while(checkGameIDUsed(gameId)) {
-			gameId = generateGameId();
+		// Ensure the generated game ID is unique, the registry refuses IDs which are already in use.
+		Game game = createGame(halfMapDimensions, gameSeed);
+		while(!activeGames.register(game)) {
+			game = createGame(halfMapDimensions, gameSeed);
 		}
 		
-        Game game = new Game(gameId);
-        activeGames.add(game);
+		// Record the new game once it is registered, on its mailbox like every later command of it.
+		IGameJournal currentJournal = journal;
+		if(currentJournal != null) {
+			Game createdGame = game;
+			game.getMailbox().execute(() -> {
+				currentJournal.recordCommands(createdGame, List.of(GameCommand.created(halfMapDimensions, gameSeed)));
+				return null;
+			});
+			currentJournal.awaitDurable();
+		}
         
-        return gameId;
+        return game.getGameId();
     }
 	
+	/**
+     * Executes a command on the mailbox of the game with the given ID and waits for its result. Commands of the same
+     * game run one after another, commands of different games run in parallel. If the game does not exist, there is
+     * no state to protect and the command is executed directly, so that its validation can report the missing game.
+     * A new snapshot of the game is published and the commands which changed the state are recorded in the journal.
+     * If the state has changed, the result is returned once the recorded commands are durable, while the mailbox
+     * already continues with the next command. A command which executes a nested command of its own game runs it
+     * inline, the outer command then publishes, records and waits for both.
+     *
+     * @param gameId  The game ID.
+     * @param command The command to execute.
+     * @return The result of the command.
+     * @throws JournalUnavailableException If the state has changed but the journal cannot record it.
+     */
+	public <T> T executeCommand(String gameId, Supplier<T> command) {
+		Game game = activeGames.find(gameId);
+		if(game == null || game.getMailbox().isCurrentThread()) {
+			return command.get();
+		}
+		AtomicBoolean isRecorded = new AtomicBoolean();
+		T result;
+		try {
+			result = game.getMailbox().execute(() -> {
+				try {
+					return command.get();
+				} finally {
+					isRecorded.set(publishAndRecord(game));
+				}
+			});
+		} catch (RuntimeException | Error e) {
+			// A failed command may have changed the state as well, e.g. a player who moved into water has lost.
+			if(isRecorded.get()) {
+				awaitDurable();
+			}
+			throw e;
+		}
+		if(isRecorded.get()) {
+			awaitDurable();
+		}
+		return result;
+	}
+	
+	// Waits until every command recorded in the journal so far is durable, e.g. before a deferred response is sent.
+	public void awaitDurable() {
+		IGameJournal currentJournal = journal;
+		if(currentJournal != null) {
+			currentJournal.awaitDurable();
+		}
+	}
+	
+	/**
+     * Executes a command on the mailbox of the game with the given ID like executeCommand, but without blocking the
+     * caller, so that a non-blocking endpoint does not hold its event loop thread while the command and the journal
+     * are busy. If the state has changed, the result completes once the recorded commands are durable. It completes
+     * with the exception of the command, or with a JournalUnavailableException if the journal cannot record the change.
+     *
+     * @param gameId  The game ID.
+     * @param command The command to execute.
+     * @return The result of the command.
+     */
+	public <T> CompletableFuture<T> executeCommandAsync(String gameId, Supplier<T> command) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			completeWith(result, command);
+			return result;
+		}
+		game.getMailbox().submit(() -> {
+			CompletableFuture<T> commandResult = new CompletableFuture<>();
+			completeWith(commandResult, command);
+
+			// The caller only learns about a failed publish through the result, the mailbox would just log it.
+			boolean isRecorded;
+			try {
+				isRecorded = publishAndRecord(game);
+			} catch (RuntimeException | Error e) {
+				result.completeExceptionally(e);
+				return;
+			}
+			CompletableFuture<Void> durable = isRecorded ? whenDurable() : CompletableFuture.completedFuture(null);
+			durable.whenComplete((ignored, journalFailure) -> commandResult.whenComplete((value, failure) -> {
+				if(journalFailure != null) {
+					result.completeExceptionally(journalFailure);
+				} else if(failure != null) {
+					result.completeExceptionally(failure);
+				} else {
+					result.complete(value);
+				}
+			}));
+		});
+		return result;
+	}
+	
+	// Completes once every command recorded in the journal so far is durable, without blocking the caller.
+	public CompletableFuture<Void> whenDurable() {
+		IGameJournal currentJournal = journal;
+		if(currentJournal == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return currentJournal.whenDurable();
+	}
+	
+	/**
+     * Queues a command on the mailbox of the given game without waiting for it. A new snapshot of the game is
+     * published and the commands which changed the state are recorded in the journal once the command is done.
+     *
+     * @param game    The game.
+     * @param command The command to execute.
+     */
+	public void submitCommand(Game game, Runnable command) {
+		game.getMailbox().submit(() -> {
+			try {
+				command.run();
+			} finally {
+				publishAndRecord(game);
+			}
+		});
+	}
+	
+	/**
+     * Retrieves the latest published snapshot of the game with the given ID. Reading it never waits for commands.
+     *
+     * @param gameId The game ID.
+     * @return The snapshot, null if the game does not exist.
+     */
+	public GameSnapshot getSnapshot(String gameId) {
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return null;
+		}
+		return game.getSnapshot();
+	}
+	
+	/**
+     * Retrieves the stream of snapshots of the game with the given ID, which pushes every snapshot with a new game
+     * state ID. The snapshots are published on the mailbox of the game, so subscribers receive them on another
+     * thread, where writing them to a slow client cannot hold up the commands of any game.
+     *
+     * @param gameId The game ID.
+     * @return The snapshot stream, an empty stream if the game does not exist.
+     */
+	public Flux<GameSnapshot> getSnapshotStream(String gameId) {
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return Flux.empty();
+		}
+		return game.getSnapshotStream().publishOn(Schedulers.boundedElastic());
+	}
+	
+	/**
+     * Notifies the listener once as soon as the game state ID of the game with the given ID differs from the known one.
+     *
+     * @param gameId           The game ID.
+     * @param knownGameStateId The game state ID the caller already knows, null if it knows none.
+     * @param listener         The listener to notify.
+     * @return True if the listener was registered, false if the game does not exist.
+     */
+	public boolean awaitStateChange(String gameId, String knownGameStateId, IGameStateListener listener) {
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return false;
+		}
+		game.awaitStateChange(knownGameStateId, listener);
+		return true;
+	}
+	
+	/**
+     * Removes a listener which no longer waits for the next game state of the game with the given ID.
+     *
+     * @param gameId   The game ID.
+     * @param listener The listener to remove.
+     */
+	public void removeStateListener(String gameId, IGameStateListener listener) {
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			game.removeStateListener(listener);
+		}
+	}
+	
 	/**
      * Checks if the given game ID is already in use.
      *
@@ -53,12 +268,7 @@ public class GameController {
      * @return True if the game ID is in use, false otherwise.
      */
 	public boolean checkGameIDUsed(String gameId) {
-		for (Game eachGame : activeGames) {
-			if (eachGame.getGameId().equals(gameId)) {
-				return true;
-			}
-		}
-		return false;
+		return activeGames.contains(gameId);
 	}
 	
 	/**
@@ -68,25 +278,22 @@ public class GameController {
      * @return True if the game has at least 2 players, false otherwise.
      */
 	public boolean checkEnoughPlayers(String gameId) {
-		for (Game eachGame : activeGames) {
-			if (eachGame.getGameId().equals(gameId)) {
-				if(eachGame.getPlayers().size()>=2)
-					return true;
-			}
-		}
-		return false;
+		Game game = activeGames.find(gameId);
+		return game != null && game.getPlayers().size() >= 2;
 	}
 	
 	/**
-     * Adds a player to the game with the given ID.
+     * Adds a player to the game with the given ID and advances its state version.
      *
      * @param gameId The game ID.
      * @param player The player to add.
      */
 	public void addPlayer(String gameId, Player player) {
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId))
-				eachGame.addPlayer(player);
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			recordCommand(game, GameCommand.playerAdded(player));
+			game.addPlayer(player);
+			game.advanceStateVersion();
 		}
 	}
 	
@@ -97,9 +304,9 @@ public class GameController {
      * @param gameId The game ID.
      */
 	public void addFullMap(ServerFullMap fullMap, String gameId) {
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId))
-				eachGame.setFullMap(fullMap);
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			game.setFullMap(fullMap);
 		}
 	}
 	
@@ -110,29 +317,103 @@ public class GameController {
      * @return True if it is the second player's half-map, false otherwise.
      */
 	public boolean isPlayerTwoHalfMap(String gameId) {
-		boolean isPlayerTwo=false;
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId)) {
-				if(eachGame.getFullMap()!=null) {
-					isPlayerTwo=true;
-				}
-			}
-		}
-		return isPlayerTwo;
+		Game game = activeGames.find(gameId);
+		return game != null && game.getFullMap() != null;
 	}
 	
 	/**
-     * Adds a half-map of the second player to the full map of the game with the given ID and switches the turn.
+     * Adds a half-map of the second player to the full map of the game with the given ID, places the players on the
+     * completed full map and switches the turn.
      *
      * @param halfMap The half-map to add.
      * @param gameId The game ID.
      */
 	public void addHalfMap(HalfMap halfMap, String gameId) {
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId)) {
-				eachGame.getFullMap().addHalfMap(halfMap);
-				eachGame.switchTurn();
-			}
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			game.getFullMap().addHalfMap(halfMap, game.nextRandom());
+			game.startMovement();
+			game.switchTurn();
+		}
+	}
+	
+	/**
+     * Creates the generator for the next random decision of the game with the given ID. Must run on the mailbox of
+     * the game.
+     *
+     * @param gameId The game ID.
+     * @return The generator, or null if the game does not exist.
+     */
+	public SplittableRandom nextRandom(String gameId) {
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return null;
+		}
+		return game.nextRandom();
+	}
+	
+	/**
+     * Checks if both half maps of the game with the given ID have been combined into the full map.
+     *
+     * @param gameId The game ID.
+     * @return True if the full map is complete, false otherwise.
+     */
+	public boolean isFullMapComplete(String gameId) {
+		Game game = activeGames.find(gameId);
+		return game != null && game.getFullMap() != null && game.getFullMap().isComplete();
+	}
+	
+	/**
+     * Applies one move action of the player in the game with the given ID, switches the turn and advances the state
+     * version. A player whose move leaves the map or leads into water loses the game, a player who carries their
+     * treasure onto the enemy fort wins it.
+     *
+     * @param gameId    The game ID.
+     * @param playerId  The ID of the moving player.
+     * @param direction The direction of the move.
+     * @throws InvalidMoveException If the move leaves the map or leads into water.
+     */
+	public void applyMove(String gameId, String playerId, EMoveDirection direction) {
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			applyMove(game, playerId, direction);
+			applyMoveBatches(game);
+		}
+	}
+	
+	/**
+     * Starts a batch of move actions of the player in the game with the given ID and applies its first action. The
+     * following actions are applied whenever the turn returns to the player. Must run on the mailbox of the game.
+     *
+     * @param gameId     The game ID.
+     * @param playerId   The ID of the moving player, whose turn it is.
+     * @param directions The directions of the move actions, in the order they are applied.
+     * @return The batch, which is completed once all of its actions are applied or the game has ended.
+     */
+	public MoveBatch startMoveBatch(String gameId, String playerId, List<EMoveDirection> directions) {
+		MoveBatch batch = new MoveBatch(playerId, directions);
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			batch.cancel();
+			batch.complete();
+			return batch;
+		}
+		game.addMoveBatch(batch);
+		applyMoveBatches(game);
+		return batch;
+	}
+	
+	/**
+     * Cancels the actions of the batch which are not applied yet, e.g. because its request has timed out. The batch
+     * is completed once the command is done. Must run on the mailbox of the game.
+     *
+     * @param gameId The game ID.
+     * @param batch  The batch to cancel.
+     */
+	public void cancelMoveBatch(String gameId, MoveBatch batch) {
+		batch.cancel();
+		if(activeGames.find(gameId) == null) {
+			batch.complete();
 		}
 	}
 	
@@ -143,62 +424,100 @@ public class GameController {
      * @return The full map if available, null otherwise.
      */
 	public ServerFullMap getFullMap(String gameId) { 
-		for(Game eachGame : getActiveGames()) {
-			if(eachGame.getGameId().equals(gameId)) {
-				return eachGame.getFullMap();
-			}
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			return game.getFullMap();
 		}
 		return null;
 	}
 	
 	/**
-     * Sets the player's state to lost in the game with the given ID.
+     * Sets the player's state to lost in the game with the given ID and advances its state version.
      *
      * @param playerId The player ID.
      * @param gameId The game ID.
      */
 	public void setLose(String playerId, String gameId) {
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId)) {
-				eachGame.setLose(playerId);
-			}
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			recordCommand(game, GameCommand.lost(playerId));
+			game.setLose(playerId);
+			game.advanceStateVersion();
+		}
+	}
+	
+	/**
+     * Lets the player who must act lose because a deadline has expired, unless the game has moved on in the meantime.
+     *
+     * @param game       The game whose deadline has expired.
+     * @param turnNumber The turn in which the deadline expired, or -1 if the game duration has expired.
+     * @return The ID of the player who lost, null if nobody lost.
+     */
+	public String expireTurn(Game game, int turnNumber) {
+		String loserId = game.expireTurn(turnNumber);
+		if(loserId != null) {
+			recordCommand(game, GameCommand.turnExpired(loserId));
+			game.advanceStateVersion();
 		}
+		return loserId;
 	}
 	
 	/**
-     * Generates a unique game state ID for the game with the given ID.
+     * Advances the state version of the game with the given ID after a state transition. The version increases by one
+     * with every transition and serves as game state ID.
      *
      * @param gameId The game ID.
-     * @return The generated game state ID.
+     * @return The new state version, or -1 if the game does not exist.
      */
-	public String generateGameStateId(String gameId) {
-		String gameStateId = UUID.randomUUID().toString();
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId)) {
-				eachGame.setGameStateId(gameStateId);
-			}
+	public long advanceStateVersion(String gameId) {
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return -1;
+		}
+		return game.advanceStateVersion();
+	}
+	
+	/**
+     * Records a command which changes the state of the game with the given ID, so that the journal can execute it
+     * again after a restart. Nothing is recorded without a journal, e.g. while the journal replays the commands.
+     * Must run on the mailbox of the game.
+     *
+     * @param gameId  The game ID.
+     * @param command The command.
+     */
+	public void recordCommand(String gameId, GameCommand command) {
+		Game game = activeGames.find(gameId);
+		if(game != null) {
+			recordCommand(game, command);
 		}
-		return gameStateId;
 	}
 	
 	/**
-     * Retrieves the game state ID of the game with the given ID, generating a new one if necessary.
+     * Retrieves the size each half map of the game with the given ID must have.
+     *
+     * @param gameId The game ID.
+     * @return The half map dimensions, or the default dimensions if the game does not exist.
+     */
+	public MapDimensions getHalfMapDimensions(String gameId) {
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return MapDimensions.DEFAULT_HALF_MAP;
+		}
+		return game.getHalfMapDimensions();
+	}
+	
+	/**
+     * Retrieves the game state ID of the game with the given ID, i.e. its state version. Every game starts with version 1.
      *
      * @param gameId The game ID.
      * @return The game state ID.
      */
 	public String getGameStateId(String gameId) {
-		String gameStateID = null;
-		for(Game eachGame : getActiveGames()) {
-			if(eachGame.getGameId().equals(gameId)) {
-				if(eachGame.getGameStateId()==null) {
-					gameStateID = generateGameStateId(gameId);
-				} else {
-					gameStateID = eachGame.getGameStateId();
-				}
-			}
+		Game game = activeGames.find(gameId);
+		if(game == null) {
+			return null;
 		}
-		return gameStateID;
+		return game.getGameStateId();
 	}
 	
 	/**
@@ -210,25 +529,101 @@ public class GameController {
      */
 	public boolean isPlayerTwo(String gameId, String playerId) {
 		boolean isPlayerTwo=false;
-		for(Game eachGame : activeGames) {
-			if(eachGame.getGameId().equals(gameId)) {
-				if(eachGame.getFullMap()!=null) {
-					for(HalfMap halfMap : eachGame.getFullMap().getHalfMaps()) {
-						if(halfMap.getPlayerId().equals(playerId)) {
-							if(halfMap.isPlayerTwo()) {
-								isPlayerTwo=true;
-							}
-						}
-					}
+		Game game = activeGames.find(gameId);
+		if(game != null && game.getFullMap() != null) {
+			for(HalfMap halfMap : game.getFullMap().getHalfMaps()) {
+				if(halfMap.getPlayerId().equals(playerId) && halfMap.isPlayerTwo()) {
+					isPlayerTwo=true;
 				}
 			}
 		}
 		return isPlayerTwo;
 	}
 	
-	// Retrieves the list of active games.
-	public List<Game> getActiveGames() {
-		return activeGames;
+	/**
+     * Registers a listener which is notified whenever an active game is removed.
+     *
+     * @param listener The listener to register.
+     */
+	public void addGameRemovalListener(IGameRemovalListener listener) {
+		activeGames.addRemovalListener(listener);
+	}
+	
+	/**
+     * Evicts the games which were not accessed for too long, live matches which are still accessed are kept.
+     *
+     * @param idleTimeoutMillis       The time after which any game without access is evicted.
+     * @param finishedRetentionMillis The time after which a finished game without access is evicted.
+     * @return The number of evicted games.
+     */
+	public int evictInactiveGames(long idleTimeoutMillis, long finishedRetentionMillis) {
+		return activeGames.evictInactive(System.currentTimeMillis(), idleTimeoutMillis, finishedRetentionMillis);
+	}
+	
+	// Sets the scheduler which enforces the turn and game duration limits of newly created games.
+	public void setTimeoutScheduler(TurnTimeoutScheduler scheduler) {
+		timeoutScheduler = scheduler;
+	}
+	
+	// Sets the journal which records every command of the games, without a journal the games are only kept in memory.
+	public void setJournal(IGameJournal journal) {
+		this.journal = journal;
+	}
+	
+	/**
+     * Registers a game restored from the journal after a restart. The game is not recorded again.
+     *
+     * @param gameId            The game ID.
+     * @param halfMapDimensions The size each half map of the game must have.
+     * @param seed              The seed of the random decisions of the game.
+     * @param randomDraws       The number of random decisions the game had made.
+     * @param stateVersion      The state version of the restored state.
+     * @param players           The players, in the order of their registration.
+     * @param fullMap           The full map, or null if no half map was sent yet.
+     * @param movement          The positions and move progress of the players, or null if nobody has moved yet.
+     * @return True if the game was restored, false if its game ID is already in use.
+     * @throws ServerFullException If the capacity of active games is reached.
+     */
+	public boolean restoreGame(String gameId, MapDimensions halfMapDimensions, long seed, long randomDraws, long stateVersion,
+			List<Player> players, ServerFullMap fullMap, MovementState movement) {
+		Game game = new Game(gameId, halfMapDimensions, seed, commandPool);
+		game.setTimeoutScheduler(timeoutScheduler);
+		if(!activeGames.register(game)) {
+			return false;
+		}
+		game.getMailbox().execute(() -> {
+			game.restore(stateVersion, randomDraws, players, fullMap, movement);
+			return game.publishSnapshot();
+		});
+		return true;
+	}
+	
+	// Sets the maximum number of active games.
+	public void setCapacity(int capacity) {
+		activeGames.setCapacity(capacity);
+	}
+	
+	/**
+     * Sets the times after which games are evicted when a new game does not fit into the capacity anymore.
+     *
+     * @param idleTimeoutMillis       The time after which any game without access is evicted.
+     * @param finishedRetentionMillis The time after which a finished game without access is evicted.
+     * @param minLruIdleMillis        The time the least recently used finished game must have been without access,
+     *                                before it is evicted to make room.
+     */
+	public void setRetention(long idleTimeoutMillis, long finishedRetentionMillis, long minLruIdleMillis) {
+		activeGames.setRetention(idleTimeoutMillis, finishedRetentionMillis, minLruIdleMillis);
+	}
+	
+	// Retrieves a read-only view of the active games.
+	public Collection<Game> getActiveGames() {
+		return activeGames.getGames();
+	}
+	
+	// Stops the command pool when the server shuts down.
+	@PreDestroy
+	public void shutdown() {
+		commandPool.shutdownNow();
 	}
 	
 	/* 
@@ -236,13 +631,137 @@ public class GameController {
 	 */
 	
 	/**
-     * Generates a random string to be used as a game ID.
+     * Publishes a new snapshot of the game and records the commands which led to it, both only if the command has
+     * changed the state version. Commands recorded by a command which failed without changing the state are dropped.
+     *
+     * @param game The game.
+     * @return True if the commands were recorded in the journal, i.e. the caller must wait until they are durable.
+     * @throws JournalUnavailableException If the journal cannot record the commands.
+     */
+	private boolean publishAndRecord(Game game) {
+		IGameJournal currentJournal = journal;
+		List<GameCommand> commands = game.drainRecordedCommands();
+		try {
+			if(game.publishSnapshot() && currentJournal != null) {
+				currentJournal.recordCommands(game, commands);
+				return true;
+			}
+			return false;
+		} finally {
+			// Finished batches are completed only now, so that their players already find the published state.
+			for(MoveBatch finishedBatch : game.removeFinishedMoveBatches()) {
+				finishedBatch.complete();
+			}
+		}
+	}
+	
+	// Records the command on the game if a journal records the commands.
+	private void recordCommand(Game game, GameCommand command) {
+		if(journal != null) {
+			game.recordCommand(command);
+		}
+	}
+	
+	// Completes the future with the result of the command, or with the exception the command threw.
+	private static <T> void completeWith(CompletableFuture<T> future, Supplier<T> command) {
+		try {
+			future.complete(command.get());
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+		}
+	}
+	
+	/**
+     * Applies one move action of the player and advances the state version. A player whose move leaves the map or
+     * leads into water loses the game.
+     *
+     * @param game      The game.
+     * @param playerId  The ID of the moving player.
+     * @param direction The direction of the move.
+     * @throws InvalidMoveException If the move leaves the map or leads into water.
+     * @throws PlayerIdNotFoundException If the player has no half map in the game.
+     */
+	private void applyMove(Game game, String playerId, EMoveDirection direction) {
+		int player = findMovingPlayer(game, playerId);
+		if(player < 0) {
+			throw new PlayerIdNotFoundException("PlayerId: " + playerId + " does not play in game " + game.getGameId() + ".");
+		}
+		recordCommand(game, GameCommand.moved(playerId, direction));
+		try {
+			game.applyMove(player, direction);
+		} catch (InvalidMoveException e) {
+			// The recorded move lets the player lose again when it is replayed, so the loss is not recorded on its own.
+			game.setLose(playerId);
+			game.advanceStateVersion();
+			throw e;
+		}
+		game.advanceStateVersion();
+	}
+	
+	// Retrieves the movement index of the player from the half map they sent, -1 if they have none in the game.
+	private static int findMovingPlayer(Game game, String playerId) {
+		if(game.getFullMap() == null) {
+			return -1;
+		}
+		for(HalfMap halfMap : game.getFullMap().getHalfMaps()) {
+			if(halfMap.getPlayerId().equals(playerId)) {
+				return halfMap.isPlayerTwo() ? MovementState.PLAYER_TWO : MovementState.PLAYER_ONE;
+			}
+		}
+		return -1;
+	}
+	
+	// Applies the next action of the batch of the player who must act, as long as that player has one. If both players
+	// have sent a batch, their actions alternate until one of the batches is used up.
+	private void applyMoveBatches(Game game) {
+		MoveBatch batch;
+		while(!game.isFinished() && (batch = game.getMoveBatch(game.getPlayerIdToAct())) != null && batch.hasNext()) {
+			try {
+				applyMove(game, batch.getPlayerId(), batch.nextDirection());
+				batch.markApplied();
+			} catch (InvalidMoveException e) {
+				batch.fail(e);
+			}
+		}
+	}
+	
+	/**
+     * Creates a new game with a random game ID and the initial state version, and publishes its first snapshot.
+     *
+     * @param halfMapDimensions The size each half map of the new game must have.
+     * @param seed              The seed of the random decisions of the game.
+     * @return The new game.
+     */
+	private Game createGame(MapDimensions halfMapDimensions, long seed) {
+		Game game = new Game(generateGameId(), halfMapDimensions, seed, commandPool);
+		game.setTimeoutScheduler(timeoutScheduler);
+		game.publishSnapshot();
+		return game;
+	}
+	
+	/**
+     * Creates the pool which executes the commands of all games, with one thread per available processor.
+     *
+     * @return The command pool.
+     */
+	private static ExecutorService createCommandPool() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+			Thread thread = new Thread(runnable, "game-commands-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+     * Generates a random string to be used as a game ID. The game ID does not depend on the seed of the game, so
+     * games created with the same seed get different IDs.
      *
      * @return The generated game ID.
      */
 	private String generateGameId() {
 		final int ID_LENGTH = 5;
-		Random random = new Random();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
         String allChars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         StringBuilder gameId = new StringBuilder(5);
         
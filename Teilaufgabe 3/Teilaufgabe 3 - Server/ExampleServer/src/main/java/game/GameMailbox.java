@@ -0,0 +1,126 @@
+package game;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serializes all commands which change the state of one game. Commands are queued in the mailbox of the game and
+ * executed one after another on a pool which is shared by all games, so at most one thread works on a game at any
+ * time while different games are processed in parallel.
+ *
+ * A command may execute a nested command of its own game, which then runs inline instead of waiting for itself. The
+ * pool threads must never wait for anything else, so a command never waits for the mailbox of another game, and
+ * work which blocks or takes long, such as writing to a client, is handed to other threads.
+ */
+public class GameMailbox {
+	private final static Logger logger = LoggerFactory.getLogger(GameMailbox.class);
+	
+	// Limits the number of commands executed in one go, so that a busy game cannot occupy a pool thread for too long.
+	private static final int MAX_COMMANDS_PER_RUN = 64;
+	// The mailbox whose commands the current thread is executing, null on threads outside of the pool.
+	private static final ThreadLocal<GameMailbox> currentMailbox = new ThreadLocal<>();
+	
+	private final Executor commandPool;
+	private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	public GameMailbox(Executor commandPool) {
+		this.commandPool = commandPool;
+	}
+
+	/**
+     * Queues a command without waiting for it.
+     *
+     * @param command The command to execute.
+     */
+	public void submit(Runnable command) {
+		commands.add(command);
+		scheduleIfIdle();
+	}
+
+	/**
+     * Queues a command and waits for its result. Exceptions thrown by the command are rethrown to the caller. If the
+     * caller is a command of this mailbox, the command is executed right away, since the mailbox would otherwise wait
+     * for itself.
+     *
+     * @param command The command to execute.
+     * @return The result of the command.
+     * @throws IllegalStateException If the caller is a command of another game, which must not block its pool thread.
+     */
+	public <T> T execute(Supplier<T> command) {
+		GameMailbox callerMailbox = currentMailbox.get();
+		if (callerMailbox == this) {
+			return command.get();
+		}
+		if (callerMailbox != null) {
+			throw new IllegalStateException("A game command must not wait for the commands of another game.");
+		}
+		
+		CompletableFuture<T> result = new CompletableFuture<>();
+		submit(() -> {
+			try {
+				result.complete(command.get());
+			} catch (RuntimeException | Error e) {
+				result.completeExceptionally(e);
+			}
+		});
+		
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	// Checks if the current thread is executing a command of this mailbox.
+	public boolean isCurrentThread() {
+		return currentMailbox.get() == this;
+	}
+
+	/* 
+	 * From here are the private methods for the GameMailbox class.
+	 */
+	
+	// Hands the mailbox to the pool unless it is already scheduled or running.
+	private void scheduleIfIdle() {
+		if (!commands.isEmpty() && scheduled.compareAndSet(false, true)) {
+			commandPool.execute(this::processCommands);
+		}
+	}
+
+	// Executes the queued commands one after another and reschedules the mailbox if commands are left.
+	private void processCommands() {
+		currentMailbox.set(this);
+		try {
+			for (int numOfCommands = 0; numOfCommands < MAX_COMMANDS_PER_RUN; numOfCommands++) {
+				Runnable command = commands.poll();
+				if (command == null) {
+					break;
+				}
+				try {
+					command.run();
+				} catch (RuntimeException e) {
+					logger.error("A game command failed.", e);
+				}
+			}
+		} finally {
+			currentMailbox.remove();
+			scheduled.set(false);
+			scheduleIfIdle();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package game;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the configured capacity of active games and evicts finished or abandoned games in the background, so that
+ * the server does not need to drop running matches to make room for new ones.
+ */
+@Component
+public class GameReaper {
+	private final static Logger logger = LoggerFactory.getLogger(GameReaper.class);
+	
+	private final GameController gameController;
+	private final ScheduledExecutorService reaperThread;
+	private final long idleTimeoutMillis;
+	private final long finishedRetentionMillis;
+
+	public GameReaper(GameController gameController,
+			@Value("${game.capacity:5000}") int capacity,
+			@Value("${game.idle-timeout-seconds:600}") long idleTimeoutSeconds,
+			@Value("${game.finished-retention-seconds:60}") long finishedRetentionSeconds,
+			@Value("${game.lru-min-idle-seconds:30}") long lruMinIdleSeconds,
+			@Value("${game.reaper-interval-seconds:10}") long reaperIntervalSeconds) {
+		this.gameController = gameController;
+		this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+		this.finishedRetentionMillis = TimeUnit.SECONDS.toMillis(finishedRetentionSeconds);
+		
+		gameController.setCapacity(capacity);
+		gameController.setRetention(idleTimeoutMillis, finishedRetentionMillis, TimeUnit.SECONDS.toMillis(lruMinIdleSeconds));
+		
+		this.reaperThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "game-reaper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reaperThread.scheduleWithFixedDelay(this::evictInactiveGames, reaperIntervalSeconds, reaperIntervalSeconds, TimeUnit.SECONDS);
+		
+		logger.info("Game reaper started with a capacity of " + capacity + " active games.");
+	}
+
+	// Stops the reaper thread when the server shuts down.
+	@PreDestroy
+	public void shutdown() {
+		reaperThread.shutdownNow();
+	}
+
+	/* 
+	 * From here are the private methods for the GameReaper class.
+	 */
+	
+	// Evicts the inactive games, exceptions are caught so that the periodic eviction keeps running.
+	private void evictInactiveGames() {
+		try {
+			int numOfEvicted = gameController.evictInactiveGames(idleTimeoutMillis, finishedRetentionMillis);
+			if (numOfEvicted > 0) {
+				logger.info("Evicted " + numOfEvicted + " inactive games.");
+			}
+		} catch (RuntimeException e) {
+			logger.error("Failed to evict inactive games.", e);
+		}
+	}
+}
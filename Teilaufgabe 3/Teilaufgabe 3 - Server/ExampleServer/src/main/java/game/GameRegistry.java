@@ -0,0 +1,173 @@
+package game;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import server.exceptions.ServerFullException;
+
+/**
+ * Keeps the active games of the server indexed by their game ID. Lookups are a single hash access and the registry
+ * can be read and written by several request threads at the same time. The number of games is limited by a
+ * configurable capacity, games which are finished or no longer accessed can be evicted to make room for new ones.
+ */
+public class GameRegistry {
+	private static final int DEFAULT_CAPACITY = 5000;
+	private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(600);
+	private static final long DEFAULT_FINISHED_RETENTION_MILLIS = TimeUnit.SECONDS.toMillis(60);
+	private static final long DEFAULT_MIN_LRU_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	
+	private final Map<String, Game> games = new ConcurrentHashMap<>();
+	private final Set<IGameRemovalListener> removalListeners = new CopyOnWriteArraySet<>();
+	private volatile int capacity = DEFAULT_CAPACITY;
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private volatile long finishedRetentionMillis = DEFAULT_FINISHED_RETENTION_MILLIS;
+	private volatile long minLruIdleMillis = DEFAULT_MIN_LRU_IDLE_MILLIS;
+
+	/**
+     * Registers a new game under its game ID. If the registry is full, the games which are due with the configured
+     * idle timeout and finished retention are evicted first. If it is still full, the least recently accessed finished
+     * game is evicted before its retention ends, as long as nobody has accessed it for the minimal idle time. Games
+     * which are still being played are only evicted after the idle timeout, a lobby waiting for its second player
+     * included, so a full registry rejects the new game instead.
+     *
+     * @param game The game to register.
+     * @return True if the game was registered, false if its game ID is already in use.
+     * @throws ServerFullException If the registry is still full after the eviction.
+     */
+	public synchronized boolean register(Game game) {
+		if (games.size() >= capacity) {
+			long now = System.currentTimeMillis();
+			if (evictInactive(now, idleTimeoutMillis, finishedRetentionMillis) == 0) {
+				evictLeastRecentlyUsed(now);
+			}
+		}
+		if (games.size() >= capacity) {
+			throw new ServerFullException("The server has reached its capacity of " + capacity + " active games, please try again later.");
+		}
+		return games.putIfAbsent(game.getGameId(), game) == null;
+	}
+
+	/**
+     * Finds the game with the given ID and marks it as accessed.
+     *
+     * @param gameId The game ID.
+     * @return The game if found, null otherwise.
+     */
+	public Game find(String gameId) {
+		if (gameId == null) {
+			return null;
+		}
+		Game game = games.get(gameId);
+		if (game != null) {
+			game.markAccessed();
+		}
+		return game;
+	}
+
+	// Checks if a game with the given ID is registered.
+	public boolean contains(String gameId) {
+		return find(gameId) != null;
+	}
+
+	/**
+     * Evicts all games which were not accessed within the idle timeout, as well as all finished games which were not
+     * accessed within the finished retention time. Games which are still being played and accessed are never evicted.
+     * The removal listeners are notified before a new game can take over the game ID of an evicted one.
+     *
+     * @param now                     The current time in milliseconds.
+     * @param idleTimeoutMillis       The time after which any game without access is evicted.
+     * @param finishedRetentionMillis The time after which a finished game without access is evicted.
+     * @return The number of evicted games.
+     */
+	public synchronized int evictInactive(long now, long idleTimeoutMillis, long finishedRetentionMillis) {
+		int numOfEvicted = 0;
+		for (Game game : games.values()) {
+			long idleTime = now - game.getLastAccessTime();
+			if (idleTime >= idleTimeoutMillis || (game.isFinished() && idleTime >= finishedRetentionMillis)) {
+				if (games.remove(game.getGameId(), game)) {
+					game.markRemoved();
+					notifyRemoval(game);
+					numOfEvicted++;
+				}
+			}
+		}
+		return numOfEvicted;
+	}
+
+	/**
+     * Adds a listener which is notified whenever a game is removed. Adding the same listener again has no effect.
+     *
+     * @param listener The listener to add.
+     */
+	public void addRemovalListener(IGameRemovalListener listener) {
+		removalListeners.add(listener);
+	}
+
+	// Sets the maximum number of games which can be registered at the same time.
+	public void setCapacity(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least 1, but was " + capacity + ".");
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+     * Sets the times after which a game is evicted when the registry is full, like the periodic eviction does.
+     *
+     * @param idleTimeoutMillis       The time after which any game without access is evicted.
+     * @param finishedRetentionMillis The time after which a finished game without access is evicted.
+     * @param minLruIdleMillis        The time a finished game must have been without access, before it is evicted as
+     *                                the least recently used one to make room for a new game.
+     */
+	public void setRetention(long idleTimeoutMillis, long finishedRetentionMillis, long minLruIdleMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.finishedRetentionMillis = finishedRetentionMillis;
+		this.minLruIdleMillis = minLruIdleMillis;
+	}
+
+	// Retrieves the maximum number of games which can be registered at the same time.
+	public int getCapacity() {
+		return capacity;
+	}
+
+	// Retrieves the number of registered games.
+	public int size() {
+		return games.size();
+	}
+
+	// Retrieves a read-only view of the registered games.
+	public Collection<Game> getGames() {
+		return Collections.unmodifiableCollection(games.values());
+	}
+
+	/*
+	 * From here are the private methods for the GameRegistry class.
+	 */
+
+	// Evicts the finished game which was accessed least recently, if it has been idle long enough.
+	private void evictLeastRecentlyUsed(long now) {
+		Game leastRecentlyUsed = null;
+		for (Game game : games.values()) {
+			if (game.isFinished() && (leastRecentlyUsed == null || game.getLastAccessTime() < leastRecentlyUsed.getLastAccessTime())) {
+				leastRecentlyUsed = game;
+			}
+		}
+		if (leastRecentlyUsed != null && now - leastRecentlyUsed.getLastAccessTime() >= minLruIdleMillis
+				&& games.remove(leastRecentlyUsed.getGameId(), leastRecentlyUsed)) {
+			leastRecentlyUsed.markRemoved();
+			notifyRemoval(leastRecentlyUsed);
+		}
+	}
+
+	// Informs all removal listeners about the removed game.
+	private void notifyRemoval(Game removedGame) {
+		for (IGameRemovalListener listener : removalListeners) {
+			listener.onGameRemoved(removedGame);
+		}
+	}
+}
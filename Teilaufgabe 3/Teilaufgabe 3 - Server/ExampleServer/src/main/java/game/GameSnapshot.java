@@ -0,0 +1,130 @@
+package game;
+
+import java.util.Collections;
+import java.util.List;
+
+import map.PackedBoard;
+import player.PlayerSnapshot;
+
+/**
+ * An immutable view of a game after a state transition. A new snapshot is published after every command of the game,
+ * so readers always see a consistent state without waiting for the commands which are currently running.
+ *
+ * The full map is a copy owned by the snapshot and must not be modified.
+ *
+ * The game state ID is the state version of the game, which increases with every state transition. The snapshot also
+ * keeps the most recent changes, so that a player who knows an earlier version can be sent only what has changed.
+ */
+public final class GameSnapshot {
+	private final String gameId;
+	private final long version;
+	private final String gameStateId;
+	private final List<PlayerSnapshot> players;
+	private final PackedBoard fullMap;
+	private final String playerTwoId;
+	private final List<StateChange> recentChanges;
+	private final long randomSeed;
+
+	/**
+     * Constructs a snapshot.
+     *
+     * @param gameId        The game ID.
+     * @param version       The state version at the time of the snapshot.
+     * @param players       The snapshots of the players, in the order of their registration.
+     * @param fullMap       A copy of the complete full map, or null if the full map is not complete yet.
+     * @param playerTwoId   The ID of the player who sent the second half map, or null if not known yet.
+     * @param recentChanges The changes which led to the most recent versions, oldest first and ending with this version.
+     * @param randomSeed    The seed of the random decisions made when the snapshot is sent to the players.
+     */
+	public GameSnapshot(String gameId, long version, List<PlayerSnapshot> players, PackedBoard fullMap, String playerTwoId,
+			List<StateChange> recentChanges, long randomSeed) {
+		this.gameId = gameId;
+		this.version = version;
+		this.gameStateId = String.valueOf(version);
+		this.players = Collections.unmodifiableList(players);
+		this.fullMap = fullMap;
+		this.playerTwoId = playerTwoId;
+		this.recentChanges = Collections.unmodifiableList(recentChanges);
+		this.randomSeed = randomSeed;
+	}
+
+	// Retrieves the game ID.
+	public String getGameId() {
+		return gameId;
+	}
+
+	// Retrieves the state version.
+	public long getVersion() {
+		return version;
+	}
+
+	// Retrieves the game state ID, which is the state version in text form.
+	public String getGameStateId() {
+		return gameStateId;
+	}
+
+	// Retrieves the seed of the random decisions made when the snapshot is sent, e.g. where the enemy is shown.
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+
+	// Retrieves the changes which led to the most recent versions, oldest first.
+	public List<StateChange> getRecentChanges() {
+		return recentChanges;
+	}
+
+	/**
+     * Combines the changes made since the given version into one change. This is only possible if the version is
+     * recent enough and the full map has not been completed since then.
+     *
+     * @param sinceVersion The version the caller already knows.
+     * @return The combined change, or null if the changes since the version are not known.
+     */
+	public StateChange getChangesSince(long sinceVersion) {
+		if (sinceVersion == version) {
+			return StateChange.none(version);
+		}
+		if (sinceVersion > version || recentChanges.isEmpty() || recentChanges.get(0).getVersion() > sinceVersion + 1) {
+			return null;
+		}
+		
+		StateChange combined = null;
+		for (StateChange change : recentChanges) {
+			if (change.getVersion() > sinceVersion) {
+				combined = combined == null ? change : combined.followedBy(change);
+			}
+		}
+		return combined.isMapReplaced() ? null : combined;
+	}
+
+	// Retrieves the snapshots of the players, in the order of their registration.
+	public List<PlayerSnapshot> getPlayers() {
+		return players;
+	}
+
+	// Checks if the full map is complete and therefore part of the snapshot.
+	public boolean isMapComplete() {
+		return fullMap != null;
+	}
+
+	// Retrieves the full map, null if it is not complete yet.
+	public PackedBoard getFullMap() {
+		return fullMap;
+	}
+
+	// Checks if the snapshot contains the given player in the same state, i.e. the player has not changed since.
+	public boolean hasSamePlayerState(PlayerSnapshot player) {
+		for (PlayerSnapshot eachPlayer : players) {
+			if (eachPlayer.getPlayerId().equals(player.getPlayerId())) {
+				return eachPlayer.getPlayerGameState() == player.getPlayerGameState()
+						&& eachPlayer.isCollectedTreasure() == player.isCollectedTreasure();
+			}
+		}
+		return false;
+	}
+
+	// Checks if the player with the given ID sent the second half map.
+	public boolean isPlayerTwo(String playerId) {
+		return playerTwoId != null && playerTwoId.equals(playerId);
+	}
+}
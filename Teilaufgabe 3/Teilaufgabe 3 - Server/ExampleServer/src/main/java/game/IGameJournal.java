@@ -0,0 +1,27 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import server.exceptions.JournalUnavailableException;
+
+/**
+ * Records the commands of the games durably, so that the active games survive a restart of the server.
+ */
+public interface IGameJournal {
+	/**
+     * Records the commands which led to the current state version of the game. Called on the mailbox of the game
+     * after every change of its state version.
+     *
+     * @param game     The game.
+     * @param commands The commands since the previous state version, in the order they were executed.
+     * @throws JournalUnavailableException If the journal can no longer be written.
+     */
+	void recordCommands(Game game, List<GameCommand> commands);
+
+	// Waits until every command recorded so far is durable, throws a JournalUnavailableException if it cannot become durable.
+	void awaitDurable();
+
+	// Completes once every command recorded so far is durable, or with a JournalUnavailableException if it cannot become durable.
+	CompletableFuture<Void> whenDurable();
+}
@@ -0,0 +1,9 @@
+package game;
+
+/**
+ * Gets notified when a game is removed from the active games, so that state kept outside of the game record can be
+ * released together with it.
+ */
+public interface IGameRemovalListener {
+	void onGameRemoved(Game game);
+}
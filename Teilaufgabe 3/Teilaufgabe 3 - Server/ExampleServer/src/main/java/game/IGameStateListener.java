@@ -0,0 +1,10 @@
+package game;
+
+/**
+ * Gets notified once when the game state ID of a game changes, used by requests which wait for the next game state.
+ * The listener is called on the mailbox of the game, so it must return quickly and hand the response, e.g. its
+ * marshalling, to another thread.
+ */
+public interface IGameStateListener {
+	void onGameStateChanged(GameSnapshot snapshot);
+}
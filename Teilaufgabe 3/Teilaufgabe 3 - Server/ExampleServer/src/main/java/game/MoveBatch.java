@@ -0,0 +1,84 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import map.EMoveDirection;
+import server.exceptions.GenericExampleException;
+
+/**
+ * A sequence of move actions one player has sent at once. The first action is applied right away, each following one
+ * as soon as the turn returns to the player, so the actions are applied in the player's consecutive turns without
+ * another request in between. Only the mailbox of the game changes a batch.
+ *
+ * The batch is finished once all actions are applied, the game has ended or the batch was cancelled. Its completion is
+ * signalled after the snapshot with the last applied action is published, so the player already finds that state.
+ */
+public final class MoveBatch {
+	private final String playerId;
+	private final List<EMoveDirection> directions;
+	private final CompletableFuture<MoveBatch> completion = new CompletableFuture<>();
+	private int numOfApplied;
+	private boolean cancelled;
+	private GenericExampleException failure;
+
+	public MoveBatch(String playerId, List<EMoveDirection> directions) {
+		this.playerId = playerId;
+		this.directions = new ArrayList<>(directions);
+	}
+
+	// Retrieves the ID of the player who sent the batch.
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	// Retrieves the number of move actions in the batch.
+	public int getNumOfMoves() {
+		return directions.size();
+	}
+
+	// Retrieves the number of move actions applied so far.
+	public int getNumOfApplied() {
+		return numOfApplied;
+	}
+
+	// Retrieves the future which is completed with the batch once it is finished, or with the failure of an action.
+	public CompletableFuture<MoveBatch> getCompletion() {
+		return completion;
+	}
+
+	// Checks if there is an action left which has not been applied yet.
+	boolean hasNext() {
+		return !cancelled && failure == null && numOfApplied < directions.size();
+	}
+
+	// Retrieves the direction of the next action.
+	EMoveDirection nextDirection() {
+		return directions.get(numOfApplied);
+	}
+
+	// Counts the next action as applied.
+	void markApplied() {
+		numOfApplied++;
+	}
+
+	// Records that the next action was rejected, the batch ends with this failure.
+	void fail(GenericExampleException exception) {
+		this.failure = exception;
+	}
+
+	// Stops the batch, the actions which are left are not applied anymore.
+	void cancel() {
+		this.cancelled = true;
+	}
+
+	// Signals that the batch is finished. Called after the snapshot with the last applied action is published.
+	void complete() {
+		if (failure != null) {
+			completion.completeExceptionally(failure);
+		} else {
+			completion.complete(this);
+		}
+	}
+}
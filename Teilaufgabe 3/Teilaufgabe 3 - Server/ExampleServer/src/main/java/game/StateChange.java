@@ -0,0 +1,124 @@
+package game;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import map.EMapNodeAttribute;
+
+/**
+ * What changed in a game up to a state version: the players whose state changed and, for each attribute, the fields
+ * of the full map where it was added or removed, e.g. because a player moved or a treasure or fort was revealed. The
+ * fields are kept per attribute, so that each player is only told about the attributes they can see. A change which
+ * completes the full map cannot be described field by field, so it is marked as replacing the whole map instead.
+ */
+public final class StateChange {
+	private static final int[] NO_FIELDS = new int[0];
+
+	private final long version;
+	private final Map<EMapNodeAttribute, int[]> changedFields;
+	private final Set<String> changedPlayerIds;
+	private final boolean mapReplaced;
+
+	/**
+     * Constructs a change.
+     *
+     * @param version          The state version the change leads to.
+     * @param changedFields    The indices of the changed fields in ascending order, per attribute.
+     * @param changedPlayerIds The IDs of the players whose state changed.
+     * @param mapReplaced      True if the full map was completed, so that all of its fields are new.
+     */
+	public StateChange(long version, Map<EMapNodeAttribute, int[]> changedFields, Set<String> changedPlayerIds, boolean mapReplaced) {
+		this.version = version;
+		this.changedFields = Collections.unmodifiableMap(changedFields);
+		this.changedPlayerIds = Collections.unmodifiableSet(changedPlayerIds);
+		this.mapReplaced = mapReplaced;
+	}
+
+	// Creates a change which changes nothing, e.g. for a player who already knows the current version.
+	public static StateChange none(long version) {
+		return new StateChange(version, new EnumMap<>(EMapNodeAttribute.class), Collections.emptySet(), false);
+	}
+
+	// Retrieves the state version the change leads to.
+	public long getVersion() {
+		return version;
+	}
+
+	// Retrieves the IDs of the players whose state changed.
+	public Set<String> getChangedPlayerIds() {
+		return changedPlayerIds;
+	}
+
+	// Checks if the full map was completed, so that all of its fields are new.
+	public boolean isMapReplaced() {
+		return mapReplaced;
+	}
+
+	/**
+     * Retrieves the fields where any of the given attributes changed.
+     *
+     * @param attributes The attributes to consider.
+     * @return The indices of the changed fields in ascending order, without duplicates.
+     */
+	public int[] getChangedFields(Collection<EMapNodeAttribute> attributes) {
+		int[] fields = NO_FIELDS;
+		for (EMapNodeAttribute attribute : attributes) {
+			fields = mergeFields(fields, changedFields.getOrDefault(attribute, NO_FIELDS));
+		}
+		return fields;
+	}
+
+	/**
+     * Combines this change with the following one into a single change which leads to the version of the later one.
+     *
+     * @param later The change which follows this one.
+     * @return The combined change.
+     */
+	public StateChange followedBy(StateChange later) {
+		Map<EMapNodeAttribute, int[]> fields = new EnumMap<>(EMapNodeAttribute.class);
+		for (EMapNodeAttribute attribute : EMapNodeAttribute.values()) {
+			int[] merged = mergeFields(changedFields.getOrDefault(attribute, NO_FIELDS), later.changedFields.getOrDefault(attribute, NO_FIELDS));
+			if (merged.length > 0) {
+				fields.put(attribute, merged);
+			}
+		}
+		Set<String> players = new HashSet<>(changedPlayerIds);
+		players.addAll(later.changedPlayerIds);
+		return new StateChange(later.version, fields, players, mapReplaced || later.mapReplaced);
+	}
+
+	/*
+	 * From here are the private methods for the StateChange class.
+	 */
+
+	// Merges two ascending arrays of field indices into one without duplicates.
+	private static int[] mergeFields(int[] first, int[] second) {
+		if (first.length == 0) {
+			return second;
+		}
+		if (second.length == 0) {
+			return first;
+		}
+		int[] merged = new int[first.length + second.length];
+		int size = 0;
+		int firstIndex = 0;
+		int secondIndex = 0;
+		while (firstIndex < first.length || secondIndex < second.length) {
+			int next;
+			if (secondIndex == second.length || (firstIndex < first.length && first[firstIndex] <= second[secondIndex])) {
+				next = first[firstIndex++];
+			} else {
+				next = second[secondIndex++];
+			}
+			if (size == 0 || merged[size - 1] != next) {
+				merged[size++] = next;
+			}
+		}
+		return Arrays.copyOf(merged, size);
+	}
+}
@@ -0,0 +1,83 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import scheduler.HashedWheelTimer;
+import scheduler.TimerHandle;
+
+/**
+ * Enforces how long a player may take for one turn and how long a whole game may last. All deadlines share a single
+ * hashed timer wheel, so a large number of running games does not need a thread per game. When a deadline expires,
+ * the player who must act at that time loses the game.
+ */
+@Component
+public class TurnTimeoutScheduler {
+	private final static Logger logger = LoggerFactory.getLogger(TurnTimeoutScheduler.class);
+	private static final int TICKS_PER_WHEEL = 512;
+	
+	private final GameController gameController;
+	private final HashedWheelTimer timer;
+	private final long turnTimeoutMillis;
+	private final long maxGameDurationMillis;
+
+	public TurnTimeoutScheduler(GameController gameController,
+			@Value("${game.turn-timeout-seconds:5}") long turnTimeoutSeconds,
+			@Value("${game.max-duration-seconds:600}") long maxGameDurationSeconds,
+			@Value("${game.timer-tick-millis:100}") long tickMillis) {
+		this.gameController = gameController;
+		this.turnTimeoutMillis = TimeUnit.SECONDS.toMillis(turnTimeoutSeconds);
+		this.maxGameDurationMillis = TimeUnit.SECONDS.toMillis(maxGameDurationSeconds);
+		this.timer = new HashedWheelTimer("turn-timeouts", tickMillis, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+		
+		gameController.setTimeoutScheduler(this);
+	}
+
+	/**
+     * Arms the deadline of the given turn, the player who must act loses if the turn has not ended until then.
+     *
+     * @param game       The game.
+     * @param turnNumber The number of the turn which has just started.
+     * @return The handle of the deadline, used to cancel it once the turn ends.
+     */
+	public TimerHandle armTurn(Game game, int turnNumber) {
+		return timer.schedule(() -> expire(game, turnNumber), turnTimeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+     * Arms the deadline of the whole game, the player who must act at that time loses.
+     *
+     * @param game The game which has just started.
+     * @return The handle of the deadline, used to cancel it once the game is finished.
+     */
+	public TimerHandle armGameDuration(Game game) {
+		return timer.schedule(() -> expire(game, -1), maxGameDurationMillis, TimeUnit.MILLISECONDS);
+	}
+
+	// Stops the timer when the server shuts down.
+	@PreDestroy
+	public void shutdown() {
+		timer.stop();
+	}
+	
+	/* 
+	 * From here are the private methods for the TurnTimeoutScheduler class.
+	 */
+	
+	// Lets the player who must act lose, if the game is still in the expired turn. The expiry runs on the mailbox
+	// of the game like any other command, so the timer thread is never blocked by it.
+	private void expire(Game game, int turnNumber) {
+		gameController.submitCommand(game, () -> {
+			String loserId = gameController.expireTurn(game, turnNumber);
+			if (loserId != null) {
+				logger.info("Player with id: " + loserId + " under game: " + game.getGameId() + " has exceeded the time limit and lost.");
+			}
+		});
+	}
+}
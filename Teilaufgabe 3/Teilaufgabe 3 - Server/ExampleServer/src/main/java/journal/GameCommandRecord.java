@@ -0,0 +1,188 @@
+package journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import game.EGameCommand;
+import game.Game;
+import game.GameCommand;
+import map.EMoveDirection;
+import map.MapDimensions;
+import map.PackedBoard;
+import player.Player;
+
+/**
+ * The commands which led a game to one state version, as they are appended to the journal after the command on the
+ * mailbox of the game. A record only holds the input of its commands, e.g. a direction instead of the changed map, so
+ * it stays small however large the map is. Recovery executes the commands again on the state before them, which
+ * leads to the recorded state version, because every random decision of the game is drawn from its seed.
+ */
+public final class GameCommandRecord {
+	private static final EGameCommand[] COMMAND_TYPES = EGameCommand.values();
+	private static final EMoveDirection[] DIRECTIONS = EMoveDirection.values();
+
+	private final String gameId;
+	private final long stateVersion;
+	private final List<GameCommand> commands;
+
+	private GameCommandRecord(String gameId, long stateVersion, List<GameCommand> commands) {
+		this.gameId = gameId;
+		this.stateVersion = stateVersion;
+		this.commands = Collections.unmodifiableList(commands);
+	}
+
+	/**
+     * Encodes the commands which led the game to its current state version. Must run on the mailbox of the game.
+     *
+     * @param game     The game.
+     * @param commands The commands since the previous state version, in the order they were executed.
+     * @return The encoded record.
+     */
+	public static byte[] encode(Game game, List<GameCommand> commands) {
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+			DataOutputStream output = new DataOutputStream(buffer);
+			output.writeUTF(game.getGameId());
+			output.writeLong(game.getStateVersion());
+			output.writeInt(commands.size());
+			for (GameCommand eachCommand : commands) {
+				writeCommand(output, eachCommand);
+			}
+			output.flush();
+			return buffer.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException("The commands of game " + game.getGameId() + " could not be encoded.", e);
+		}
+	}
+
+	/**
+     * Decodes a record written by {@link #encode(Game, List)}.
+     *
+     * @param input The input to read from.
+     * @return The record.
+     * @throws IOException If reading fails or the data is not a record of commands.
+     */
+	public static GameCommandRecord decode(DataInput input) throws IOException {
+		String gameId = input.readUTF();
+		long stateVersion = input.readLong();
+		int numOfCommands = input.readInt();
+		if (numOfCommands < 0) {
+			throw new IOException("The commands of game " + gameId + " have a negative count.");
+		}
+		List<GameCommand> commands = new ArrayList<>(Math.min(numOfCommands, 16));
+		for (int index = 0; index < numOfCommands; index++) {
+			commands.add(readCommand(input, gameId));
+		}
+		return new GameCommandRecord(gameId, stateVersion, commands);
+	}
+
+	// Retrieves the game ID.
+	public String getGameId() {
+		return gameId;
+	}
+
+	// Retrieves the state version the commands led to.
+	public long getStateVersion() {
+		return stateVersion;
+	}
+
+	// Retrieves the commands, in the order they were executed.
+	public List<GameCommand> getCommands() {
+		return commands;
+	}
+
+	// Checks if the record holds the creation of its game, which is always recorded on its own.
+	public boolean isCreation() {
+		return commands.size() == 1 && commands.get(0).getType() == EGameCommand.Created;
+	}
+
+	/*
+	 * From here are the private methods for the GameCommandRecord class.
+	 */
+
+	// Writes the type of the command followed by its input.
+	private static void writeCommand(DataOutput output, GameCommand command) throws IOException {
+		output.writeByte(command.getType().ordinal());
+		switch (command.getType()) {
+		case Created:
+			output.writeInt(command.getHalfMapDimensions().getWidth());
+			output.writeInt(command.getHalfMapDimensions().getHeight());
+			output.writeLong(command.getSeed());
+			break;
+		case PlayerAdded:
+			Player player = command.getPlayer();
+			output.writeUTF(player.getPlayerId());
+			output.writeUTF(player.getMaskedPlayerId());
+			writeNullable(output, player.getFirstName());
+			writeNullable(output, player.getLastName());
+			writeNullable(output, player.getUAccount());
+			break;
+		case HalfMapAdded:
+			output.writeUTF(command.getPlayerId());
+			command.getHalfMap().writeTo(output);
+			break;
+		case Moved:
+			output.writeUTF(command.getPlayerId());
+			output.writeByte(command.getDirection().ordinal());
+			break;
+		default:
+			output.writeUTF(command.getPlayerId());
+			break;
+		}
+	}
+
+	// Reads a command written by writeCommand.
+	private static GameCommand readCommand(DataInput input, String gameId) throws IOException {
+		int type = input.readUnsignedByte();
+		if (type >= COMMAND_TYPES.length) {
+			throw new IOException("The commands of game " + gameId + " contain the unknown type " + type + ".");
+		}
+		switch (COMMAND_TYPES[type]) {
+		case Created:
+			int width = input.readInt();
+			int height = input.readInt();
+			if (width < MapDimensions.MIN_SIDE || height < MapDimensions.MIN_SIDE) {
+				throw new IOException("Game " + gameId + " was created with the invalid half map size " + width + "x" + height + ".");
+			}
+			return GameCommand.created(new MapDimensions(width, height), input.readLong());
+		case PlayerAdded:
+			String playerId = input.readUTF();
+			String maskedPlayerId = input.readUTF();
+			List<String> playerInfo = Arrays.asList(readNullable(input), readNullable(input), readNullable(input));
+			return GameCommand.playerAdded(new Player(gameId, playerId, maskedPlayerId, playerInfo));
+		case HalfMapAdded:
+			return GameCommand.halfMapAdded(input.readUTF(), PackedBoard.readFrom(input));
+		case Moved:
+			String movingPlayerId = input.readUTF();
+			int direction = input.readUnsignedByte();
+			if (direction >= DIRECTIONS.length) {
+				throw new IOException("A move of game " + gameId + " has the unknown direction " + direction + ".");
+			}
+			return GameCommand.moved(movingPlayerId, DIRECTIONS[direction]);
+		case Lost:
+			return GameCommand.lost(input.readUTF());
+		default:
+			return GameCommand.turnExpired(input.readUTF());
+		}
+	}
+
+	// Writes a text which may be null.
+	private static void writeNullable(DataOutput output, String text) throws IOException {
+		output.writeBoolean(text != null);
+		if (text != null) {
+			output.writeUTF(text);
+		}
+	}
+
+	// Reads a text written by writeNullable.
+	private static String readNullable(DataInput input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+}
@@ -0,0 +1,291 @@
+package journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import game.Game;
+import map.HalfMap;
+import map.MapDimensions;
+import map.MovementState;
+import map.PackedBoard;
+import map.ServerFullMap;
+import player.EServerPlayerGameState;
+import player.Player;
+
+/**
+ * The complete state of one game at one state version, as it is written to the snapshots. An image is captured on
+ * the mailbox of the game, so it is consistent, and restoring it recreates the game and its players.
+ *
+ * Between two snapshots the journal only records the commands of the game, which recovery executes again on the
+ * restored image. The image includes the seed of the game and the number of random decisions made so far, so the
+ * replayed commands and the recovered game continue with the same decisions they made without the restart.
+ */
+public final class GameImage {
+	private static final EServerPlayerGameState[] PLAYER_STATES = EServerPlayerGameState.values();
+
+	private final String gameId;
+	private final MapDimensions halfMapDimensions;
+	private final long seed;
+	private final long randomDraws;
+	private final long stateVersion;
+	private final List<PlayerImage> players;
+	private final List<HalfMapImage> halfMaps;
+	private final boolean hasFullMap;
+	private final PackedBoard fullMap;
+	private final int[] moveDirections;
+	private final int[] moveProgress;
+
+	private GameImage(String gameId, MapDimensions halfMapDimensions, long seed, long randomDraws, long stateVersion,
+			List<PlayerImage> players, List<HalfMapImage> halfMaps, boolean hasFullMap, PackedBoard fullMap,
+			int[] moveDirections, int[] moveProgress) {
+		this.gameId = gameId;
+		this.halfMapDimensions = halfMapDimensions;
+		this.seed = seed;
+		this.randomDraws = randomDraws;
+		this.stateVersion = stateVersion;
+		this.players = players;
+		this.halfMaps = halfMaps;
+		this.hasFullMap = hasFullMap;
+		this.fullMap = fullMap;
+		this.moveDirections = moveDirections;
+		this.moveProgress = moveProgress;
+	}
+
+	/**
+     * Encodes the current state of the game. Must run on the mailbox of the game, so that no command changes the
+     * state while it is encoded.
+     *
+     * @param game The game.
+     * @return The encoded image.
+     */
+	public static byte[] encode(Game game) {
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+			DataOutputStream output = new DataOutputStream(buffer);
+			output.writeUTF(game.getGameId());
+			output.writeInt(game.getHalfMapDimensions().getWidth());
+			output.writeInt(game.getHalfMapDimensions().getHeight());
+			output.writeLong(game.getSeed());
+			output.writeLong(game.getRandomDraws());
+			output.writeLong(game.getStateVersion());
+
+			List<Player> gamePlayers = game.getPlayers();
+			output.writeInt(gamePlayers.size());
+			for (Player eachPlayer : gamePlayers) {
+				output.writeUTF(eachPlayer.getPlayerId());
+				output.writeUTF(eachPlayer.getMaskedPlayerId());
+				writeNullable(output, eachPlayer.getFirstName());
+				writeNullable(output, eachPlayer.getLastName());
+				writeNullable(output, eachPlayer.getUAccount());
+				output.writeByte(eachPlayer.getPlayerGameState().ordinal());
+				output.writeBoolean(eachPlayer.isCollectedTreasure());
+			}
+
+			ServerFullMap gameFullMap = game.getFullMap();
+			output.writeBoolean(gameFullMap != null);
+			if (gameFullMap != null) {
+				List<HalfMap> gameHalfMaps = gameFullMap.getHalfMaps();
+				output.writeInt(gameHalfMaps.size());
+				for (HalfMap eachHalfMap : gameHalfMaps) {
+					output.writeUTF(eachHalfMap.getPlayerId());
+					output.writeBoolean(eachHalfMap.isPlayerTwo());
+					eachHalfMap.getHalfMap().writeTo(output);
+				}
+				output.writeBoolean(gameFullMap.isComplete());
+				if (gameFullMap.isComplete()) {
+					gameFullMap.getFullMap().writeTo(output);
+				}
+			}
+
+			// The positions are part of the full map, only the progress towards the next field is written.
+			MovementState movement = game.getMovement();
+			output.writeBoolean(movement != null);
+			if (movement != null) {
+				for (int player = MovementState.PLAYER_ONE; player <= MovementState.PLAYER_TWO; player++) {
+					output.writeByte(movement.getDirectionOrdinal(player));
+					output.writeInt(movement.getProgress(player));
+				}
+			}
+			output.flush();
+			return buffer.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException("The image of game " + game.getGameId() + " could not be encoded.", e);
+		}
+	}
+
+	/**
+     * Decodes an image written by {@link #encode(Game)}.
+     *
+     * @param input The input to read from.
+     * @return The image.
+     * @throws IOException If reading fails or the data is not an image.
+     */
+	public static GameImage decode(DataInput input) throws IOException {
+		String gameId = input.readUTF();
+		int width = input.readInt();
+		int height = input.readInt();
+		if (width < MapDimensions.MIN_SIDE || height < MapDimensions.MIN_SIDE) {
+			throw new IOException("The image of game " + gameId + " has the invalid half map size " + width + "x" + height + ".");
+		}
+		long seed = input.readLong();
+		long randomDraws = input.readLong();
+		long stateVersion = input.readLong();
+
+		int numOfPlayers = input.readInt();
+		List<PlayerImage> players = new ArrayList<>();
+		for (int index = 0; index < numOfPlayers; index++) {
+			String playerId = input.readUTF();
+			String maskedPlayerId = input.readUTF();
+			List<String> playerInfo = Arrays.asList(readNullable(input), readNullable(input), readNullable(input));
+			int state = input.readUnsignedByte();
+			if (state >= PLAYER_STATES.length) {
+				throw new IOException("The image of game " + gameId + " has an unknown player state.");
+			}
+			players.add(new PlayerImage(playerId, maskedPlayerId, playerInfo, PLAYER_STATES[state], input.readBoolean()));
+		}
+
+		List<HalfMapImage> halfMaps = new ArrayList<>();
+		boolean hasFullMap = input.readBoolean();
+		PackedBoard fullMap = null;
+		if (hasFullMap) {
+			int numOfHalfMaps = input.readInt();
+			for (int index = 0; index < numOfHalfMaps; index++) {
+				String playerId = input.readUTF();
+				boolean isPlayerTwo = input.readBoolean();
+				halfMaps.add(new HalfMapImage(playerId, isPlayerTwo, PackedBoard.readFrom(input)));
+			}
+			if (input.readBoolean()) {
+				fullMap = PackedBoard.readFrom(input);
+			}
+		}
+
+		int[] moveDirections = null;
+		int[] moveProgress = null;
+		if (input.readBoolean()) {
+			if (fullMap == null) {
+				throw new IOException("The image of game " + gameId + " has move progress without a complete full map.");
+			}
+			moveDirections = new int[2];
+			moveProgress = new int[2];
+			for (int player = MovementState.PLAYER_ONE; player <= MovementState.PLAYER_TWO; player++) {
+				moveDirections[player] = input.readByte();
+				moveProgress[player] = input.readInt();
+			}
+		}
+		return new GameImage(gameId, new MapDimensions(width, height), seed, randomDraws, stateVersion, players, halfMaps,
+				hasFullMap, fullMap, moveDirections, moveProgress);
+	}
+
+	// Retrieves the game ID.
+	public String getGameId() {
+		return gameId;
+	}
+
+	// Retrieves the state version of the image.
+	public long getStateVersion() {
+		return stateVersion;
+	}
+
+	// Retrieves the seed of the random decisions of the game.
+	public long getSeed() {
+		return seed;
+	}
+
+	// Retrieves the number of random decisions the game had made.
+	public long getRandomDraws() {
+		return randomDraws;
+	}
+
+	// Retrieves the size each half map of the game must have.
+	public MapDimensions getHalfMapDimensions() {
+		return halfMapDimensions;
+	}
+
+	// Creates the players of the image, in the order of their registration.
+	public List<Player> createPlayers() {
+		List<Player> restoredPlayers = new ArrayList<>(players.size());
+		for (PlayerImage eachPlayer : players) {
+			Player player = new Player(gameId, eachPlayer.playerId, eachPlayer.maskedPlayerId, eachPlayer.playerInfo);
+			player.setPlayerGameState(eachPlayer.playerGameState);
+			player.setCollectedTreasure(eachPlayer.collectedTreasure);
+			restoredPlayers.add(player);
+		}
+		return restoredPlayers;
+	}
+
+	// Creates the full map of the image, null if no half map was sent yet.
+	public ServerFullMap createFullMap() {
+		if (!hasFullMap) {
+			return null;
+		}
+		List<HalfMap> restoredHalfMaps = new ArrayList<>(halfMaps.size());
+		for (HalfMapImage eachHalfMap : halfMaps) {
+			HalfMap halfMap = new HalfMap(eachHalfMap.board, eachHalfMap.playerId, gameId);
+			halfMap.setPlayerTwo(eachHalfMap.isPlayerTwo);
+			restoredHalfMaps.add(halfMap);
+		}
+		return new ServerFullMap(restoredHalfMaps, fullMap, gameId);
+	}
+
+	// Creates the movement state of the image from the full map created by createFullMap, null if it is not complete.
+	public MovementState createMovement(ServerFullMap restoredFullMap) {
+		if (moveDirections == null) {
+			return null;
+		}
+		return MovementState.restore(restoredFullMap.getFullMap(), moveDirections, moveProgress);
+	}
+
+	/*
+	 * From here are the private methods for the GameImage class.
+	 */
+
+	// Writes a text which may be null.
+	private static void writeNullable(DataOutput output, String text) throws IOException {
+		output.writeBoolean(text != null);
+		if (text != null) {
+			output.writeUTF(text);
+		}
+	}
+
+	// Reads a text written by writeNullable.
+	private static String readNullable(DataInput input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+
+	// The state of one player within an image.
+	private static class PlayerImage {
+		private final String playerId;
+		private final String maskedPlayerId;
+		private final List<String> playerInfo;
+		private final EServerPlayerGameState playerGameState;
+		private final boolean collectedTreasure;
+
+		private PlayerImage(String playerId, String maskedPlayerId, List<String> playerInfo,
+				EServerPlayerGameState playerGameState, boolean collectedTreasure) {
+			this.playerId = playerId;
+			this.maskedPlayerId = maskedPlayerId;
+			this.playerInfo = playerInfo;
+			this.playerGameState = playerGameState;
+			this.collectedTreasure = collectedTreasure;
+		}
+	}
+
+	// One half map within an image.
+	private static class HalfMapImage {
+		private final String playerId;
+		private final boolean isPlayerTwo;
+		private final PackedBoard board;
+
+		private HalfMapImage(String playerId, boolean isPlayerTwo, PackedBoard board) {
+			this.playerId = playerId;
+			this.isPlayerTwo = isPlayerTwo;
+			this.board = board;
+		}
+	}
+}
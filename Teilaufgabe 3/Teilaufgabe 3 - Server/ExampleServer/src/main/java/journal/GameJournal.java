@@ -0,0 +1,442 @@
+package journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import game.Game;
+import game.GameCommand;
+import game.GameController;
+import game.IGameJournal;
+import game.IGameRemovalListener;
+import map.MapController;
+import map.ServerFullMap;
+import player.Player;
+import player.PlayerController;
+import server.exceptions.InvalidMoveException;
+import server.exceptions.JournalUnavailableException;
+import server.exceptions.ServerFullException;
+
+/**
+ * Keeps the active games across restarts with a write-ahead journal. After every state transition the commands which
+ * led to it are appended to the journal, and the response is only sent once they are forced to the disk. A command
+ * only takes a few bytes, e.g. the direction of a move, however large the map is. The journal consists of segment
+ * files, and a snapshot with the image of every active game is written periodically, so that the segments before it
+ * can be deleted and recovery only replays the commands that came after the latest snapshot.
+ *
+ * On startup the latest snapshot is loaded, the commands of the following segments are executed again on the games
+ * restored from it, and the recovered games and their players are registered again before the server accepts
+ * requests. The commands lead to the same states as before the restart, since every random decision of a game is
+ * drawn from its seed.
+ */
+@Component
+@DependsOn({ "turnTimeoutScheduler", "gameReaper" })
+public class GameJournal implements IGameJournal, IGameRemovalListener {
+	private final static Logger logger = LoggerFactory.getLogger(GameJournal.class);
+	private static final byte RECORD_IMAGE = 1;
+	private static final byte RECORD_REMOVED = 2;
+	private static final byte RECORD_COMMANDS = 3;
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.log");
+	private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.snap");
+	// Limits how long a snapshot waits for the mailbox of a game or the rotation of the segment.
+	private static final long SNAPSHOT_WAIT_SECONDS = 30;
+	// Windows cannot open a directory as a channel, its file system commits a rename on its own.
+	private static final boolean CAN_FORCE_DIRECTORY = !System.getProperty("os.name").startsWith("Windows");
+
+	private final GameController gameController;
+	private final boolean isEnabled;
+	private final boolean awaitSync;
+	private final Path directory;
+	private final JournalWriter writer;
+	private final ScheduledExecutorService snapshotThread;
+
+	public GameJournal(GameController gameController, PlayerController playerController, MapController mapController,
+			@Value("${game.journal.enabled:false}") boolean isEnabled,
+			@Value("${game.journal.directory:journal}") String directory,
+			@Value("${game.journal.segment-size-mb:64}") long segmentSizeMb,
+			@Value("${game.journal.snapshot-interval-seconds:60}") long snapshotIntervalSeconds,
+			@Value("${game.journal.await-sync:true}") boolean awaitSync) throws IOException {
+		this.gameController = gameController;
+		this.isEnabled = isEnabled;
+		this.awaitSync = awaitSync;
+		this.directory = Paths.get(directory).toAbsolutePath();
+
+		if (!isEnabled) {
+			this.writer = null;
+			this.snapshotThread = null;
+			logger.info("The game journal is disabled, games are only kept in memory.");
+			return;
+		}
+
+		Files.createDirectories(this.directory);
+		long nextSegment = recover(playerController, mapController);
+		this.writer = new JournalWriter(this.directory, nextSegment, segmentSizeMb * 1024 * 1024);
+
+		gameController.setJournal(this);
+		gameController.addGameRemovalListener(this);
+
+		this.snapshotThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "journal-snapshots");
+			thread.setDaemon(true);
+			return thread;
+		});
+		snapshotThread.scheduleWithFixedDelay(this::writeSnapshot, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+	}
+
+	// Appends the commands of the game, unless the game has already been removed and its removal is recorded.
+	@Override
+	public void recordCommands(Game game, List<GameCommand> commands) {
+		byte[] record = GameCommandRecord.encode(game, commands);
+		synchronized (game) {
+			if (!game.isRemoved()) {
+				writer.append(createRecord(RECORD_COMMANDS, record));
+			}
+		}
+	}
+
+	// Waits until all records appended so far are on the disk, unless waiting for the sync is turned off.
+	@Override
+	public void awaitDurable() {
+		if (awaitSync) {
+			writer.awaitDurable(writer.getAppendedSequence());
+		}
+	}
+
+	// Completes once all records appended so far are on the disk, or right away if waiting for the sync is turned off.
+	@Override
+	public CompletableFuture<Void> whenDurable() {
+		if (awaitSync) {
+			return writer.whenDurable(writer.getAppendedSequence());
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	// Records that the game was removed, so it is not recovered after a restart.
+	@Override
+	public void onGameRemoved(Game game) {
+		synchronized (game) {
+			try {
+				writer.append(createRecord(RECORD_REMOVED, game.getGameId().getBytes(StandardCharsets.UTF_8)));
+			} catch (JournalUnavailableException e) {
+				// The writer has already logged its failure, the removed game is just recovered once more.
+			}
+		}
+	}
+
+	// Stops the snapshots and writes the records which are still queued when the server shuts down.
+	@PreDestroy
+	public void shutdown() {
+		if (isEnabled) {
+			gameController.setJournal(null);
+			snapshotThread.shutdownNow();
+			writer.close();
+		}
+	}
+
+	/*
+	 * From here are the private methods for the GameJournal class.
+	 */
+
+	/**
+     * Loads the latest snapshot, reads the segments from the one it was taken at, and registers the recovered games
+     * with their recorded commands executed again. Commands which an image already contains are skipped, a removal
+     * record drops the game.
+     *
+     * @param playerController Registers the recovered players.
+     * @param mapController    Adds the recorded half maps again.
+     * @return The index of the first new segment, higher than any existing one.
+     * @throws IOException If the journal cannot be read.
+     */
+	private long recover(PlayerController playerController, MapController mapController) throws IOException {
+		TreeMap<Long, Path> segments = listFiles(SEGMENT_NAME);
+		TreeMap<Long, Path> snapshots = listFiles(SNAPSHOT_NAME);
+
+		Map<String, RecoveredGame> games = new LinkedHashMap<>();
+		long firstSegment = 0;
+		if (!snapshots.isEmpty()) {
+			firstSegment = snapshots.lastKey();
+			for (byte[] payload : JournalReader.readRecords(snapshots.lastEntry().getValue())) {
+				applyRecord(games, payload);
+			}
+		}
+		for (Path segment : segments.tailMap(firstSegment, true).values()) {
+			for (byte[] payload : JournalReader.readRecords(segment)) {
+				applyRecord(games, payload);
+			}
+		}
+
+		int numOfRecovered = 0;
+		for (RecoveredGame recovered : games.values()) {
+			// The journal may hold more games than a lower configured capacity admits, those are skipped so that the
+			// server still starts.
+			try {
+				if (restoreGame(recovered, playerController, mapController)) {
+					numOfRecovered++;
+				}
+			} catch (ServerFullException e) {
+				logger.warn("The game " + recovered.gameId + " is not recovered, the capacity of active games is reached.");
+			}
+		}
+		if (numOfRecovered > 0) {
+			logger.info("Recovered " + numOfRecovered + " games from the journal.");
+		}
+
+		long lastSegment = Math.max(segments.isEmpty() ? 0 : segments.lastKey(), firstSegment);
+		return lastSegment + 1;
+	}
+
+	// Applies a single record to the recovered games.
+	private void applyRecord(Map<String, RecoveredGame> games, byte[] payload) throws IOException {
+		if (payload.length == 0) {
+			throw new IOException("The journal contains an empty record.");
+		}
+		DataInputStream content = new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1));
+		switch (payload[0]) {
+		case RECORD_REMOVED:
+			games.remove(new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8));
+			break;
+		case RECORD_IMAGE:
+			GameImage image = GameImage.decode(content);
+			RecoveredGame imaged = games.get(image.getGameId());
+			if (imaged == null || imaged.stateVersion < image.getStateVersion()) {
+				games.put(image.getGameId(), new RecoveredGame(image));
+			}
+			break;
+		case RECORD_COMMANDS:
+			// The commands of a game which is neither in the snapshot nor created afterwards belong to a removed game.
+			GameCommandRecord record = GameCommandRecord.decode(content);
+			RecoveredGame known = games.get(record.getGameId());
+			if (known == null && record.isCreation()) {
+				games.put(record.getGameId(), new RecoveredGame(record));
+			} else if (known != null && known.stateVersion < record.getStateVersion()) {
+				known.records.add(record);
+				known.stateVersion = record.getStateVersion();
+			}
+			break;
+		default:
+			throw new IOException("The journal contains a record of the unknown type " + payload[0] + ".");
+		}
+	}
+
+	/**
+     * Registers a recovered game with the state of its image, or as created, and executes its recorded commands
+     * again on its mailbox. If a command fails, which a deterministic game does not, the game keeps the state before.
+     *
+     * @param recovered        The recovered game.
+     * @param playerController Registers the recovered players.
+     * @param mapController    Adds the recorded half maps again.
+     * @return True if the game was registered, false if its game ID is already in use.
+     * @throws ServerFullException If the capacity of active games is reached.
+     */
+	private boolean restoreGame(RecoveredGame recovered, PlayerController playerController, MapController mapController) {
+		String gameId = recovered.gameId;
+		if (recovered.image != null) {
+			GameImage image = recovered.image;
+			List<Player> players = image.createPlayers();
+			ServerFullMap fullMap = image.createFullMap();
+			if (!gameController.restoreGame(gameId, image.getHalfMapDimensions(), image.getSeed(), image.getRandomDraws(),
+					image.getStateVersion(), players, fullMap, image.createMovement(fullMap))) {
+				return false;
+			}
+			for (Player eachPlayer : players) {
+				playerController.restorePlayer(eachPlayer);
+			}
+		} else {
+			GameCommand creation = recovered.creation.getCommands().get(0);
+			if (!gameController.restoreGame(gameId, creation.getHalfMapDimensions(), creation.getSeed(), 0,
+					recovered.creation.getStateVersion(), List.of(), null, null)) {
+				return false;
+			}
+		}
+
+		if (!recovered.records.isEmpty()) {
+			try {
+				gameController.executeCommand(gameId, () -> {
+					for (GameCommandRecord record : recovered.records) {
+						replayRecord(record, playerController, mapController);
+					}
+					return null;
+				});
+			} catch (RuntimeException e) {
+				logger.error("The commands of game " + gameId + " could not be executed again, it is recovered at state version "
+						+ gameController.getGameStateId(gameId) + ".", e);
+			}
+		}
+		return true;
+	}
+
+	/**
+     * Executes the commands of a record again, like the endpoints executed them, but without their validation, which
+     * they have passed before. Must run on the mailbox of the game.
+     *
+     * @param record           The record.
+     * @param playerController Registers the recorded players.
+     * @param mapController    Adds the recorded half maps.
+     * @throws IllegalStateException If the commands do not lead to the recorded state version.
+     */
+	private void replayRecord(GameCommandRecord record, PlayerController playerController, MapController mapController) {
+		String gameId = record.getGameId();
+		for (GameCommand command : record.getCommands()) {
+			switch (command.getType()) {
+			case PlayerAdded:
+				playerController.restorePlayer(command.getPlayer());
+				gameController.addPlayer(gameId, command.getPlayer());
+				break;
+			case HalfMapAdded:
+				mapController.addHalfMap(command.getHalfMap(), command.getPlayerId(), gameId);
+				gameController.advanceStateVersion(gameId);
+				break;
+			case Moved:
+				try {
+					gameController.applyMove(gameId, command.getPlayerId(), command.getDirection());
+				} catch (InvalidMoveException e) {
+					// The player loses again, like when the move was received.
+				}
+				break;
+			case Lost:
+			case TurnExpired:
+				gameController.setLose(command.getPlayerId(), gameId);
+				break;
+			default:
+				throw new IllegalStateException("Game " + gameId + " has a second creation record.");
+			}
+		}
+
+		String replayedGameStateId = gameController.getGameStateId(gameId);
+		if (!String.valueOf(record.getStateVersion()).equals(replayedGameStateId)) {
+			throw new IllegalStateException("The commands of game " + gameId + " led to state version " + replayedGameStateId
+					+ " instead of " + record.getStateVersion() + ".");
+		}
+	}
+
+	/**
+     * Writes a snapshot of all active games. The journal continues in a new segment first, then each game is captured
+     * on its mailbox, so every state which is not in the snapshot is in the new segment or a later one. Once the
+     * snapshot is on the disk, the older segments and snapshots are deleted.
+     */
+	private void writeSnapshot() {
+		try {
+			long snapshotSegment = writer.rotate().get(SNAPSHOT_WAIT_SECONDS, TimeUnit.SECONDS);
+
+			List<CompletableFuture<byte[]>> images = new ArrayList<>();
+			for (Game game : gameController.getActiveGames()) {
+				CompletableFuture<byte[]> image = new CompletableFuture<>();
+				game.getMailbox().submit(() -> image.complete(game.isRemoved() ? null : GameImage.encode(game)));
+				images.add(image);
+			}
+
+			Path temporary = directory.resolve("snapshot.tmp");
+			try (FileChannel snapshot = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				for (CompletableFuture<byte[]> image : images) {
+					byte[] encoded = image.get(SNAPSHOT_WAIT_SECONDS, TimeUnit.SECONDS);
+					if (encoded != null) {
+						JournalWriter.writeFrame(snapshot, createRecord(RECORD_IMAGE, encoded));
+					}
+				}
+				snapshot.force(true);
+			}
+			Files.move(temporary, directory.resolve(String.format("snapshot-%010d.snap", snapshotSegment)),
+					StandardCopyOption.ATOMIC_MOVE);
+			// The rename itself is only durable once the directory is forced, the segments before the snapshot must
+			// not be deleted while a crash could still lose it.
+			forceDirectory();
+
+			deleteOlderThan(SEGMENT_NAME, snapshotSegment);
+			deleteOlderThan(SNAPSHOT_NAME, snapshotSegment);
+		} catch (Exception e) {
+			logger.error("Failed to write a snapshot of the active games.", e);
+		}
+	}
+
+	// Forces the entries of the journal directory to the disk, e.g. the name of a renamed file.
+	private void forceDirectory() throws IOException {
+		if (CAN_FORCE_DIRECTORY) {
+			try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+				channel.force(true);
+			}
+		}
+	}
+
+	// Deletes the files of the given kind whose index is lower than the given one.
+	private void deleteOlderThan(Pattern namePattern, long index) throws IOException {
+		for (Path file : listFiles(namePattern).headMap(index, false).values()) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	// Lists the files of the journal directory matching the pattern, keyed by their index.
+	private TreeMap<Long, Path> listFiles(Pattern namePattern) throws IOException {
+		TreeMap<Long, Path> files = new TreeMap<>();
+		try (Stream<Path> entries = Files.list(directory)) {
+			entries.forEach(file -> {
+				Matcher matcher = namePattern.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					files.put(Long.parseLong(matcher.group(1)), file);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return files;
+	}
+
+	// Creates the payload of a record, the type followed by its content.
+	private static byte[] createRecord(byte type, byte[] content) {
+		byte[] record = new byte[content.length + 1];
+		record[0] = type;
+		System.arraycopy(content, 0, record, 1, content.length);
+		return record;
+	}
+
+	// A game found in the journal: the image or the creation it starts from, and the records of the commands after it.
+	private static class RecoveredGame {
+		private final String gameId;
+		private final GameImage image;
+		private final GameCommandRecord creation;
+		private final List<GameCommandRecord> records = new ArrayList<>();
+		private long stateVersion;
+
+		private RecoveredGame(GameImage image) {
+			this.gameId = image.getGameId();
+			this.image = image;
+			this.creation = null;
+			this.stateVersion = image.getStateVersion();
+		}
+
+		private RecoveredGame(GameCommandRecord creationRecord) {
+			this.gameId = creationRecord.getGameId();
+			this.image = null;
+			this.creation = creationRecord;
+			this.stateVersion = creationRecord.getStateVersion();
+		}
+	}
+}
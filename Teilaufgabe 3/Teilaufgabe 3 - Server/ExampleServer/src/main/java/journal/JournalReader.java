@@ -0,0 +1,62 @@
+package journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the framed records written by the JournalWriter. Reading stops at the first record which is incomplete or
+ * whose CRC32 does not match, i.e. at the record a crash has torn, and everything before it is kept.
+ */
+class JournalReader {
+	private final static Logger logger = LoggerFactory.getLogger(JournalReader.class);
+
+	private JournalReader() {}
+
+	/**
+     * Reads the payloads of the intact records of the given file.
+     *
+     * @param file The segment or snapshot file.
+     * @return The payloads in the order they were written.
+     * @throws IOException If the file cannot be read.
+     */
+	static List<byte[]> readRecords(Path file) throws IOException {
+		List<byte[]> payloads = new ArrayList<>();
+		long remaining = Files.size(file);
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			while (remaining >= JournalWriter.FRAME_HEADER_SIZE) {
+				int length = input.readInt();
+				int expectedChecksum = input.readInt();
+				remaining -= JournalWriter.FRAME_HEADER_SIZE;
+				if (length < 0 || length > remaining) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				input.readFully(payload);
+				remaining -= length;
+
+				CRC32 checksum = new CRC32();
+				checksum.update(payload);
+				if ((int) checksum.getValue() != expectedChecksum) {
+					break;
+				}
+				payloads.add(payload);
+			}
+		} catch (EOFException e) {
+			// The file has been shortened while reading, the records read so far are intact.
+		}
+		if (remaining > 0) {
+			logger.warn("Ignored a torn record at the end of " + file.getFileName() + ".");
+		}
+		return payloads;
+	}
+}
@@ -0,0 +1,354 @@
+package journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import server.exceptions.JournalUnavailableException;
+
+/**
+ * Appends records to the segment files of the journal on a single writer thread. Records are framed as the length of
+ * the payload, its CRC32 and the payload itself, so that a record torn by a crash is recognised when reading.
+ *
+ * Appending only queues the record. The writer thread drains all queued records, writes them in one go and forces
+ * them to the disk once, so the records of many concurrent commands share a single fsync (group commit). Callers who
+ * need durability wait for the sequence number of their record afterwards.
+ *
+ * If writing fails, the writer stops for good: the records which are not durable yet are never acknowledged, their
+ * waiting callers fail, and every later append fails, so that no caller is told a state is durable which is not.
+ */
+class JournalWriter {
+	private final static Logger logger = LoggerFactory.getLogger(JournalWriter.class);
+	// Limits the number of records written between two forces, so that waiting callers are not delayed too long.
+	private static final int MAX_RECORDS_PER_BATCH = 4096;
+	// Queued by close, the writer thread writes the records before it and stops.
+	private static final PendingRecord STOP = new PendingRecord(0, null, null);
+	static final int FRAME_HEADER_SIZE = Integer.BYTES * 2;
+
+	private final Path directory;
+	private final long segmentSize;
+	private final BlockingQueue<PendingRecord> pendingRecords = new LinkedBlockingQueue<>();
+	private final Thread writerThread;
+	private final ExecutorService completionPool = createCompletionPool();
+	private final Object durableLock = new Object();
+	private final List<DurableWaiter> durableWaiters = new ArrayList<>();
+	private long appendedSequence;
+	private long durableSequence;
+	private volatile boolean running = true;
+	private volatile IOException writeFailure;
+	private FileChannel segment;
+	private long segmentIndex;
+	private long segmentLength;
+
+	/**
+     * Creates the writer, opens the given segment and starts the writer thread.
+     *
+     * @param directory    The directory of the journal.
+     * @param segmentIndex The index of the first segment, it must not exist yet.
+     * @param segmentSize  The size in bytes after which the writer continues in a new segment.
+     * @throws IOException If the segment cannot be created.
+     */
+	JournalWriter(Path directory, long segmentIndex, long segmentSize) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		openSegment(segmentIndex);
+
+		this.writerThread = new Thread(this::runWriter, "journal-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+     * Queues a record. Records are written in the order they were appended.
+     *
+     * @param payload The payload of the record.
+     * @return The sequence number of the record.
+     * @throws JournalUnavailableException If the writer has failed or is stopped.
+     */
+	synchronized long append(byte[] payload) {
+		if (!running) {
+			throw createUnavailableException();
+		}
+		long sequence = ++appendedSequence;
+		pendingRecords.add(new PendingRecord(sequence, payload, null));
+		return sequence;
+	}
+
+	// Retrieves the sequence number of the last appended record.
+	synchronized long getAppendedSequence() {
+		return appendedSequence;
+	}
+
+	/**
+     * Waits until the record with the given sequence number and all records before it are forced to the disk.
+     *
+     * @param sequence The sequence number to wait for.
+     * @throws JournalUnavailableException If the writer has failed or stopped before the record was durable.
+     */
+	void awaitDurable(long sequence) {
+		synchronized (durableLock) {
+			boolean interrupted = false;
+			while (durableSequence < sequence && running) {
+				try {
+					durableLock.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (durableSequence < sequence) {
+				throw createUnavailableException();
+			}
+		}
+	}
+
+	/**
+     * Completes once the record with the given sequence number and all records before it are forced to the disk,
+     * without blocking the caller.
+     *
+     * @param sequence The sequence number to wait for.
+     * @return Completed on the completion pool once the record is durable, or with a JournalUnavailableException if the
+     *         writer has failed or stopped before.
+     */
+	CompletableFuture<Void> whenDurable(long sequence) {
+		synchronized (durableLock) {
+			if (durableSequence >= sequence) {
+				return CompletableFuture.completedFuture(null);
+			}
+			if (!running) {
+				return CompletableFuture.failedFuture(createUnavailableException());
+			}
+			CompletableFuture<Void> durable = new CompletableFuture<>();
+			durableWaiters.add(new DurableWaiter(sequence, durable));
+			return durable;
+		}
+	}
+
+	/**
+     * Continues in a new segment once all records appended before are written. Records appended afterwards go into
+     * the new segment.
+     *
+     * @return The index of the new segment, completed by the writer thread.
+     */
+	synchronized CompletableFuture<Long> rotate() {
+		CompletableFuture<Long> rotated = new CompletableFuture<>();
+		if (running) {
+			pendingRecords.add(new PendingRecord(appendedSequence, null, rotated));
+		} else {
+			rotated.completeExceptionally(createUnavailableException());
+		}
+		return rotated;
+	}
+
+	// Writes the queued records, stops the writer thread and closes the segment.
+	void close() {
+		pendingRecords.add(STOP);
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		completionPool.shutdown();
+	}
+
+	// Retrieves the file name of the segment with the given index.
+	static String segmentName(long segmentIndex) {
+		return String.format("segment-%010d.log", segmentIndex);
+	}
+
+	/**
+     * Writes one framed record to the given file: the length of the payload, its CRC32 and the payload.
+     *
+     * @param file    The file to write to.
+     * @param payload The payload of the record.
+     * @return The number of bytes written.
+     * @throws IOException If writing fails.
+     */
+	static int writeFrame(FileChannel file, byte[] payload) throws IOException {
+		CRC32 checksum = new CRC32();
+		checksum.update(payload);
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length);
+		frame.putInt(payload.length);
+		frame.putInt((int) checksum.getValue());
+		frame.put(payload);
+		frame.flip();
+		while (frame.hasRemaining()) {
+			file.write(frame);
+		}
+		return frame.limit();
+	}
+
+	/*
+	 * From here are the private methods for the JournalWriter class.
+	 */
+
+	// Writes batches of records until the writer is closed. The thread is never interrupted, an interrupt would close
+	// the segment in the middle of a write.
+	private void runWriter() {
+		List<PendingRecord> batch = new ArrayList<>();
+		try {
+			boolean stopped = false;
+			while (!stopped) {
+				try {
+					batch.add(pendingRecords.take());
+				} catch (InterruptedException e) {
+					continue;
+				}
+				pendingRecords.drainTo(batch, MAX_RECORDS_PER_BATCH - 1);
+				stopped = batch.remove(STOP);
+				writeBatch(batch);
+				batch.clear();
+			}
+			segment.close();
+		} catch (IOException e) {
+			logger.error("The journal could not be written, commands which change a game are rejected from now on.", e);
+			writeFailure = e;
+		} finally {
+			stopAccepting(batch);
+			releaseDurable(0);
+		}
+	}
+
+	// Writes the records of the batch, forces them to the disk and releases the callers waiting for them.
+	private void writeBatch(List<PendingRecord> batch) throws IOException {
+		long lastSequence = 0;
+		for (PendingRecord record : batch) {
+			if (record.rotated != null) {
+				try {
+					segment.force(false);
+					segment.close();
+					openSegment(segmentIndex + 1);
+				} catch (IOException e) {
+					record.rotated.completeExceptionally(e);
+					throw e;
+				}
+				record.rotated.complete(segmentIndex);
+			} else {
+				writeRecord(record.payload);
+				if (segmentLength >= segmentSize) {
+					segment.force(false);
+					segment.close();
+					openSegment(segmentIndex + 1);
+				}
+			}
+			lastSequence = Math.max(lastSequence, record.sequence);
+		}
+		segment.force(false);
+		releaseDurable(lastSequence);
+	}
+
+	// Marks the records up to the given sequence number as durable and releases the callers waiting for them. Once the
+	// writer is stopped, the callers waiting for a record which never became durable fail. The futures are completed on
+	// the completion pool, so that their dependent actions, e.g. assembling a response, never run on the writer thread
+	// and delay the next force.
+	private void releaseDurable(long sequence) {
+		List<CompletableFuture<Void>> released = new ArrayList<>();
+		List<CompletableFuture<Void>> failed = new ArrayList<>();
+		synchronized (durableLock) {
+			durableSequence = Math.max(durableSequence, sequence);
+			durableLock.notifyAll();
+			for (Iterator<DurableWaiter> waiters = durableWaiters.iterator(); waiters.hasNext();) {
+				DurableWaiter waiter = waiters.next();
+				if (waiter.sequence <= durableSequence) {
+					released.add(waiter.durable);
+					waiters.remove();
+				} else if (!running) {
+					failed.add(waiter.durable);
+					waiters.remove();
+				}
+			}
+		}
+		for (CompletableFuture<Void> durable : released) {
+			durable.completeAsync(() -> null, completionPool);
+		}
+		for (CompletableFuture<Void> durable : failed) {
+			JournalUnavailableException exception = createUnavailableException();
+			CompletableFuture.runAsync(() -> durable.completeExceptionally(exception), completionPool);
+		}
+	}
+
+	// Stops accepting records and fails the rotations which are not done yet, in the unwritten rest of the batch or
+	// still queued. Appending checks the flag under the same lock, so nothing is queued afterwards.
+	private synchronized void stopAccepting(List<PendingRecord> unwritten) {
+		running = false;
+		pendingRecords.drainTo(unwritten);
+		for (PendingRecord record : unwritten) {
+			if (record.rotated != null && !record.rotated.isDone()) {
+				record.rotated.completeExceptionally(createUnavailableException());
+			}
+		}
+	}
+
+	// Creates the exception which rejects a record, with the failure of the writer if it has failed.
+	private JournalUnavailableException createUnavailableException() {
+		IOException failure = writeFailure;
+		if (failure == null) {
+			return new JournalUnavailableException("The game journal has stopped, the game state cannot be recorded.");
+		}
+		return new JournalUnavailableException("The game journal could not be written, the game state cannot be recorded: "
+				+ failure.getMessage());
+	}
+
+	// Writes one framed record to the current segment.
+	private void writeRecord(byte[] payload) throws IOException {
+		segmentLength += writeFrame(segment, payload);
+	}
+
+	// Creates the pool which completes the futures of the callers waiting for durable records.
+	private static ExecutorService createCompletionPool() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+			Thread thread = new Thread(runnable, "journal-completions-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Creates and opens the segment with the given index.
+	private void openSegment(long index) throws IOException {
+		segment = FileChannel.open(directory.resolve(segmentName(index)), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		segmentIndex = index;
+		segmentLength = 0;
+	}
+
+	// A queued record, or a marker to continue in a new segment if rotated is set.
+	private static class PendingRecord {
+		private final long sequence;
+		private final byte[] payload;
+		private final CompletableFuture<Long> rotated;
+
+		private PendingRecord(long sequence, byte[] payload, CompletableFuture<Long> rotated) {
+			this.sequence = sequence;
+			this.payload = payload;
+			this.rotated = rotated;
+		}
+	}
+
+	// A caller waiting without blocking until the record with the sequence number is durable.
+	private static class DurableWaiter {
+		private final long sequence;
+		private final CompletableFuture<Void> durable;
+
+		private DurableWaiter(long sequence, CompletableFuture<Void> durable) {
+			this.sequence = sequence;
+			this.durable = durable;
+		}
+	}
+}
@@ -6,5 +6,8 @@ public enum EMapNodeAttribute {
     MY_POSITION,
     ENEMY_POSITION,
     MY_TREASURE,
-    ENEMY_TREASURE
+    ENEMY_TREASURE,
+    // The fields the first and the second player have seen so far, see VisibilityMasks.
+    MY_REVEALED,
+    ENEMY_REVEALED
 }
@@ -0,0 +1,26 @@
+package map;
+
+public enum EMoveDirection {
+	UP(0, -1),
+	DOWN(0, 1),
+	LEFT(-1, 0),
+	RIGHT(1, 0);
+	
+	private final int dx;
+	private final int dy;
+	
+	private EMoveDirection(int dx, int dy) {
+		this.dx = dx;
+		this.dy = dy;
+	}
+	
+	// Retrieves the change of the x-coordinate of a step in this direction.
+	public int getDx() {
+		return dx;
+	}
+	
+	// Retrieves the change of the y-coordinate of a step in this direction.
+	public int getDy() {
+		return dy;
+	}
+}
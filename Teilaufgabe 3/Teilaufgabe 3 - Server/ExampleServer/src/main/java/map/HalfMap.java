@@ -7,12 +7,12 @@ import org.slf4j.LoggerFactory;
 public class HalfMap {
 	private final static Logger logger = LoggerFactory.getLogger(HalfMap.class);
 	
-	private final MapNode[][] halfMap;
+	private final PackedBoard halfMap;
 	private final String playerId;
 	private final String gameId;
 	private boolean playerTwo;
 	
-	public HalfMap(MapNode[][] halfMap, String playerId, String gameId) {
+	public HalfMap(PackedBoard halfMap, String playerId, String gameId) {
 		this.halfMap = halfMap;
 		this.playerId = playerId;
 		this.gameId = gameId;
@@ -20,7 +20,7 @@ public class HalfMap {
 	}
 
 	// Retrieves the half map.
-	public MapNode[][] getHalfMap() {
+	public PackedBoard getHalfMap() {
 		return halfMap;
 	}
 
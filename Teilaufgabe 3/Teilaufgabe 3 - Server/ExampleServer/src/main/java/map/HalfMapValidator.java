@@ -1,44 +1,63 @@
 package map;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import game.GameController;
 import rules.EdgeWaterCountRule;
 import rules.FortExistsRule;
 import rules.HalfMapExistsRule;
+import rules.IBusinessRule;
 import rules.IslandCheckRule;
 import rules.MapSizeRule;
 import rules.TerrainCountRule;
 import server.exceptions.InvalidMapException;
 
+@Component
 public class HalfMapValidator {
     private final static Logger logger = LoggerFactory.getLogger(HalfMapValidator.class);
     private final GameController gameController;
+    // Whether a valid half map exists for a size, decided once per size a game was requested with.
+    private final Map<Long, Boolean> admissibleSizes = new ConcurrentHashMap<>();
+    
+    // The rules are stateless, so they are created once together with the validator and shared by all uploads.
+    private final IBusinessRule<PackedBoard> halfMapExistsRule = new HalfMapExistsRule();
+    private final List<IBusinessRule<MapSurvey>> surveyRules = List.of(
+    		new MapSizeRule(),
+    		new FortExistsRule(),
+    		new TerrainCountRule(),
+    		new EdgeWaterCountRule(),
+    		new IslandCheckRule());
     
-    public HalfMapValidator() {
-    	this.gameController = new GameController();
+    public HalfMapValidator(GameController gameController) {
+    	this.gameController = gameController;
     };
 
     /**
      * Validates the half map for various rules including terrain type counts, presence of a fort, absence of islands,
      * and other map constraints. If any validation rule fails, the player loses the game.
+     * The map is traversed only once to survey it, the rules then check the survey in their usual order. The expected
+     * size and the terrain minimums follow the half map dimensions of the game.
      *
-     * @param map      The half map to validate, represented as a 2D array of MapNodes.
+     * @param map      The half map to validate, represented as a packed board.
      * @param playerId The ID of the player who submitted the half map.
      * @param gameId   The ID of the game the half map belongs to.
      * @return True if the half map is valid.
      * @throws InvalidMapException If any validation rule fails.
      */
-    public boolean isValid(MapNode[][] map,String playerId, String gameId) {
+    public boolean isValid(PackedBoard map,String playerId, String gameId) {
 
         try {
-        	new HalfMapExistsRule().validate(map);
-        	new MapSizeRule().validate(map);
-        	new FortExistsRule().validate(map);
-            new TerrainCountRule().validate(map);
-            new EdgeWaterCountRule().validate(map);
-            new IslandCheckRule().validate(map);
+        	halfMapExistsRule.validate(map);
+        	MapSurvey survey = MapSurvey.of(map, gameController.getHalfMapDimensions(gameId));
+        	for (IBusinessRule<MapSurvey> rule : surveyRules) {
+        		rule.validate(survey);
+        	}
         } catch (InvalidMapException e) {
         	gameController.setLose(playerId,gameId);
             logger.error(e.getMessage());
@@ -47,4 +66,106 @@ public class HalfMapValidator {
 
         return true;
     }
+
+    /**
+     * Checks whether a valid half map of the given size exists at all, so that games are only created with sizes the
+     * players can actually satisfy. Small sizes fail the rules together, e.g. a 2x2 half map has no field for water
+     * which is not on an edge of 2 fields. A sample half map is therefore built from the same minimums the rules check
+     * and surveyed like an uploaded one. The result is kept per size.
+     *
+     * @param dimensions The requested half map dimensions.
+     * @return True if a half map of this size can pass all rules.
+     */
+    public boolean admitsValidHalfMap(MapDimensions dimensions) {
+    	long sizeKey = ((long) dimensions.getWidth() << 32) | dimensions.getHeight();
+    	return admissibleSizes.computeIfAbsent(sizeKey, key -> {
+    		try {
+    			MapSurvey survey = MapSurvey.of(createSampleHalfMap(dimensions), dimensions);
+    			for (IBusinessRule<MapSurvey> rule : surveyRules) {
+    				rule.validate(survey);
+    			}
+    			return true;
+    		} catch (InvalidMapException e) {
+    			return false;
+    		}
+    	});
+    }
+
+    /*
+     * From here are the private methods for the HalfMapValidator class.
+     */
+
+    /**
+     * Builds a half map with the required water and mountains on grass and a fort in the top left corner. The water
+     * lies on fields whose row and column are both odd, so it never touches other water and every land field stays
+     * connected through the even columns and the third row. The interior is filled first, then the right, bottom and
+     * top edges as far as their accessible share allows. Whatever the pattern cannot hold is left out, so the rules
+     * reject the sample, e.g. for 2x4 where every choice of the two water fields cuts the land apart.
+     *
+     * @param dimensions The dimensions of the half map.
+     * @return The sample half map.
+     */
+    private static PackedBoard createSampleHalfMap(MapDimensions dimensions) {
+    	int width = dimensions.getWidth();
+    	int height = dimensions.getHeight();
+    	PackedBoard sample = new PackedBoard(width, height);
+    	for (int y = 0; y < height; y++) {
+    		for (int x = 0; x < width; x++) {
+    			sample.setTerrain(x, y, EMapNodeTerrain.GRASS);
+    		}
+    	}
+
+    	// Place the water in the interior first.
+    	int missingWater = TerrainCountRule.requiredWater(dimensions.getNumOfFields());
+    	for (int y = 1; y < height - 1 && missingWater > 0; y += 2) {
+    		for (int x = 1; x < width - 1 && missingWater > 0; x += 2) {
+    			sample.setTerrain(x, y, EMapNodeTerrain.WATER);
+    			missingWater--;
+    		}
+    	}
+
+    	// Then on the right and bottom edge, if they lie on an odd column or row. A corner counts for both edges.
+    	int rightEdgeWater = 0;
+    	int bottomEdgeWater = 0;
+    	int maxRightEdgeWater = EdgeWaterCountRule.maxEdgeWater(height);
+    	int maxBottomEdgeWater = EdgeWaterCountRule.maxEdgeWater(width);
+    	boolean isRightEdgeOdd = width > 1 && (width - 1) % 2 == 1;
+    	boolean isBottomEdgeOdd = height > 1 && (height - 1) % 2 == 1;
+    	for (int y = 1; isRightEdgeOdd && y < height - 1 && missingWater > 0 && rightEdgeWater < maxRightEdgeWater; y += 2) {
+    		sample.setTerrain(width - 1, y, EMapNodeTerrain.WATER);
+    		rightEdgeWater++;
+    		missingWater--;
+    	}
+    	for (int x = 1; isBottomEdgeOdd && x < width - 1 && missingWater > 0 && bottomEdgeWater < maxBottomEdgeWater; x += 2) {
+    		sample.setTerrain(x, height - 1, EMapNodeTerrain.WATER);
+    		bottomEdgeWater++;
+    		missingWater--;
+    	}
+    	if (isRightEdgeOdd && isBottomEdgeOdd && missingWater > 0 && rightEdgeWater < maxRightEdgeWater
+    			&& bottomEdgeWater < maxBottomEdgeWater) {
+    		sample.setTerrain(width - 1, height - 1, EMapNodeTerrain.WATER);
+    		missingWater--;
+    	}
+
+    	// Finally on the odd columns of the top edge, while the third row still connects the even columns.
+    	int maxTopEdgeWater = EdgeWaterCountRule.maxEdgeWater(width);
+    	for (int x = 1; height > 2 && x < width - 1 && missingWater > 0 && maxTopEdgeWater > 0; x += 2) {
+    		sample.setTerrain(x, 0, EMapNodeTerrain.WATER);
+    		maxTopEdgeWater--;
+    		missingWater--;
+    	}
+
+    	// Turn grass into mountains from the last field backwards, the fort keeps its grass field in the first one.
+    	int missingMountains = TerrainCountRule.requiredMountains(dimensions.getNumOfFields());
+    	for (int index = dimensions.getNumOfFields() - 1; index > 0 && missingMountains > 0; index--) {
+    		int x = index % width;
+    		int y = index / width;
+    		if (sample.getTerrain(x, y) == EMapNodeTerrain.GRASS) {
+    			sample.setTerrain(x, y, EMapNodeTerrain.MOUNTAIN);
+    			missingMountains--;
+    		}
+    	}
+    	sample.addAttribute(0, 0, EMapNodeAttribute.MY_FORT);
+    	return sample;
+    }
 }
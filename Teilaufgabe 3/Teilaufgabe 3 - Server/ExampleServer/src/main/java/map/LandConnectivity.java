@@ -0,0 +1,154 @@
+package map;
+
+/**
+ * Checks if all land fields of a map are connected, given the land fields as a bitset with the bit y * width + x for
+ * the field (x, y). Nothing is recursive, so the check is safe for maps of any size.
+ *
+ * Maps with up to 64 fields fit into a single long. Their reachable area is grown from the start field by shifting the
+ * whole bitboard one step in each direction at once, until it does not change anymore. Larger maps fall back to a
+ * breadth-first search over the bitset, which visits every field at most once.
+ */
+public final class LandConnectivity {
+
+	private LandConnectivity() {}
+
+	/**
+     * Finds the first land field, column by column, which cannot be reached from the start field. Works on maps with
+     * up to 64 fields and allocates nothing.
+     *
+     * @param land   The land fields of the map.
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     * @param start  The index of the land field where the search starts.
+     * @return The index of the first unreachable land field, or -1 if all land fields are reachable.
+     */
+	public static int findFirstUnreachable(long land, int width, int height, int start) {
+		if (width * height > Long.SIZE) {
+			throw new IllegalArgumentException("A " + width + "x" + height + " map does not fit into a single bitboard.");
+		}
+
+		// The fields a step to the right must not wrap into the first column of the next row and vice versa.
+		long firstColumn = columnMask(width, height);
+		long notFirstColumn = ~firstColumn;
+		long notLastColumn = ~(firstColumn << (width - 1));
+
+		long reached = land & (1L << start);
+		long previous = 0;
+		while (reached != previous) {
+			previous = reached;
+			reached |= ((reached << 1) & notFirstColumn)
+					| ((reached >>> 1) & notLastColumn)
+					| (reached << width)
+					| (reached >>> width);
+			reached &= land;
+		}
+
+		long unreachable = land & ~reached;
+		if (unreachable == 0) {
+			return -1;
+		}
+		for (int x = 0; x < width; x++) {
+			long column = unreachable & (firstColumn << x);
+			if (column != 0) {
+				return Long.numberOfTrailingZeros(column);
+			}
+		}
+		return -1;
+	}
+
+	/**
+     * Finds the first land field, column by column, which cannot be reached from the start field. Works on maps of
+     * any size.
+     *
+     * @param land   The land fields of the map, one bit per field.
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     * @param start  The index of the land field where the search starts.
+     * @return The index of the first unreachable land field, or -1 if all land fields are reachable.
+     */
+	public static int findFirstUnreachable(long[] land, int width, int height, int start) {
+		int numOfFields = width * height;
+		long[] reached = findReachable(land, width, height, start);
+
+		for (int x = 0; x < width; x++) {
+			for (int index = x; index < numOfFields; index += width) {
+				if (isSet(land, index) && !isSet(reached, index)) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+     * Finds the land fields which can be reached from the start field with a breadth-first search over the bitset.
+     * Works on maps of any size.
+     *
+     * @param land   The land fields of the map, one bit per field.
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     * @param start  The index of the land field where the search starts.
+     * @return The reachable land fields, one bit per field, empty if the start field is not land.
+     */
+	public static long[] findReachable(long[] land, int width, int height, int start) {
+		int numOfFields = width * height;
+		long[] reached = new long[land.length];
+		int[] queue = new int[numOfFields];
+		int head = 0;
+		int tail = 0;
+
+		if (isSet(land, start)) {
+			set(reached, start);
+			queue[tail++] = start;
+		}
+		while (head < tail) {
+			int index = queue[head++];
+			int x = index % width;
+			if (x > 0) {
+				tail = visit(land, reached, queue, tail, index - 1);
+			}
+			if (x < width - 1) {
+				tail = visit(land, reached, queue, tail, index + 1);
+			}
+			if (index >= width) {
+				tail = visit(land, reached, queue, tail, index - width);
+			}
+			if (index + width < numOfFields) {
+				tail = visit(land, reached, queue, tail, index + width);
+			}
+		}
+		return reached;
+	}
+
+	/*
+	 * From here are the private methods for the LandConnectivity class.
+	 */
+
+	// Creates the mask of the first column of a map with up to 64 fields.
+	private static long columnMask(int width, int height) {
+		long mask = 0;
+		for (int y = 0; y < height; y++) {
+			mask |= 1L << (y * width);
+		}
+		return mask;
+	}
+
+	// Queues the field if it is land and has not been reached yet, returns the new end of the queue.
+	private static int visit(long[] land, long[] reached, int[] queue, int tail, int index) {
+		if (isSet(land, index) && !isSet(reached, index)) {
+			set(reached, index);
+			queue[tail++] = index;
+		}
+		return tail;
+	}
+
+	// Checks if the bit of the field is set.
+	private static boolean isSet(long[] bits, int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	// Sets the bit of the field.
+	private static void set(long[] bits, int index) {
+		bits[index >>> 6] |= 1L << index;
+	}
+}
@@ -1,36 +1,40 @@
 package map;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.SplittableRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
+import game.GameCommand;
 import game.GameController;
 import server.exceptions.GameNotReadyException;
 import server.exceptions.TooManyHalfMapsException;
 
+@Component
 public class MapController {
 	private final static Logger logger = LoggerFactory.getLogger(MapController.class);
 	
-	private static List<ServerFullMap> activeFullMaps = new ArrayList<ServerFullMap>();
 	private final GameController gameController;
 	
-	public MapController() {
-		gameController = new GameController();
+	public MapController(GameController gameController) {
+		this.gameController = gameController;
 	};
 	
 	/**
-     * Adds a half map to the active full maps list and associates it with the specified game.
+     * Adds a half map to the full map owned by the specified game, creating the full map if it does not exist yet.
+     * The treasure of the player is placed on the half map once it is accepted.
      *
-     * @param serverHalfMap The half map to add, represented as a 2D array of MapNodes.
+     * @param serverHalfMap The half map to add, represented as a packed board.
      * @param playerId      The ID of the player who submitted the half map.
      * @param gameId        The ID of the game the half map belongs to.
      */
-    public void addHalfMap(MapNode[][] serverHalfMap, String playerId, String gameId) {
+    public void addHalfMap(PackedBoard serverHalfMap, String playerId, String gameId) {
+        // The journal keeps the half map as it was received, the copy is not changed when the treasure is placed.
+        gameController.recordCommand(gameId, GameCommand.halfMapAdded(playerId, new PackedBoard(serverHalfMap)));
         HalfMap halfMap = new HalfMap(serverHalfMap, playerId, gameId);
 
-        ServerFullMap fullMap = findFullMap(gameId);
+        ServerFullMap fullMap = gameController.getFullMap(gameId);
         if (fullMap != null) {
             handleExistingFullMap(fullMap, halfMap, playerId, gameId);
         } else {
@@ -44,21 +48,6 @@ public class MapController {
 	 */
 	
     
-    /**
-     * Finds the full map for the specified game ID.
-     *
-     * @param gameId The game ID to search for.
-     * @return The ServerFullMap if found, otherwise null.
-     */
-    private ServerFullMap findFullMap(String gameId) {
-    	for(ServerFullMap fullMap : activeFullMaps) {
-			if(fullMap.getGameId().equals(gameId)) {
-				return fullMap;
-			}
-    	}
-    	return null;
-    }
-
     /**
      * Handles the case where a full map already exists for the game. This means handling the half map from the second player.
      *
@@ -74,6 +63,7 @@ public class MapController {
         } else if (fullMap.getHalfMaps().get(0).getPlayerId().equals(playerId)) {
             throw new TooManyHalfMapsException("Player with id: " + playerId + " has already sent one halfMap.");
         } else {
+            placeTreasure(halfMap, true, gameId);
             gameController.addHalfMap(halfMap, gameId);
             halfMap.setPlayerTwo(true);
         }
@@ -90,9 +80,32 @@ public class MapController {
         if (!gameController.checkEnoughPlayers(gameId)) {
             throw new GameNotReadyException("The game is not ready, there's at least one player not yet registered.");
         } else {
+            placeTreasure(halfMap, false, gameId);
+            // The full map is owned by the game record and released together with it.
             ServerFullMap newFullMap = new ServerFullMap(halfMap, gameId);
-            activeFullMaps.add(newFullMap);
             gameController.addFullMap(newFullMap, gameId);
         }
     }
+
+    /**
+     * Places the treasure of the player on the accepted half map, with the generator of the game. Must run on the
+     * mailbox of the game, before the half map is combined into the full map.
+     *
+     * @param halfMap     The accepted half map.
+     * @param isPlayerTwo Indicates if the half map belongs to the second player.
+     * @param gameId      The ID of the game.
+     */
+    private void placeTreasure(HalfMap halfMap, boolean isPlayerTwo, String gameId) {
+        SplittableRandom random = gameController.nextRandom(gameId);
+        if (random == null) {
+            return;
+        }
+
+        // The second player's fort and treasure are stored as the enemy's, like their position.
+        EMapNodeAttribute fortAttribute = isPlayerTwo ? EMapNodeAttribute.ENEMY_FORT : EMapNodeAttribute.MY_FORT;
+        EMapNodeAttribute treasureAttribute = isPlayerTwo ? EMapNodeAttribute.ENEMY_TREASURE : EMapNodeAttribute.MY_TREASURE;
+        if (TreasurePlacement.placeTreasure(halfMap.getHalfMap(), fortAttribute, treasureAttribute, random) < 0) {
+            logger.warn("The halfMap of player " + halfMap.getPlayerId() + " has no reachable grass field for the treasure.");
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package map;
+
+/**
+ * The size of the half maps of a game. Each game chooses its size when it is created, the full map is made of two
+ * half maps of this size.
+ */
+public final class MapDimensions {
+	public static final int MIN_SIDE = 2;
+	public static final int MAX_SIDE = 500;
+	public static final MapDimensions DEFAULT_HALF_MAP = new MapDimensions(10, 5);
+
+	private final int width;
+	private final int height;
+
+	/**
+     * Constructs the dimensions of a half map.
+     *
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     */
+	public MapDimensions(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	// Retrieves the number of columns.
+	public int getWidth() {
+		return width;
+	}
+
+	// Retrieves the number of rows.
+	public int getHeight() {
+		return height;
+	}
+
+	// Retrieves the number of fields.
+	public int getNumOfFields() {
+		return width * height;
+	}
+
+	// Checks if both sides are within the supported range.
+	public boolean isSupported() {
+		return width >= MIN_SIDE && width <= MAX_SIDE && height >= MIN_SIDE && height <= MAX_SIDE;
+	}
+
+	@Override
+	public String toString() {
+		return height + "x" + width;
+	}
+}
@@ -0,0 +1,201 @@
+package map;
+
+/**
+ * Everything the half map rules need to know about a map, collected in a single traversal: the size, the terrain
+ * counts, the water on each edge, the number of forts and whether all land fields are connected. The rules then only
+ * compare numbers instead of walking the map again.
+ *
+ * The land fields are collected as a bitset while traversing, LandConnectivity then checks their connectivity on the
+ * bitset alone.
+ */
+public class MapSurvey {
+	private final int width;
+	private final int height;
+	private final MapDimensions expectedDimensions;
+	private int numOfMissingFields;
+	private int numOfWater;
+	private int numOfMountains;
+	private int numOfGrass;
+	private int numOfForts;
+	private int numOfLeftEdgeWater;
+	private int numOfRightEdgeWater;
+	private int numOfTopEdgeWater;
+	private int numOfBottomEdgeWater;
+	private int isolatedX = -1;
+	private int isolatedY = -1;
+
+	private MapSurvey(int width, int height, MapDimensions expectedDimensions) {
+		this.width = width;
+		this.height = height;
+		this.expectedDimensions = expectedDimensions;
+	}
+
+	/**
+     * Surveys the given map in a single traversal.
+     *
+     * @param map                The map to survey.
+     * @param expectedDimensions The size the game of the map expects.
+     * @return The survey of the map.
+     */
+	public static MapSurvey of(PackedBoard map, MapDimensions expectedDimensions) {
+		MapSurvey survey = new MapSurvey(map.getWidth(), map.getHeight(), expectedDimensions);
+		survey.traverse(map);
+		return survey;
+	}
+
+	// Retrieves the number of columns of the map.
+	public int getWidth() {
+		return width;
+	}
+
+	// Retrieves the number of rows of the map.
+	public int getHeight() {
+		return height;
+	}
+
+	// Retrieves the size the game of the map expects.
+	public MapDimensions getExpectedDimensions() {
+		return expectedDimensions;
+	}
+
+	// Retrieves the number of fields without terrain.
+	public int getNumOfMissingFields() {
+		return numOfMissingFields;
+	}
+
+	// Retrieves the number of water fields.
+	public int getNumOfWater() {
+		return numOfWater;
+	}
+
+	// Retrieves the number of mountain fields.
+	public int getNumOfMountains() {
+		return numOfMountains;
+	}
+
+	// Retrieves the number of grass fields.
+	public int getNumOfGrass() {
+		return numOfGrass;
+	}
+
+	// Retrieves the number of fields with a fort of either player.
+	public int getNumOfForts() {
+		return numOfForts;
+	}
+
+	// Retrieves the number of water fields in the first column.
+	public int getNumOfLeftEdgeWater() {
+		return numOfLeftEdgeWater;
+	}
+
+	// Retrieves the number of water fields in the last column.
+	public int getNumOfRightEdgeWater() {
+		return numOfRightEdgeWater;
+	}
+
+	// Retrieves the number of water fields in the first row.
+	public int getNumOfTopEdgeWater() {
+		return numOfTopEdgeWater;
+	}
+
+	// Retrieves the number of water fields in the last row.
+	public int getNumOfBottomEdgeWater() {
+		return numOfBottomEdgeWater;
+	}
+
+	// Checks if there is a land field which cannot be reached from the other land fields.
+	public boolean hasIsolatedField() {
+		return isolatedX >= 0;
+	}
+
+	// Retrieves the x-coordinate of the first isolated land field, column by column, or -1 if there is none.
+	public int getIsolatedX() {
+		return isolatedX;
+	}
+
+	// Retrieves the y-coordinate of the first isolated land field, column by column, or -1 if there is none.
+	public int getIsolatedY() {
+		return isolatedY;
+	}
+
+	/*
+	 * From here are the private methods for the MapSurvey class.
+	 */
+
+	// Counts the terrain, edge water and forts of every field, collects the land fields and checks their connectivity.
+	private void traverse(PackedBoard map) {
+		// Maps with up to 64 fields keep their land fields in a single long, larger ones in an array.
+		boolean isSmallMap = width * height <= Long.SIZE;
+		long smallLand = 0;
+		long[] land = isSmallMap ? null : new long[(width * height + 63) >>> 6];
+		int start = -1;
+		int startX = -1;
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int index = y * width + x;
+
+				if (map.hasAttribute(x, y, EMapNodeAttribute.MY_FORT) || map.hasAttribute(x, y, EMapNodeAttribute.ENEMY_FORT)) {
+					numOfForts++;
+				}
+
+				EMapNodeTerrain terrain = map.getTerrain(x, y);
+				if (terrain == null) {
+					numOfMissingFields++;
+					continue;
+				}
+				switch (terrain) {
+				case WATER:
+					numOfWater++;
+					countEdgeWater(x, y);
+					continue;
+				case MOUNTAIN:
+					numOfMountains++;
+					break;
+				case GRASS:
+					numOfGrass++;
+					break;
+				default:
+					break;
+				}
+
+				if (isSmallMap) {
+					smallLand |= 1L << index;
+				} else {
+					land[index >>> 6] |= 1L << index;
+				}
+				// The search starts at the first land field column by column, like the island rule reports it.
+				if (start < 0 || x < startX) {
+					start = index;
+					startX = x;
+				}
+			}
+		}
+
+		if (start >= 0) {
+			int isolated = isSmallMap
+					? LandConnectivity.findFirstUnreachable(smallLand, width, height, start)
+					: LandConnectivity.findFirstUnreachable(land, width, height, start);
+			if (isolated >= 0) {
+				isolatedX = isolated % width;
+				isolatedY = isolated / width;
+			}
+		}
+	}
+
+	// Counts a water field on each edge it lies on.
+	private void countEdgeWater(int x, int y) {
+		if (x == 0) {
+			numOfLeftEdgeWater++;
+		}
+		if (x == width - 1) {
+			numOfRightEdgeWater++;
+		}
+		if (y == 0) {
+			numOfTopEdgeWater++;
+		}
+		if (y == height - 1) {
+			numOfBottomEdgeWater++;
+		}
+	}
+}
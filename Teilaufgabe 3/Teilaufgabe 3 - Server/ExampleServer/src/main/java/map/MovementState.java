@@ -0,0 +1,157 @@
+package map;
+
+import server.exceptions.InvalidMoveException;
+
+/**
+ * The positions of both players on the full map and how far each of them has got towards the next field. A move
+ * action only adds to the progress of the player, who arrives at the next field once the progress reaches the cost of
+ * the step: the cost of leaving the current field plus the cost of entering the next one, i.e. 1 for grass and 2 for
+ * a mountain. A step from grass to grass costs 2 move actions, between grass and a mountain 3, and from mountain to
+ * mountain 4. Changing the direction discards the progress made so far.
+ *
+ * Each player is only a field index, a direction and a counter, so a move action costs the same on any map size.
+ * The first player is shown on the board with MY_POSITION, the second with ENEMY_POSITION.
+ */
+public final class MovementState {
+	public static final int PLAYER_ONE = 0;
+	public static final int PLAYER_TWO = 1;
+	private static final EMapNodeAttribute[] POSITION_ATTRIBUTES = { EMapNodeAttribute.MY_POSITION, EMapNodeAttribute.ENEMY_POSITION };
+	private static final EMoveDirection[] DIRECTIONS = EMoveDirection.values();
+	private static final int IMPASSABLE = -1;
+
+	private final int width;
+	private final int height;
+	private final int[] positions = new int[2];
+	private final EMoveDirection[] directions = new EMoveDirection[2];
+	private final int[] progress = new int[2];
+
+	private MovementState(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+     * Creates the movement state of a complete full map, with the players at their current positions and no progress.
+     *
+     * @param fullMap The complete full map.
+     * @return The movement state.
+     */
+	public static MovementState of(PackedBoard fullMap) {
+		MovementState movement = new MovementState(fullMap.getWidth(), fullMap.getHeight());
+		movement.positions[PLAYER_ONE] = findPosition(fullMap, PLAYER_ONE);
+		movement.positions[PLAYER_TWO] = findPosition(fullMap, PLAYER_TWO);
+		return movement;
+	}
+
+	/**
+     * Restores the movement state of a full map with the progress the players had made.
+     *
+     * @param fullMap    The complete full map.
+     * @param directions The ordinal of the direction each player is moving in, -1 if the player has not moved yet.
+     * @param progress   The move actions each player has made in that direction.
+     * @return The movement state.
+     */
+	public static MovementState restore(PackedBoard fullMap, int[] directions, int[] progress) {
+		MovementState movement = of(fullMap);
+		for (int player = PLAYER_ONE; player <= PLAYER_TWO; player++) {
+			movement.directions[player] = directions[player] >= 0 ? DIRECTIONS[directions[player]] : null;
+			movement.progress[player] = progress[player];
+		}
+		return movement;
+	}
+
+	/**
+     * Applies one move action of the player. The target field is checked with the first action in a direction, so an
+     * invalid move is rejected right away.
+     *
+     * @param fullMap   The full map, the position of the player is updated on it once the player arrives.
+     * @param player    PLAYER_ONE or PLAYER_TWO.
+     * @param direction The direction of the move.
+     * @return True if the player has arrived at the next field with this action.
+     * @throws InvalidMoveException If the next field is outside of the map or water.
+     */
+	public boolean applyMove(PackedBoard fullMap, int player, EMoveDirection direction) {
+		int position = positions[player];
+		int x = position % width;
+		int y = position / width;
+		int targetX = x + direction.getDx();
+		int targetY = y + direction.getDy();
+		if (targetX < 0 || targetX >= width || targetY < 0 || targetY >= height) {
+			throw new InvalidMoveException("The move " + direction + " from (" + x + ", " + y + ") leaves the map.");
+		}
+
+		int leaveCost = fieldCost(fullMap.getTerrain(x, y));
+		int enterCost = fieldCost(fullMap.getTerrain(targetX, targetY));
+		if (enterCost == IMPASSABLE) {
+			throw new InvalidMoveException("The move " + direction + " from (" + x + ", " + y + ") leads into water.");
+		}
+
+		if (directions[player] != direction) {
+			directions[player] = direction;
+			progress[player] = 0;
+		}
+		progress[player]++;
+		if (progress[player] < leaveCost + enterCost) {
+			return false;
+		}
+
+		EMapNodeAttribute positionAttribute = POSITION_ATTRIBUTES[player];
+		fullMap.removeAttribute(x, y, positionAttribute);
+		fullMap.addAttribute(targetX, targetY, positionAttribute);
+		positions[player] = targetY * width + targetX;
+		directions[player] = null;
+		progress[player] = 0;
+		return true;
+	}
+
+	// Retrieves the x-coordinate of the player's field.
+	public int getX(int player) {
+		return positions[player] % width;
+	}
+
+	// Retrieves the y-coordinate of the player's field.
+	public int getY(int player) {
+		return positions[player] / width;
+	}
+
+	// Retrieves the ordinal of the direction the player is moving in, -1 if the player has no progress.
+	public int getDirectionOrdinal(int player) {
+		return directions[player] == null ? -1 : directions[player].ordinal();
+	}
+
+	// Retrieves the move actions the player has made towards the next field.
+	public int getProgress(int player) {
+		return progress[player];
+	}
+
+	/*
+	 * From here are the private methods for the MovementState class.
+	 */
+
+	// Finds the field of the player on the full map, done once when the movement state is created.
+	private static int findPosition(PackedBoard fullMap, int player) {
+		for (int y = 0; y < fullMap.getHeight(); y++) {
+			for (int x = 0; x < fullMap.getWidth(); x++) {
+				if (fullMap.hasAttribute(x, y, POSITION_ATTRIBUTES[player])) {
+					return y * fullMap.getWidth() + x;
+				}
+			}
+		}
+		throw new IllegalStateException("The full map does not contain the position of player " + (player + 1) + ".");
+	}
+
+	// Retrieves the cost of leaving or entering a field with the terrain.
+	private static int fieldCost(EMapNodeTerrain terrain) {
+		if (terrain == null) {
+			return IMPASSABLE;
+		}
+		switch (terrain) {
+		case GRASS:
+			return 1;
+		case MOUNTAIN:
+			return 2;
+		default:
+			return IMPASSABLE;
+		}
+	}
+}
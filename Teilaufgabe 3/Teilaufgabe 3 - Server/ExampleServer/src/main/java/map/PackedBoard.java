@@ -0,0 +1,323 @@
+package map;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A map stored in primitive arrays instead of one object per field. The terrain of each field is one byte, and each
+ * attribute (forts, player positions, treasures) is a bitmask with one bit per field. Fields are indexed row by row,
+ * i.e. the index of the field (x, y) is y * width + x.
+ *
+ * Copying a board is copy-on-write: the copy shares the terrain and the chunks of the bitmasks with the original, and
+ * whichever board changes a shared array first copies that array alone. A move only touches a few fields, so a copy
+ * for every published snapshot costs a few chunk references instead of the whole board.
+ *
+ * A board can record the fields where an attribute is actually added or removed, so that the changes between two
+ * snapshots are known from the commands themselves instead of comparing the boards.
+ */
+public class PackedBoard {
+	// The terrain of a field which has not been set, e.g. because the network map did not contain it.
+	private static final byte NO_TERRAIN = -1;
+	private static final EMapNodeTerrain[] TERRAINS = EMapNodeTerrain.values();
+	private static final int NUM_OF_ATTRIBUTES = EMapNodeAttribute.values().length;
+	// The bitmasks are split into chunks of 64 words, i.e. 4096 fields, which are copied on their first write.
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+
+	private final int width;
+	private final int height;
+	private final int numOfWords;
+	private byte[] terrain;
+	private boolean ownsTerrain;
+	private final long[][][] attributeChunks;
+	private final boolean[][] ownedChunks;
+	// The fields where each attribute was flipped since the last drain, null while changes are not recorded.
+	private int[][] flippedFields;
+	private int[] numOfFlippedFields;
+
+	/**
+     * Creates an empty board, no field has a terrain or attribute yet.
+     *
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     */
+	public PackedBoard(int width, int height) {
+		if (width < 1 || height < 1) {
+			throw new IllegalArgumentException("A board needs at least one field, but was " + width + "x" + height + ".");
+		}
+		this.width = width;
+		this.height = height;
+		this.numOfWords = (width * height + 63) >>> 6;
+		this.terrain = new byte[width * height];
+		Arrays.fill(terrain, NO_TERRAIN);
+		this.ownsTerrain = true;
+
+		int numOfChunks = (numOfWords + CHUNK_WORDS - 1) / CHUNK_WORDS;
+		this.attributeChunks = new long[NUM_OF_ATTRIBUTES][numOfChunks][];
+		this.ownedChunks = new boolean[NUM_OF_ATTRIBUTES][numOfChunks];
+		for (int attribute = 0; attribute < NUM_OF_ATTRIBUTES; attribute++) {
+			for (int chunk = 0; chunk < numOfChunks; chunk++) {
+				attributeChunks[attribute][chunk] = new long[Math.min(CHUNK_WORDS, numOfWords - chunk * CHUNK_WORDS)];
+			}
+			Arrays.fill(ownedChunks[attribute], true);
+		}
+	}
+
+	/**
+     * Creates a copy of the given board, which shares all arrays with it until one of the two boards changes them.
+     * The copy does not record changes, even if the original does.
+     *
+     * @param original The board to copy.
+     */
+	public PackedBoard(PackedBoard original) {
+		this.width = original.width;
+		this.height = original.height;
+		this.numOfWords = original.numOfWords;
+		this.terrain = original.terrain;
+		this.ownsTerrain = false;
+		original.ownsTerrain = false;
+
+		this.attributeChunks = new long[NUM_OF_ATTRIBUTES][][];
+		this.ownedChunks = new boolean[NUM_OF_ATTRIBUTES][];
+		for (int attribute = 0; attribute < NUM_OF_ATTRIBUTES; attribute++) {
+			attributeChunks[attribute] = original.attributeChunks[attribute].clone();
+			ownedChunks[attribute] = new boolean[attributeChunks[attribute].length];
+			Arrays.fill(original.ownedChunks[attribute], false);
+		}
+	}
+
+	// Retrieves the number of columns.
+	public int getWidth() {
+		return width;
+	}
+
+	// Retrieves the number of rows.
+	public int getHeight() {
+		return height;
+	}
+
+	// Sets the terrain of the field (x, y).
+	public void setTerrain(int x, int y, EMapNodeTerrain fieldTerrain) {
+		int index = index(x, y);
+		if (!ownsTerrain) {
+			terrain = terrain.clone();
+			ownsTerrain = true;
+		}
+		terrain[index] = (byte) fieldTerrain.ordinal();
+	}
+
+	// Retrieves the terrain of the field (x, y), null if it has not been set.
+	public EMapNodeTerrain getTerrain(int x, int y) {
+		byte code = terrain[index(x, y)];
+		return code == NO_TERRAIN ? null : TERRAINS[code];
+	}
+
+	// Checks if the terrain of every field has been set.
+	public boolean isFullyCovered() {
+		for (byte code : terrain) {
+			if (code == NO_TERRAIN) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Adds an attribute to the field (x, y).
+	public void addAttribute(int x, int y, EMapNodeAttribute attribute) {
+		setBit(attribute.ordinal(), index(x, y), true);
+	}
+
+	// Removes an attribute from the field (x, y).
+	public void removeAttribute(int x, int y, EMapNodeAttribute attribute) {
+		setBit(attribute.ordinal(), index(x, y), false);
+	}
+
+	// Checks if the field (x, y) has the attribute.
+	public boolean hasAttribute(int x, int y, EMapNodeAttribute attribute) {
+		int index = index(x, y);
+		return (attributeChunks[attribute.ordinal()][index >>> CHUNK_SHIFT][(index >>> 6) & (CHUNK_WORDS - 1)] & (1L << index)) != 0;
+	}
+
+	// Checks if any field of the board has the attribute.
+	public boolean hasAnyAttribute(EMapNodeAttribute attribute) {
+		for (long[] chunk : attributeChunks[attribute.ordinal()]) {
+			for (long word : chunk) {
+				if (word != 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+     * Copies the whole given board into this board, with its field (0, 0) placed at (offsetX, offsetY). The terrain
+     * is copied row by row, the attributes bit by bit for the few fields which have one.
+     *
+     * @param source  The board to copy.
+     * @param offsetX The column of this board where the first column of the source is placed.
+     * @param offsetY The row of this board where the first row of the source is placed.
+     */
+	public void copyFrom(PackedBoard source, int offsetX, int offsetY) {
+		if (offsetX < 0 || offsetY < 0 || offsetX + source.width > width || offsetY + source.height > height) {
+			throw new IllegalArgumentException("A " + source.width + "x" + source.height + " board does not fit into a "
+					+ width + "x" + height + " board at (" + offsetX + ", " + offsetY + ").");
+		}
+		if (!ownsTerrain) {
+			terrain = terrain.clone();
+			ownsTerrain = true;
+		}
+		for (int row = 0; row < source.height; row++) {
+			System.arraycopy(source.terrain, row * source.width, terrain, index(offsetX, offsetY + row), source.width);
+		}
+		for (int attribute = 0; attribute < NUM_OF_ATTRIBUTES; attribute++) {
+			for (int word = 0; word < source.numOfWords; word++) {
+				long bits = source.attributeChunks[attribute][word / CHUNK_WORDS][word % CHUNK_WORDS];
+				while (bits != 0) {
+					int sourceIndex = (word << 6) + Long.numberOfTrailingZeros(bits);
+					setBit(attribute, index(offsetX + sourceIndex % source.width, offsetY + sourceIndex / source.width), true);
+					bits &= bits - 1;
+				}
+			}
+		}
+	}
+
+	/**
+     * Starts recording the fields where an attribute is added or removed. Recording again discards what was recorded
+     * so far, e.g. once the board has become the full map of a game.
+     */
+	public void recordChanges() {
+		flippedFields = new int[NUM_OF_ATTRIBUTES][8];
+		numOfFlippedFields = new int[NUM_OF_ATTRIBUTES];
+	}
+
+	// Checks if the board records the fields where an attribute is added or removed.
+	public boolean isRecordingChanges() {
+		return flippedFields != null;
+	}
+
+	/**
+     * Retrieves the fields whose attribute differs from the last drain, i.e. where it was added or removed, and starts
+     * the next recording. A field whose attribute was added and removed again in between has not changed. The
+     * terrain is not recorded, it does not change once the board is complete.
+     *
+     * @param attribute The attribute to retrieve the changes of.
+     * @return The indices y * width + x of the changed fields in ascending order, empty if changes are not recorded.
+     */
+	public int[] drainChangedFields(EMapNodeAttribute attribute) {
+		if (flippedFields == null) {
+			return new int[0];
+		}
+		int ordinal = attribute.ordinal();
+		int[] flipped = Arrays.copyOf(flippedFields[ordinal], numOfFlippedFields[ordinal]);
+		numOfFlippedFields[ordinal] = 0;
+		Arrays.sort(flipped);
+
+		// Each flip toggles the field, so only the fields flipped an odd number of times have changed.
+		int numOfChanged = 0;
+		for (int start = 0; start < flipped.length;) {
+			int end = start;
+			while (end < flipped.length && flipped[end] == flipped[start]) {
+				end++;
+			}
+			if (((end - start) & 1) == 1) {
+				flipped[numOfChanged++] = flipped[start];
+			}
+			start = end;
+		}
+		return Arrays.copyOf(flipped, numOfChanged);
+	}
+
+	/**
+     * Writes the board in its packed form: the size, the terrain bytes and the attribute bitmasks.
+     *
+     * @param output The output to write to.
+     * @throws IOException If writing fails.
+     */
+	public void writeTo(DataOutput output) throws IOException {
+		output.writeInt(width);
+		output.writeInt(height);
+		output.write(terrain);
+		output.writeByte(NUM_OF_ATTRIBUTES);
+		for (long[][] chunks : attributeChunks) {
+			for (long[] chunk : chunks) {
+				for (long word : chunk) {
+					output.writeLong(word);
+				}
+			}
+		}
+	}
+
+	/**
+     * Reads a board written by {@link #writeTo(DataOutput)}.
+     *
+     * @param input The input to read from.
+     * @return The board.
+     * @throws IOException If reading fails or the data is not a board.
+     */
+	public static PackedBoard readFrom(DataInput input) throws IOException {
+		int width = input.readInt();
+		int height = input.readInt();
+		if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IOException("A stored board has the invalid size " + width + "x" + height + ".");
+		}
+		PackedBoard board = new PackedBoard(width, height);
+		input.readFully(board.terrain);
+		if (input.readUnsignedByte() != NUM_OF_ATTRIBUTES) {
+			throw new IOException("A stored board has a different number of attributes.");
+		}
+		for (long[][] chunks : board.attributeChunks) {
+			for (long[] chunk : chunks) {
+				for (int word = 0; word < chunk.length; word++) {
+					chunk[word] = input.readLong();
+				}
+			}
+		}
+		return board;
+	}
+
+	/*
+	 * From here are the private methods for the PackedBoard class.
+	 */
+
+	// Retrieves the index of the field (x, y).
+	private int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			throw new IndexOutOfBoundsException("The field (" + x + ", " + y + ") is outside of the " + width + "x" + height + " board.");
+		}
+		return y * width + x;
+	}
+
+	/**
+     * Sets the bit of an attribute of a field. A bit which already has the value is left alone, so that neither its
+     * chunk is copied nor a change is recorded. Otherwise a shared chunk is copied before it is written.
+     *
+     * @param attribute The ordinal of the attribute.
+     * @param index     The index of the field.
+     * @param value     True to add the attribute, false to remove it.
+     */
+	private void setBit(int attribute, int index, boolean value) {
+		int chunkIndex = index >>> CHUNK_SHIFT;
+		int word = (index >>> 6) & (CHUNK_WORDS - 1);
+		long bit = 1L << index;
+		long[] chunk = attributeChunks[attribute][chunkIndex];
+		if (((chunk[word] & bit) != 0) == value) {
+			return;
+		}
+		if (!ownedChunks[attribute][chunkIndex]) {
+			chunk = chunk.clone();
+			attributeChunks[attribute][chunkIndex] = chunk;
+			ownedChunks[attribute][chunkIndex] = true;
+		}
+		chunk[word] ^= bit;
+
+		if (flippedFields != null) {
+			if (numOfFlippedFields[attribute] == flippedFields[attribute].length) {
+				flippedFields[attribute] = Arrays.copyOf(flippedFields[attribute], flippedFields[attribute].length * 2);
+			}
+			flippedFields[attribute][numOfFlippedFields[attribute]++] = index;
+		}
+	}
+}
@@ -2,7 +2,7 @@ package map;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +11,10 @@ import server.exceptions.TooManyHalfMapsException;
 
 public class ServerFullMap {
 	private final static Logger logger = LoggerFactory.getLogger(ServerFullMap.class);
-	Random random = new Random();
 	
 	private final List<HalfMap> halfMaps = new ArrayList<>();
-	private MapNode[][] fullMap;
+	private PackedBoard fullMap;
+	private VisibilityMasks visibilityMasks;
 	private final String gameId;
 	private boolean isComplete;
 	
@@ -26,6 +26,21 @@ public class ServerFullMap {
 		this.fullMap = null;
 	}
     
+    /**
+     * Restores a full map from the journal after a restart, without combining the half maps again.
+     *
+     * @param halfMaps The half maps in the order they were sent.
+     * @param fullMap  The combined full map, or null if the second half map is still missing.
+     * @param gameId   The ID of the game the full map belongs to.
+     */
+    public ServerFullMap(List<HalfMap> halfMaps, PackedBoard fullMap, String gameId) {
+    	this.gameId = gameId;
+    	this.halfMaps.addAll(halfMaps);
+    	this.isComplete = fullMap != null;
+    	this.fullMap = fullMap;
+    	this.visibilityMasks = fullMap != null ? new VisibilityMasks(fullMap) : null;
+    }
+    
     // Retrieves the list of half maps.
 	public List<HalfMap> getHalfMaps() {
 		return new ArrayList<>(halfMaps);
@@ -41,38 +56,35 @@ public class ServerFullMap {
 		return isComplete;
 	}
 	
-	// Sets the full map completion status.
-	public void setComplete(boolean isComplete) {
-		this.isComplete = isComplete;
-	}
-	
 	/**
      * Adds a half map to the full map. If the full map becomes complete after adding the half map,
-     * it combines the half maps into a full map.
+     * it combines the half maps into a full map and computes what the players see from each of its fields.
      *
      * @param halfMap The half map to add.
+     * @param random  The generator which decides how the half maps are combined.
      * @throws TooManyHalfMapsException If more than two half maps are added.
      */
-	public void addHalfMap(HalfMap halfMap) {
+	public void addHalfMap(HalfMap halfMap, SplittableRandom random) {
 		if (halfMaps.size() >= 2) {
             throw new TooManyHalfMapsException("One game should have only maximal 2 halfMaps.");
         }
 		
 		halfMaps.add(halfMap);
 		isComplete=true;
-		MapNode[][] completedFullMap = combineHalfMaps();
+		PackedBoard completedFullMap = combineHalfMaps(random);
 		this.fullMap = completedFullMap;
+		this.visibilityMasks = new VisibilityMasks(completedFullMap);
 		logger.info("Game with id: " + gameId + " has now a complete fullMap!");
 	}
 	
 	// Retrieves the full map.
-	public MapNode[][] getFullMap() {
+	public PackedBoard getFullMap() {
 		return fullMap;
 	}
 
-	// Sets the full map.
-	public void setFullMap(MapNode[][] fullMap) {
-		this.fullMap = fullMap;
+	// Retrieves the fields the players see from each field of the full map, null if it is not complete yet.
+	public VisibilityMasks getVisibilityMasks() {
+		return visibilityMasks;
 	}
 
 	/* 
@@ -83,12 +95,13 @@ public class ServerFullMap {
      * Combines the two half maps into a full map. The combination can be either vertical or horizontal,
      * and the order of the half maps is randomized.
      *
+     * @param random The generator which decides the combination and the order.
      * @return The combined full map.
      */
-	private MapNode[][] combineHalfMaps() {
+	private PackedBoard combineHalfMaps(SplittableRandom random) {
         boolean randomMapType = random.nextBoolean();
-        MapNode[][] halfMap1 = halfMaps.get(0).getHalfMap();
-        MapNode[][] halfMap2 = halfMaps.get(1).getHalfMap();
+        PackedBoard halfMap1 = halfMaps.get(0).getHalfMap();
+        PackedBoard halfMap2 = halfMaps.get(1).getHalfMap();
         boolean randomHalfMap = random.nextBoolean();
 
         if (randomMapType) {
@@ -107,40 +120,32 @@ public class ServerFullMap {
     }
 
 	/**
-     * Combines two half maps vertically. The resulting full map has a size of 10x10.
+     * Combines two half maps vertically. The resulting full map has twice the rows of a half map, e.g. 10x10 for the
+     * default half maps.
      *
      * @param topHalf    The top half of the map.
      * @param bottomHalf The bottom half of the map.
      * @return The combined full map.
      */
-    private MapNode[][] combineVertically(MapNode[][] topHalf, MapNode[][] bottomHalf) {
-    	final int ROWS = 5;
-        final int COLS = 10;
-        MapNode[][] combinedMap = new MapNode[ROWS * 2][COLS];
-        for (int i = 0; i < ROWS; i++) {
-            System.arraycopy(topHalf[i], 0, combinedMap[i], 0, COLS);
-        }
-        for (int i = 0; i < ROWS; i++) {
-            System.arraycopy(bottomHalf[i], 0, combinedMap[i + ROWS], 0, COLS);
-        }
+    private PackedBoard combineVertically(PackedBoard topHalf, PackedBoard bottomHalf) {
+        PackedBoard combinedMap = new PackedBoard(topHalf.getWidth(), topHalf.getHeight() + bottomHalf.getHeight());
+        combinedMap.copyFrom(topHalf, 0, 0);
+        combinedMap.copyFrom(bottomHalf, 0, topHalf.getHeight());
         return combinedMap;
     }
 
     /**
-     * Combines two half maps horizontally. The resulting full map has a size of 5x20.
+     * Combines two half maps horizontally. The resulting full map has twice the columns of a half map, e.g. 5x20 for
+     * the default half maps.
      *
      * @param leftHalf  The left half of the map.
      * @param rightHalf The right half of the map.
      * @return The combined full map.
      */
-    private MapNode[][] combineHorizontally(MapNode[][] leftHalf, MapNode[][] rightHalf) {
-    	final int ROWS = 5;
-        final int COLS = 10;
-        MapNode[][] combinedMap = new MapNode[ROWS][COLS * 2];
-        for (int i = 0; i < ROWS; i++) {
-            System.arraycopy(leftHalf[i], 0, combinedMap[i], 0, COLS);
-            System.arraycopy(rightHalf[i], 0, combinedMap[i], COLS, COLS);
-        }
+    private PackedBoard combineHorizontally(PackedBoard leftHalf, PackedBoard rightHalf) {
+        PackedBoard combinedMap = new PackedBoard(leftHalf.getWidth() + rightHalf.getWidth(), leftHalf.getHeight());
+        combinedMap.copyFrom(leftHalf, 0, 0);
+        combinedMap.copyFrom(rightHalf, leftHalf.getWidth(), 0);
         return combinedMap;
     }
 
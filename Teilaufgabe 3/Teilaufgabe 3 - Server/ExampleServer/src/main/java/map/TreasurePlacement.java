@@ -0,0 +1,90 @@
+package map;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places the treasure of a player on their half map once it is accepted. The treasure lies on a grass field which
+ * can be reached from the fort of the player, but never on the fort itself.
+ *
+ * The candidates are ordered by their index y * width + x and the generator of the game picks one of them, so the
+ * field only depends on the half map and the seed of the game. Replaying a game with the same seed places the
+ * treasure on the same field, which makes the choice verifiable.
+ */
+public final class TreasurePlacement {
+
+	private TreasurePlacement() {}
+
+	/**
+     * Places the treasure on a grass field of the half map which can be reached from the fort.
+     *
+     * @param halfMap           The accepted half map.
+     * @param fortAttribute     The attribute of the fort of the player the half map belongs to.
+     * @param treasureAttribute The attribute of the treasure of that player.
+     * @param random            The generator which picks the field.
+     * @return The index y * width + x of the field of the treasure, or -1 if there is no field to place it on.
+     */
+	public static int placeTreasure(PackedBoard halfMap, EMapNodeAttribute fortAttribute, EMapNodeAttribute treasureAttribute,
+			SplittableRandom random) {
+		int width = halfMap.getWidth();
+		int height = halfMap.getHeight();
+		long[] land = new long[(width * height + 63) >>> 6];
+		long[] grass = new long[land.length];
+		int fort = -1;
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int index = y * width + x;
+				EMapNodeTerrain terrain = halfMap.getTerrain(x, y);
+				if (terrain == EMapNodeTerrain.GRASS) {
+					grass[index >>> 6] |= 1L << index;
+				}
+				if (terrain == EMapNodeTerrain.GRASS || terrain == EMapNodeTerrain.MOUNTAIN) {
+					land[index >>> 6] |= 1L << index;
+				}
+				if (halfMap.hasAttribute(x, y, fortAttribute)) {
+					fort = index;
+				}
+			}
+		}
+		if (fort < 0) {
+			return -1;
+		}
+
+		// The candidates are the reachable grass fields without the fort.
+		long[] candidates = LandConnectivity.findReachable(land, width, height, fort);
+		candidates[fort >>> 6] &= ~(1L << fort);
+		int numOfCandidates = 0;
+		for (int word = 0; word < candidates.length; word++) {
+			candidates[word] &= grass[word];
+			numOfCandidates += Long.bitCount(candidates[word]);
+		}
+		if (numOfCandidates == 0) {
+			return -1;
+		}
+
+		int field = findSetBit(candidates, random.nextInt(numOfCandidates));
+		halfMap.addAttribute(field % width, field / width, treasureAttribute);
+		return field;
+	}
+
+	/*
+	 * From here are the private methods for the TreasurePlacement class.
+	 */
+
+	// Finds the index of the n-th set bit of the bitset, counting from zero.
+	private static int findSetBit(long[] bits, int n) {
+		int remaining = n;
+		for (int word = 0; word < bits.length; word++) {
+			int numInWord = Long.bitCount(bits[word]);
+			if (remaining < numInWord) {
+				long wordBits = bits[word];
+				for (int skipped = 0; skipped < remaining; skipped++) {
+					wordBits &= wordBits - 1;
+				}
+				return (word << 6) + Long.numberOfTrailingZeros(wordBits);
+			}
+			remaining -= numInWord;
+		}
+		throw new IllegalArgumentException("The bitset has less than " + (n + 1) + " set bits.");
+	}
+}
@@ -0,0 +1,63 @@
+package map;
+
+/**
+ * The fields a player sees from each field of a complete full map, computed once when the full map is complete. A
+ * player on a mountain sees the 3x3 fields around it, a player on any other field only sees the field itself.
+ *
+ * The mask of a field has one bit for each of the 3x3 fields around it which is inside the map, so revealing the
+ * fields seen from a position is a lookup and at most nine bits, instead of checking the terrain and the borders of
+ * the map with every move.
+ */
+public final class VisibilityMasks {
+	// The bit of the field itself, the bits are ordered row by row from the upper left neighbour.
+	private static final int CENTER = 1 << 4;
+
+	private final int width;
+	private final short[] masks;
+
+	/**
+     * Computes the mask of each field of the full map.
+     *
+     * @param fullMap The complete full map.
+     */
+	public VisibilityMasks(PackedBoard fullMap) {
+		this.width = fullMap.getWidth();
+		int height = fullMap.getHeight();
+		this.masks = new short[width * height];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (fullMap.getTerrain(x, y) != EMapNodeTerrain.MOUNTAIN) {
+					masks[y * width + x] = CENTER;
+					continue;
+				}
+				int mask = 0;
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if (x + dx >= 0 && x + dx < width && y + dy >= 0 && y + dy < height) {
+							mask |= 1 << ((dy + 1) * 3 + dx + 1);
+						}
+					}
+				}
+				masks[y * width + x] = (short) mask;
+			}
+		}
+	}
+
+	/**
+     * Adds the fields seen from the field (x, y) to the fields the player has revealed.
+     *
+     * @param fullMap           The full map the masks were computed for.
+     * @param x                 The x-coordinate of the player.
+     * @param y                 The y-coordinate of the player.
+     * @param revealedAttribute The attribute which marks the fields the player has revealed.
+     */
+	public void reveal(PackedBoard fullMap, int x, int y, EMapNodeAttribute revealedAttribute) {
+		int mask = masks[y * width + x];
+		while (mask != 0) {
+			int bit = Integer.numberOfTrailingZeros(mask);
+			fullMap.addAttribute(x + bit % 3 - 1, y + bit / 3 - 1, revealedAttribute);
+			mask &= mask - 1;
+		}
+	}
+}
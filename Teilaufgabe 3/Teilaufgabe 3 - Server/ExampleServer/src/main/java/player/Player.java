@@ -5,15 +5,17 @@ import java.util.List;
 public class Player {
 	private final String gameId;
 	private final String playerId;
+	private final String maskedPlayerId;
 	private final String firstName;
 	private final String lastName;
 	private final String UAccount;
-	private EServerPlayerGameState playerGameState;
-	private boolean collectedTreasure;
+	private volatile EServerPlayerGameState playerGameState;
+	private volatile boolean collectedTreasure;
 	
-	public Player(String gameId, String playerId, List<String> playerInfo) {
+	public Player(String gameId, String playerId, String maskedPlayerId, List<String> playerInfo) {
 		this.gameId = gameId;
 		this.playerId = playerId;
+		this.maskedPlayerId = maskedPlayerId;
 		this.firstName = playerInfo.get(0);
 		this.lastName = playerInfo.get(1);
 		this.UAccount = playerInfo.get(2);
@@ -21,22 +23,6 @@ public class Player {
 		this.collectedTreasure = false;
 	}
 
-	/**
-     * Constructs a backup Player instance with a random player ID to hide the original player ID.
-     *
-     * @param backupPlayer   The original player instance to create a backup from.
-     * @param randomPlayerId The random player ID to assign to the backup player.
-     */
-	public Player(Player backupPlayer, String randomPLayerId) {
-		this.gameId = backupPlayer.gameId;
-		this.playerId = randomPLayerId;
-		this.firstName = backupPlayer.firstName;
-		this.lastName = backupPlayer.lastName;
-		this.UAccount = backupPlayer.UAccount;
-		this.playerGameState = backupPlayer.playerGameState;
-		this.collectedTreasure = backupPlayer.collectedTreasure;
-	}
-	
 	// Checks if it is the player's turn by verifying if the player game state is 'MustAct'.
 	public boolean isTurn() {
 		if(playerGameState == EServerPlayerGameState.MustAct) {
@@ -90,4 +76,9 @@ public class Player {
 		return playerId;
 	}
 
+	// Retrieves the ID shown to the opponent instead of the player's ID, it stays the same for the whole game.
+	public String getMaskedPlayerId() {
+		return maskedPlayerId;
+	}
+
 }
@@ -1,21 +1,29 @@
 package player;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.stereotype.Component;
+
 import game.GameController;
+import game.GameSnapshot;
 
+@Component
 public class PlayerController {
-	private static List<Player> activePlayers = new ArrayList<Player>();
+	private final PlayerRegistry activePlayers = new PlayerRegistry();
 	private final GameController gameController;
 	
-	public PlayerController() {
-		gameController = new GameController();
+	public PlayerController(GameController gameController) {
+		this.gameController = gameController;
+		// Players are released together with their game.
+		gameController.addGameRemovalListener(activePlayers);
 	};
 	
 	/**
-     * Creates a new player, adds them to the active players list, and associates them with the specified game.
+     * Creates a new player, adds them to the active players registry, and associates them with the specified game.
      * Generates a unique player ID.
      *
      * @param gameId     The ID of the game the player is joining.
@@ -23,18 +31,17 @@ public class PlayerController {
      * @return The unique player ID for the new player.
      */
 	public String createNewPlayer(String gameId, List<String> playerInfo) {
-		String playerId = generatePlayerId();
-		
-		// Ensure the generated player ID is unique.
-		while(checkPlayerIDUsed(playerId)) {
-			playerId = generatePlayerId();
+		// Ensure the generated player ID is unique, the registry refuses IDs which are already in use.
+		// The masked ID hides the player ID from the opponent, it is created once and shown for the whole game.
+		String maskedPlayerId = generatePlayerId();
+		Player player = new Player(gameId,generatePlayerId(),maskedPlayerId,playerInfo);
+		while(!activePlayers.register(player)) {
+			player = new Player(gameId,generatePlayerId(),maskedPlayerId,playerInfo);
 		}
 		
-        Player player = new Player(gameId,playerId,playerInfo);
-        activePlayers.add(player);
         gameController.addPlayer(gameId,player);
         
-        return playerId;
+        return player.getPlayerId();
 	}
 
 	/**
@@ -44,12 +51,19 @@ public class PlayerController {
      * @return True if the player ID is in use, false otherwise.
      */
 	public boolean checkPlayerIDUsed(String playerId) {
-		for (Player player : activePlayers) {
-			if (player.getPlayerId().equals(playerId)) {
-				return true;
-			}
-		}
-		return false;
+		return activePlayers.contains(playerId);
+	}
+	
+	/**
+     * Checks if the specified player was registered for the specified game.
+     *
+     * @param playerId The ID of the player to check.
+     * @param gameId   The ID of the game.
+     * @return True if the player belongs to the game, false otherwise.
+     */
+	public boolean isPlayerInGame(String playerId, String gameId) {
+		Player player = activePlayers.find(playerId);
+		return player != null && player.getGameId().equals(gameId);
 	}
 	
 	/**
@@ -59,51 +73,72 @@ public class PlayerController {
      * @return True if it is the player's turn, false otherwise.
      */
 	public boolean isTurn(String playerId) {
-		for (Player player : activePlayers) {
-			if (player.getPlayerId().equals(playerId)) {
-				if(player.isTurn())
-					return true;
-			}
-		}
-		return false;
+		Player player = activePlayers.find(playerId);
+		return player != null && player.isTurn();
 	}
 	
 	/**
-     * Retrieves the states of the players in the specified game, including the requesting player and their opponent.
-     * The opponent's player ID is masked for privacy.
+     * Retrieves the states of the players from a snapshot of their game, including the requesting player and their
+     * opponent. The opponent's player ID is masked for privacy, with the masked ID created when the opponent registered.
      *
-     * @param gameId   The ID of the game.
+     * @param snapshot The snapshot of the game.
      * @param playerId The ID of the requesting player.
-     * @return A list of players, including the requesting player and a masked opponent.
+     * @return A list of player snapshots, including the requesting player and a masked opponent.
      */
-	public List<Player> getPlayerState(String gameId, String playerId) {
-		List<Player> playerStates = new ArrayList<Player>();
+	public List<PlayerSnapshot> getPlayerState(GameSnapshot snapshot, String playerId) {
+		List<PlayerSnapshot> playerStates = new ArrayList<PlayerSnapshot>();
 		
-		// Get the state of the requested player.
-		for(Player player : activePlayers) {
-			if(player.getGameId().equals(gameId)) {
-				if(player.getPlayerId().equals(playerId)) {
-					playerStates.add(player);
-				}
+		// Get the state of the requested player first, followed by the opponent player with a masked player ID.
+		for(PlayerSnapshot player : snapshot.getPlayers()) {
+			if(player.getPlayerId().equals(playerId)) {
+				playerStates.add(0, player);
+			} else {
+				playerStates.add(player.getOpponentView());
 			}
 		}
 		
-		// Get the state of the opponent player, masking their player ID.
-		for(Player player : activePlayers) {
-			if(player.getGameId().equals(gameId)) {
-				if(!player.getPlayerId().equals(playerId)) {
-					// Create a masked player for the opponent.
-					Player backupPlayer = new Player(player,generatePlayerId());
-					playerStates.add(backupPlayer);
-				}
+		return playerStates;
+	}
+	
+	/**
+     * Retrieves the states of the given players from a snapshot of their game, in the same order and with the same
+     * masking as {@link #getPlayerState(GameSnapshot, String)}.
+     *
+     * @param snapshot          The snapshot of the game.
+     * @param playerId          The ID of the requesting player.
+     * @param includedPlayerIds The IDs of the players to include, e.g. the players whose state has changed.
+     * @return A list of player snapshots of the included players.
+     */
+	public List<PlayerSnapshot> getPlayerState(GameSnapshot snapshot, String playerId, Set<String> includedPlayerIds) {
+		List<PlayerSnapshot> playerStates = new ArrayList<PlayerSnapshot>();
+		
+		for(PlayerSnapshot player : snapshot.getPlayers()) {
+			if(!includedPlayerIds.contains(player.getPlayerId())) {
+				continue;
+			}
+			if(player.getPlayerId().equals(playerId)) {
+				playerStates.add(0, player);
+			} else {
+				playerStates.add(player.getOpponentView());
 			}
 		}
 		
 		return playerStates;
 	}
 
-	public List<Player> getActivePlayers() {
-		return activePlayers;
+	/**
+     * Registers a player restored from the journal after a restart. The player is not added to their game again, the
+     * restored game already contains them.
+     *
+     * @param player The restored player.
+     * @return True if the player was registered, false if their player ID is already in use.
+     */
+	public boolean restorePlayer(Player player) {
+		return activePlayers.register(player);
+	}
+
+	public Collection<Player> getActivePlayers() {
+		return activePlayers.getPlayers();
 	}
 
 	/* 
@@ -0,0 +1,91 @@
+package player;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import game.Game;
+import game.IGameRemovalListener;
+
+/**
+ * Keeps the registered players indexed by their player ID and by the game they belong to. Players are released
+ * together with their game once it is removed from the active games.
+ */
+public class PlayerRegistry implements IGameRemovalListener {
+	private final Map<String, Player> playersById = new ConcurrentHashMap<>();
+	private final Map<String, List<Player>> playersByGame = new ConcurrentHashMap<>();
+
+	/**
+     * Registers a new player under its player ID and under the game it belongs to.
+     *
+     * @param player The player to register.
+     * @return True if the player was registered, false if its player ID is already in use.
+     */
+	public boolean register(Player player) {
+		if (playersById.putIfAbsent(player.getPlayerId(), player) != null) {
+			return false;
+		}
+		playersByGame.computeIfAbsent(player.getGameId(), gameId -> new CopyOnWriteArrayList<>()).add(player);
+		return true;
+	}
+
+	/**
+     * Finds the player with the given ID.
+     *
+     * @param playerId The player ID.
+     * @return The player if found, null otherwise.
+     */
+	public Player find(String playerId) {
+		if (playerId == null) {
+			return null;
+		}
+		return playersById.get(playerId);
+	}
+
+	// Checks if a player with the given ID is registered.
+	public boolean contains(String playerId) {
+		return find(playerId) != null;
+	}
+
+	/**
+     * Retrieves the players registered for the given game, in the order of their registration.
+     *
+     * @param gameId The game ID.
+     * @return A read-only list of the players, empty if no player is registered for the game.
+     */
+	public List<Player> getPlayersOfGame(String gameId) {
+		List<Player> players = (gameId == null) ? null : playersByGame.get(gameId);
+		if (players == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(players);
+	}
+
+	/**
+     * Removes all players registered for the given game.
+     *
+     * @param gameId The game ID.
+     */
+	public void removePlayersOfGame(String gameId) {
+		List<Player> players = playersByGame.remove(gameId);
+		if (players != null) {
+			for (Player player : players) {
+				playersById.remove(player.getPlayerId());
+			}
+		}
+	}
+
+	// Releases the players of a game which was removed from the active games.
+	@Override
+	public void onGameRemoved(Game game) {
+		removePlayersOfGame(game.getGameId());
+	}
+
+	// Retrieves a read-only view of all registered players.
+	public Collection<Player> getPlayers() {
+		return Collections.unmodifiableCollection(playersById.values());
+	}
+}
@@ -0,0 +1,83 @@
+package player;
+
+/**
+ * An immutable copy of the state of a player at the time a game snapshot was published.
+ */
+public final class PlayerSnapshot {
+	private final String gameId;
+	private final String playerId;
+	private final String firstName;
+	private final String lastName;
+	private final String UAccount;
+	private final EServerPlayerGameState playerGameState;
+	private final boolean collectedTreasure;
+	private final PlayerSnapshot opponentView;
+
+	public PlayerSnapshot(Player player) {
+		this.gameId = player.getGameId();
+		this.playerId = player.getPlayerId();
+		this.firstName = player.getFirstName();
+		this.lastName = player.getLastName();
+		this.UAccount = player.getUAccount();
+		this.playerGameState = player.getPlayerGameState();
+		this.collectedTreasure = player.isCollectedTreasure();
+		this.opponentView = new PlayerSnapshot(this, player.getMaskedPlayerId());
+	}
+
+	/**
+     * Constructs a copy of the snapshot with another player ID, used to hide the player ID from the opponent.
+     *
+     * @param original       The snapshot to copy.
+     * @param maskedPlayerId The player ID shown instead of the original one.
+     */
+	private PlayerSnapshot(PlayerSnapshot original, String maskedPlayerId) {
+		this.gameId = original.gameId;
+		this.playerId = maskedPlayerId;
+		this.firstName = original.firstName;
+		this.lastName = original.lastName;
+		this.UAccount = original.UAccount;
+		this.playerGameState = original.playerGameState;
+		this.collectedTreasure = original.collectedTreasure;
+		this.opponentView = this;
+	}
+
+	// Retrieves the game ID associated with the player.
+	public String getGameId() {
+		return gameId;
+	}
+
+	// Retrieves the player's ID.
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	// Retrieves the player's first name.
+	public String getFirstName() {
+		return firstName;
+	}
+
+	// Retrieves the player's last name.
+	public String getLastName() {
+		return lastName;
+	}
+
+	// Retrieves the player's UAccount.
+	public String getUAccount() {
+		return UAccount;
+	}
+
+	// Retrieves the player's game state.
+	public EServerPlayerGameState getPlayerGameState() {
+		return playerGameState;
+	}
+
+	// Checks if the player has collected a treasure.
+	public boolean isCollectedTreasure() {
+		return collectedTreasure;
+	}
+
+	// Retrieves the snapshot as the opponent sees it, with the masked player ID. It is created together with the snapshot.
+	public PlayerSnapshot getOpponentView() {
+		return opponentView;
+	}
+}
@@ -1,7 +1,6 @@
 package rules;
 
-import map.MapNode;
-import map.EMapNodeTerrain;
+import map.MapSurvey;
 import server.exceptions.InvalidMapException;
 
 /**
@@ -10,38 +9,30 @@ import server.exceptions.InvalidMapException;
  * 
  * Ensures that at least 51% of the fields on each edge of the half map are accessible.
  */
-public class EdgeWaterCountRule implements IBusinessRule<MapNode[][]> {
+public class EdgeWaterCountRule implements IBusinessRule<MapSurvey> {
+	private static final int MIN_ACCESSIBLE_PERCENT = 51;
 
 	/**
-     * Validates the given map to enruse that the number of water nodes on the edges of the map compliance with the rule.
+     * Validates the surveyed map to enruse that the number of water nodes on the edges of the map compliance with the rule.
      *
-     * @param map The half map to validate.
+     * @param map The survey of the half map to validate.
      * @throws InvalidMapException If the map does not comply with the edge water count rule.
      */
     @Override
-    public void validate(MapNode[][] map) throws InvalidMapException {
-    	int numOfLeftWater = 0;
-        int numOfRightWater = 0;
-        for (int y = 0; y < 5; y++) {
-            if (map[y][0].getTerrain() == EMapNodeTerrain.WATER)
-                numOfLeftWater++;
-            if (map[y][9].getTerrain() == EMapNodeTerrain.WATER)
-                numOfRightWater++;
-        }
-        if (numOfLeftWater > 2 || numOfRightWater > 2) {
+    public void validate(MapSurvey map) throws InvalidMapException {
+        int maxColumnWater = maxEdgeWater(map.getHeight());
+        int maxRowWater = maxEdgeWater(map.getWidth());
+        if (map.getNumOfLeftEdgeWater() > maxColumnWater || map.getNumOfRightEdgeWater() > maxColumnWater) {
             throw new InvalidMapException("At least 51% of the fields on each edge must be accessible.");
         }
-
-        int numOfTopWater = 0;
-        int numOfBttmWater = 0;
-        for (int x = 0; x < 10; x++) {
-            if (map[0][x].getTerrain() == EMapNodeTerrain.WATER)
-                numOfTopWater++;
-            if (map[4][x].getTerrain() == EMapNodeTerrain.WATER)
-                numOfBttmWater++;
-        }
-        if (numOfTopWater > 4 || numOfBttmWater > 4) {
+        if (map.getNumOfTopEdgeWater() > maxRowWater || map.getNumOfBottomEdgeWater() > maxRowWater) {
             throw new InvalidMapException("At least 51% of the fields on each edge must be accessible.");
         }
     }
+
+    // Retrieves the maximal number of water fields on an edge, e.g. 2 on an edge of 5 fields and 4 on an edge of 10.
+    public static int maxEdgeWater(int edgeLength) {
+    	int minAccessible = (edgeLength * MIN_ACCESSIBLE_PERCENT + 99) / 100;
+    	return edgeLength - minAccessible;
+    }
 }
@@ -1,7 +1,6 @@
 package rules;
 
-import map.EMapNodeAttribute;
-import map.MapNode;
+import map.MapSurvey;
 import server.exceptions.InvalidMapException;
 
 /**
@@ -10,24 +9,18 @@ import server.exceptions.InvalidMapException;
  * 
  * Ensures that each half map contains at least one fort.
  */
-public class FortExistsRule implements IBusinessRule<MapNode[][]> {
+public class FortExistsRule implements IBusinessRule<MapSurvey> {
 
 	/**
-     * Validates the given map to ensure it contains at least one fort.
+     * Validates the surveyed half map to ensure it contains at least one fort.
      *
-     * @param map The half map to validate.
+     * @param map The survey of the half map to validate.
      * @throws InvalidMapException If the map does not contain a fort.
      */
     @Override
-    public void validate(MapNode[][] map) throws InvalidMapException {
-        for (int xCoordinate = 0; xCoordinate < 10; xCoordinate++) {
-            for (int yCoordinate = 0; yCoordinate < 5; yCoordinate++) {
-                if (map[yCoordinate][xCoordinate].hasAttribute(EMapNodeAttribute.MY_FORT) ||
-                    map[yCoordinate][xCoordinate].hasAttribute(EMapNodeAttribute.ENEMY_FORT)) {
-                    return;
-                }
-            }
+    public void validate(MapSurvey map) throws InvalidMapException {
+        if (map.getNumOfForts() < 1) {
+            throw new InvalidMapException("The HalfMap does not contain a fort.");
         }
-        throw new InvalidMapException("The HalfMap does not contain a fort.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package rules;
+
+import org.springframework.stereotype.Component;
+
+import game.GameController;
+import server.exceptions.GameNotReadyException;
+
+/**
+ * Implements the business rule that the game itself only starts once both half maps have been exchanged.
+ * 
+ * Ensures that the players only move once both half maps have been combined into the full map.
+ */
+@Component
+public class FullMapCompleteRule implements IBusinessRule<String> {
+    private final GameController gameController;
+
+    public FullMapCompleteRule(GameController gameController) {
+        this.gameController = gameController;
+    }
+
+    /**
+     * Validates that the full map of the specified game is complete.
+     *
+     * @param gameId The ID of the game to validate.
+     * @throws GameNotReadyException If the full map is not complete yet.
+     */
+    @Override
+    public void validate(String gameId) throws GameNotReadyException {
+        if (!gameController.isFullMapComplete(gameId)) {
+            throw new GameNotReadyException("The game with GameId: " + gameId + " has no complete map yet, both half maps must be sent before moving.");
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package rules;
 
+import org.springframework.stereotype.Component;
+
 import game.GameController;
 import server.exceptions.GameIdNotFoundException;
 
 /**
  * Ensures that the provided game ID exists within the game controller.
  */
+@Component
 public class GameIdExistsRule implements IBusinessRule<String> {
     private final GameController gameController;
 
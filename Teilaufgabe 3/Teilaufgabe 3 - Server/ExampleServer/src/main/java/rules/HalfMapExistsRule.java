@@ -3,7 +3,7 @@ package rules;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import map.MapNode;
+import map.PackedBoard;
 import server.exceptions.InvalidMapException;
 
 /**
@@ -13,7 +13,7 @@ import server.exceptions.InvalidMapException;
  * Ensures that the half map provided is not null.
  */
 
-public class HalfMapExistsRule implements IBusinessRule<MapNode[][]> {
+public class HalfMapExistsRule implements IBusinessRule<PackedBoard> {
 	private final static Logger logger = LoggerFactory.getLogger(HalfMapExistsRule.class);
 
 	/**
@@ -23,7 +23,7 @@ public class HalfMapExistsRule implements IBusinessRule<MapNode[][]> {
      * @throws InvalidMapException If the half map is null.
      */
     @Override
-    public void validate(MapNode[][] map) throws InvalidMapException {
+    public void validate(PackedBoard map) throws InvalidMapException {
         if (map == null) {
             logger.error("The HalfMap is null!");
             throw new InvalidMapException("The HalfMap should not be null.");
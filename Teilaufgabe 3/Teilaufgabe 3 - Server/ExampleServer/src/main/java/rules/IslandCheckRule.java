@@ -1,7 +1,6 @@
 package rules;
 
-import map.MapNode;
-import map.EMapNodeTerrain;
+import map.MapSurvey;
 import server.exceptions.InvalidMapException;
 
 /**
@@ -10,61 +9,18 @@ import server.exceptions.InvalidMapException;
  * 
  * Ensures that it is possible to move from any map field to any other map field, given the game rules allow it.
  */
-public class IslandCheckRule implements IBusinessRule<MapNode[][]> {
+public class IslandCheckRule implements IBusinessRule<MapSurvey> {
 
 	/**
-     * Validates the given map to ensure there are no isolated land areas that cannot be reached.
+     * Validates the surveyed map to ensure there are no isolated land areas that cannot be reached.
      *
-     * @param map The half map to validate.
+     * @param map The survey of the half map to validate.
      * @throws InvalidMapException If the map contains isolated land areas.
      */
     @Override
-    public void validate(MapNode[][] map) throws InvalidMapException {
-    	boolean[][] visited = new boolean[5][10];
-        boolean foundNonWater = false;
-
-        // Find the first non-water node and start the flood fill from there
-        for (int xCoordinate = 0; xCoordinate < 10; xCoordinate++) {
-            for (int yCoordinate = 0; yCoordinate < 5; yCoordinate++) {
-                if (map[yCoordinate][xCoordinate].getTerrain() != EMapNodeTerrain.WATER && !visited[yCoordinate][xCoordinate]) {
-                    floodFillCheck(xCoordinate, yCoordinate, map, visited);
-                    foundNonWater = true;
-                    break;
-                }
-            }
-            if (foundNonWater) {
-                break; // Exit outer loop
-            }
-        }
-
-        // Check for any remaining non-water nodes that weren't visited
-        for (int xCoordinate = 0; xCoordinate < 10; xCoordinate++) {
-            for (int yCoordinate = 0; yCoordinate < 5; yCoordinate++) {
-                if (map[yCoordinate][xCoordinate].getTerrain() != EMapNodeTerrain.WATER && !visited[yCoordinate][xCoordinate]) {
-                    throw new InvalidMapException("The HalfMap contains an island of water at position (" + xCoordinate + ", " + yCoordinate + ").");
-                }
-            }
-        }
-    }
-
-    /**
-     * Performs a flood fill to mark all connected land nodes starting from the given coordinates.
-     *
-     * @param xCoordinate The x-coordinate to start the flood fill.
-     * @param yCoordinate The y-coordinate to start the flood fill.
-     * @param map         The half map.
-     * @param visited     A 2D array to track visited nodes.
-     */
-    private void floodFillCheck(int xCoordinate, int yCoordinate, MapNode[][] map, boolean[][] visited) {
-        if (xCoordinate < 0 || xCoordinate >= 10 || yCoordinate < 0 || yCoordinate >= 5 || visited[yCoordinate][xCoordinate] || map[yCoordinate][xCoordinate].getTerrain() == EMapNodeTerrain.WATER) {
-            return;
+    public void validate(MapSurvey map) throws InvalidMapException {
+        if (map.hasIsolatedField()) {
+            throw new InvalidMapException("The HalfMap contains an island of water at position (" + map.getIsolatedX() + ", " + map.getIsolatedY() + ").");
         }
-
-        visited[yCoordinate][xCoordinate] = true;
-
-        floodFillCheck(xCoordinate + 1, yCoordinate, map, visited);
-        floodFillCheck(xCoordinate - 1, yCoordinate, map, visited);
-        floodFillCheck(xCoordinate, yCoordinate + 1, map, visited);
-        floodFillCheck(xCoordinate, yCoordinate - 1, map, visited);
     }
 }
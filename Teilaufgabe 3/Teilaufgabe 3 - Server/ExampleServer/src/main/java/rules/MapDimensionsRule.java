@@ -0,0 +1,39 @@
+package rules;
+
+import org.springframework.stereotype.Component;
+
+import map.HalfMapValidator;
+import map.MapDimensions;
+import server.exceptions.InvalidMapSizeException;
+
+/**
+ * Ensures that the half map size requested for a new game is supported by the server and that the players can
+ * actually create a valid half map of this size.
+ */
+@Component
+public class MapDimensionsRule implements IBusinessRule<MapDimensions> {
+    private final HalfMapValidator halfMapValidator;
+
+    public MapDimensionsRule(HalfMapValidator halfMapValidator) {
+        this.halfMapValidator = halfMapValidator;
+    }
+
+	/**
+     * Validates that both sides of the half map are within the supported range and that a half map of this size can
+     * pass the half map rules.
+     *
+     * @param dimensions The requested half map dimensions.
+     * @throws InvalidMapSizeException If a side is too small or too large, or no valid half map of this size exists.
+     */
+    @Override
+    public void validate(MapDimensions dimensions) throws InvalidMapSizeException {
+        if (!dimensions.isSupported()) {
+            throw new InvalidMapSizeException("The half map size " + dimensions + " is not supported. Each side must be between "
+            		+ MapDimensions.MIN_SIDE + " and " + MapDimensions.MAX_SIDE + " fields.");
+        }
+        if (!halfMapValidator.admitsValidHalfMap(dimensions)) {
+            throw new InvalidMapSizeException("The half map size " + dimensions + " is not supported. It is too small to hold "
+            		+ "the required water, mountains and grass with enough accessible fields on each edge.");
+        }
+    }
+}
@@ -1,29 +1,31 @@
 package rules;
 
-import map.MapNode;
+import map.MapDimensions;
+import map.MapSurvey;
 import server.exceptions.InvalidMapException;
 
 /**
  * Implements the business rule from SpielIdee: "Hierzu erstellt jede der beiden KIs zufällig eine Hälfte der finalen Spielkarte 
  * (mit je 5 x 10 Feldern)."
  * 
- * Ensures that each half map is of the correct size, specifically 5 rows by 10 columns.
+ * Ensures that each half map is of the size chosen for its game, 5 rows by 10 columns by default, and that every field
+ * is present.
  */
 
-public class MapSizeRule implements IBusinessRule<MapNode[][]>  {
-    private static final int EXPECTED_ROWS = 5;
-    private static final int EXPECTED_COLS = 10;
+public class MapSizeRule implements IBusinessRule<MapSurvey>  {
 
     /**
-     * Validates the size of the given half map.
+     * Validates the size of the surveyed half map.
      *
-     * @param map The half map to validate.
-     * @throws InvalidMapException If the map size is incorrect.
+     * @param map The survey of the half map to validate.
+     * @throws InvalidMapException If the map size is incorrect or a field is missing.
      */
     @Override
-    public void validate(MapNode[][] map) {
-        if (map.length != EXPECTED_ROWS || map[0].length != EXPECTED_COLS) {
-            throw new InvalidMapException("The HalfMap size is incorrect. Expected size is 5x10.");
+    public void validate(MapSurvey map) {
+        MapDimensions expectedDimensions = map.getExpectedDimensions();
+        if (map.getHeight() != expectedDimensions.getHeight() || map.getWidth() != expectedDimensions.getWidth()
+        		|| map.getNumOfMissingFields() > 0) {
+            throw new InvalidMapException("The HalfMap size is incorrect. Expected size is " + expectedDimensions + ".");
         }
     }
 }
@@ -0,0 +1,35 @@
+package rules;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import map.EMoveDirection;
+import server.exceptions.InvalidMoveException;
+
+/**
+ * Ensures that a batch of move actions is neither empty nor longer than the configured limit. The longest step, from
+ * mountain to mountain, takes 4 actions, so by default a batch covers at most one step.
+ */
+@Component
+public class MoveBatchSizeRule implements IBusinessRule<List<EMoveDirection>> {
+	private final int maxMovesPerBatch;
+
+	public MoveBatchSizeRule(@Value("${game.max-moves-per-batch:4}") int maxMovesPerBatch) {
+		this.maxMovesPerBatch = maxMovesPerBatch;
+	}
+
+	/**
+     * Validates the number of move actions in the batch.
+     *
+     * @param directions The directions of the move actions.
+     * @throws InvalidMoveException If the batch is empty or too long.
+     */
+    @Override
+    public void validate(List<EMoveDirection> directions) throws InvalidMoveException {
+        if (directions.isEmpty() || directions.size() > maxMovesPerBatch) {
+            throw new InvalidMoveException("A batch must contain between 1 and " + maxMovesPerBatch + " moves, but contained " + directions.size() + ".");
+        }
+    }
+}
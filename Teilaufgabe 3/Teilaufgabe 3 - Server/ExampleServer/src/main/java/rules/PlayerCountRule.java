@@ -1,5 +1,7 @@
 package rules;
 
+import org.springframework.stereotype.Component;
+
 import game.GameController;
 import server.exceptions.TooManyPlayersException;
 
@@ -10,6 +12,7 @@ import server.exceptions.TooManyPlayersException;
  * Ensures that no more than two players are registered in a single game.
  */
 
+@Component
 public class PlayerCountRule implements IBusinessRule<String> {
     private final GameController gameController;
 
@@ -1,11 +1,14 @@
 package rules;
 
+import org.springframework.stereotype.Component;
+
 import player.PlayerController;
 import server.exceptions.PlayerIdNotFoundException;
 
 /**
  * Ensures that the provided player ID exists within the player controller.
  */
+@Component
 public class PlayerIdExistsRule implements IBusinessRule<String> {
     private final PlayerController playerController;
 
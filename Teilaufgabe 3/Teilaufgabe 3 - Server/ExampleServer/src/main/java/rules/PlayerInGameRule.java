@@ -0,0 +1,36 @@
+package rules;
+
+import org.springframework.stereotype.Component;
+
+import player.PlayerController;
+import server.exceptions.PlayerIdNotFoundException;
+
+/**
+ * Implements the business rule from SpielIdee: "Nach Start des Clients registrieren sich die KIs für das Spiel am Server
+ * und erstellen/tauschen danach mit dem Server Kartenhälften aus."
+ * 
+ * Ensures that a player only acts in and reads the game they registered for, so that the player ID of one game cannot
+ * be used to send half maps or moves to another game or to read its state.
+ */
+@Component
+public class PlayerInGameRule implements IBusinessRule<PlayerMembership> {
+    private final PlayerController playerController;
+
+    public PlayerInGameRule(PlayerController playerController) {
+        this.playerController = playerController;
+    }
+
+    /**
+     * Validates that the player was registered for the game of the request.
+     *
+     * @param membership The player ID and the game ID of the request.
+     * @throws PlayerIdNotFoundException If the player does not belong to the game.
+     */
+    @Override
+    public void validate(PlayerMembership membership) throws PlayerIdNotFoundException {
+        if (!playerController.isPlayerInGame(membership.getPlayerId(), membership.getGameId())) {
+            throw new PlayerIdNotFoundException("PlayerId: " + membership.getPlayerId() + " does not belong to game "
+            		+ membership.getGameId() + ".");
+        }
+    }
+}
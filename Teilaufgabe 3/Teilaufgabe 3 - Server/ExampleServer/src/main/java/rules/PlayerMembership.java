@@ -0,0 +1,24 @@
+package rules;
+
+/**
+ * A player ID together with the game ID of the request it was sent with, validated by the PlayerInGameRule.
+ */
+public class PlayerMembership {
+	private final String gameId;
+	private final String playerId;
+
+	public PlayerMembership(String gameId, String playerId) {
+		this.gameId = gameId;
+		this.playerId = playerId;
+	}
+
+	// Retrieves the game ID of the request.
+	public String getGameId() {
+		return gameId;
+	}
+
+	// Retrieves the player ID of the request.
+	public String getPlayerId() {
+		return playerId;
+	}
+}
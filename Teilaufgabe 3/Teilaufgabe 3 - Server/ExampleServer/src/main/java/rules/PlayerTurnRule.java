@@ -1,5 +1,7 @@
 package rules;
 
+import org.springframework.stereotype.Component;
+
 import player.PlayerController;
 
 /**
@@ -13,6 +15,7 @@ import server.exceptions.NotYourTurnException;
  * 
  * Ensures that a player cannot take an action if it is not their turn.
  */
+@Component
 public class PlayerTurnRule implements IBusinessRule<String> {
     private final PlayerController playerController;
 
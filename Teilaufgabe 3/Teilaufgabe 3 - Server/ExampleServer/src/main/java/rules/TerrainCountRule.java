@@ -1,6 +1,6 @@
 package rules;
 
-import map.MapNode;
+import map.MapSurvey;
 import server.exceptions.InvalidMapException;
 
 /**
@@ -9,60 +9,61 @@ import server.exceptions.InvalidMapException;
  * 
  * Ensures that each half map contains at least the specified percentage of each terrain type.
  */
-public class TerrainCountRule implements IBusinessRule<MapNode[][]> {
+public class TerrainCountRule implements IBusinessRule<MapSurvey> {
+	private static final int MIN_WATER_PERCENT = 14;
+	private static final int MIN_MOUNTAIN_PERCENT = 10;
+	private static final int MIN_GRASS_PERCENT = 48;
 
 	/**
-     * Validates the terrain counts in the given half map to ensure they meet the required percentages.
+     * Validates the terrain counts of the surveyed half map to ensure they meet the required percentages.
      *
-     * @param map The half map to validate.
+     * @param map The survey of the half map to validate.
      * @throws InvalidMapException If the map does not meet the terrain count requirements.
      */
     @Override
-    public void validate(MapNode[][] map) throws InvalidMapException {
-        int waterNum = 0;
-        int mounNum = 0;
-        int grassNum = 0;
+    public void validate(MapSurvey map) throws InvalidMapException {
+        // Validate the counts against the required minimums, which are rounded up from the percentages of the map size
+        int numOfFields = map.getWidth() * map.getHeight();
+        validateTerrainCount("water", map.getNumOfWater(), requiredWater(numOfFields));
+        validateTerrainCount("mountains", map.getNumOfMountains(), requiredMountains(numOfFields));
+        validateTerrainCount("grass", map.getNumOfGrass(), requiredGrass(numOfFields));
+    }
 
-        // Count the number of each terrain type
-        for (int xCoordinate = 0; xCoordinate < 10; xCoordinate++) {
-            for (int yCoordinate = 0; yCoordinate < 5; yCoordinate++) {
-                switch (map[yCoordinate][xCoordinate].getTerrain()) {
-                    case MOUNTAIN:
-                        mounNum++;
-                        break;
-                    case GRASS:
-                        grassNum++;
-                        break;
-                    case WATER:
-                        waterNum++;
-                        break;
-                    default:
-                        break;
-                }
-            }
-        }
+    // Retrieves the minimal number of water fields of a half map with the given number of fields.
+    public static int requiredWater(int numOfFields) {
+    	return requiredCount(numOfFields, MIN_WATER_PERCENT);
+    }
 
-        // Validate the counts against the required minimums
-        validateTerrainCounts(waterNum, mounNum, grassNum);
+    // Retrieves the minimal number of mountain fields of a half map with the given number of fields.
+    public static int requiredMountains(int numOfFields) {
+    	return requiredCount(numOfFields, MIN_MOUNTAIN_PERCENT);
+    }
+
+    // Retrieves the minimal number of grass fields of a half map with the given number of fields.
+    public static int requiredGrass(int numOfFields) {
+    	return requiredCount(numOfFields, MIN_GRASS_PERCENT);
+    }
+
+    /*
+     * From here are the private methods for the TerrainCountRule class.
+     */
+
+    // Rounds the percentage of the fields up, a 5x10 half map therefore needs 7 water, 5 mountain and 24 grass fields.
+    private static int requiredCount(int numOfFields, int percent) {
+    	return (int) (((long) numOfFields * percent + 99) / 100);
     }
 
     /**
-     * Validates the terrain counts to ensure they meet the minimum requirements.
+     * Validates the count of one terrain type to ensure it meets its minimum requirement.
      *
-     * @param waterNum The number of water tiles.
-     * @param mounNum  The number of mountain tiles.
-     * @param grassNum The number of grass tiles.
-     * @throws InvalidMapException If any terrain type does not meet its required minimum.
+     * @param terrainName The name of the terrain type used in the error message.
+     * @param count       The number of tiles of the terrain type.
+     * @param required    The required minimum number of tiles.
+     * @throws InvalidMapException If the terrain type does not meet its required minimum.
      */
-    private void validateTerrainCounts(int waterNum, int mounNum, int grassNum) {
-        if (waterNum < 7) {
-            throw new InvalidMapException("The HalfMap does not have enough water. Required: 7, Found: " + waterNum);
-        }
-        if (mounNum < 5) {
-            throw new InvalidMapException("The HalfMap does not have enough mountains. Required: 5, Found: " + mounNum);
-        }
-        if (grassNum < 24) {
-            throw new InvalidMapException("The HalfMap does not have enough grass. Required: 24, Found: " + grassNum);
+    private void validateTerrainCount(String terrainName, int count, int required) {
+        if (count < required) {
+            throw new InvalidMapException("The HalfMap does not have enough " + terrainName + ". Required: " + required + ", Found: " + count);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timer wheel which runs tasks after a delay. All timers share one worker thread, scheduling and cancelling
+ * a timer is O(1), and the wheel copes with a large number of pending timers because each tick only visits a single
+ * bucket. Tasks are run on the worker thread, so they should be short and hand longer work to another thread.
+ *
+ * The timer is not exact, tasks expire in the first tick after their deadline.
+ */
+public class HashedWheelTimer {
+	// Limits the number of new timers moved into the wheel per tick, so a burst of new timers cannot stall the wheel.
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private final long tickNanos;
+	private final TimerBucket[] wheel;
+	private final int mask;
+	private final Queue<TimerHandle> newHandles = new ConcurrentLinkedQueue<>();
+	private final Queue<TimerHandle> cancelledHandles = new ConcurrentLinkedQueue<>();
+	private final Thread workerThread;
+	private final long startTime;
+	private volatile boolean running = true;
+	private long tick;
+
+	/**
+     * Creates and starts the timer.
+     *
+     * @param name          The name of the worker thread.
+     * @param tickDuration  The duration of one tick, i.e. the precision of the timer.
+     * @param unit          The time unit of the tick duration.
+     * @param ticksPerWheel The number of buckets of the wheel, rounded up to the next power of two.
+     */
+	public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+		if (tickDuration <= 0 || ticksPerWheel <= 0) {
+			throw new IllegalArgumentException("The tick duration and the ticks per wheel must be positive.");
+		}
+		this.tickNanos = unit.toNanos(tickDuration);
+		this.wheel = createWheel(ticksPerWheel);
+		this.mask = wheel.length - 1;
+		this.startTime = System.nanoTime();
+
+		this.workerThread = new Thread(this::runWorker, name);
+		workerThread.setDaemon(true);
+		workerThread.start();
+	}
+
+	/**
+     * Schedules the task to run once after the given delay.
+     *
+     * @param task  The task to run.
+     * @param delay The delay after which the task runs.
+     * @param unit  The time unit of the delay.
+     * @return The handle which can be used to cancel the task.
+     */
+	public TimerHandle schedule(Runnable task, long delay, TimeUnit unit) {
+		if (!running) {
+			throw new IllegalStateException("The timer has already been stopped.");
+		}
+		long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+		TimerHandle handle = new TimerHandle(this, task, deadline);
+		newHandles.add(handle);
+		return handle;
+	}
+
+	// Stops the worker thread, pending tasks will not run anymore.
+	public void stop() {
+		running = false;
+		workerThread.interrupt();
+	}
+
+	// Queues a cancelled handle, so that the worker thread unlinks it from its bucket.
+	void onCancelled(TimerHandle handle) {
+		cancelledHandles.add(handle);
+	}
+
+	/*
+	 * From here are the private methods for the HashedWheelTimer class.
+	 */
+
+	// Creates the buckets of the wheel, the number of buckets is a power of two so that the index is a bit mask.
+	private static TimerBucket[] createWheel(int ticksPerWheel) {
+		int size = Integer.highestOneBit(Math.min(ticksPerWheel, 1 << 30) - 1) << 1;
+		TimerBucket[] wheel = new TimerBucket[Math.max(size, 1)];
+		for (int index = 0; index < wheel.length; index++) {
+			wheel[index] = new TimerBucket();
+		}
+		return wheel;
+	}
+
+	// Advances the wheel tick by tick until the timer is stopped.
+	private void runWorker() {
+		while (running) {
+			long tickDeadline = waitForNextTick();
+			if (!running) {
+				break;
+			}
+			removeCancelledHandles();
+			transferNewHandles();
+			wheel[(int) (tick & mask)].expireHandles(tickDeadline);
+			tick++;
+		}
+	}
+
+	// Sleeps until the end of the current tick and returns its deadline.
+	private long waitForNextTick() {
+		long tickDeadline = tickNanos * (tick + 1);
+		long sleepNanos = tickDeadline - (System.nanoTime() - startTime);
+		while (running && sleepNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(sleepNanos);
+			} catch (InterruptedException e) {
+				if (!running) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			sleepNanos = tickDeadline - (System.nanoTime() - startTime);
+		}
+		return tickDeadline;
+	}
+
+	// Moves the newly scheduled handles into the bucket of the tick they expire in.
+	private void transferNewHandles() {
+		for (int numOfTransfers = 0; numOfTransfers < MAX_TRANSFERS_PER_TICK; numOfTransfers++) {
+			TimerHandle handle = newHandles.poll();
+			if (handle == null) {
+				return;
+			}
+			if (handle.isCancelled()) {
+				continue;
+			}
+			long expiryTick = Math.max(handle.getDeadline() / tickNanos, tick);
+			handle.remainingRounds = (expiryTick - tick) / wheel.length;
+			wheel[(int) (expiryTick & mask)].add(handle);
+		}
+	}
+
+	// Unlinks the cancelled handles from their buckets, so they do not occupy the wheel until their deadline.
+	private void removeCancelledHandles() {
+		TimerHandle handle;
+		while ((handle = cancelledHandles.poll()) != null) {
+			if (handle.bucket != null) {
+				handle.bucket.remove(handle);
+			}
+		}
+	}
+}
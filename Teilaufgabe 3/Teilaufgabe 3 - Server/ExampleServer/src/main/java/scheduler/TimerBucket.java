@@ -0,0 +1,65 @@
+package scheduler;
+
+/**
+ * One slot of the timer wheel, a doubly linked list of the handles which expire in the same tick of a round.
+ * Only accessed by the worker thread of the timer.
+ */
+class TimerBucket {
+	private TimerHandle head;
+	private TimerHandle tail;
+
+	// Appends the handle to the bucket.
+	void add(TimerHandle handle) {
+		handle.bucket = this;
+		if (head == null) {
+			head = handle;
+			tail = handle;
+		} else {
+			tail.next = handle;
+			handle.previous = tail;
+			tail = handle;
+		}
+	}
+
+	// Unlinks the handle from the bucket.
+	void remove(TimerHandle handle) {
+		if (handle.previous != null) {
+			handle.previous.next = handle.next;
+		} else {
+			head = handle.next;
+		}
+		if (handle.next != null) {
+			handle.next.previous = handle.previous;
+		} else {
+			tail = handle.previous;
+		}
+		handle.next = null;
+		handle.previous = null;
+		handle.bucket = null;
+	}
+
+	/**
+     * Expires all handles of the current round and counts down the rounds of the others.
+     *
+     * @param tickDeadline The deadline of the current tick.
+     * @return The number of expired handles.
+     */
+	int expireHandles(long tickDeadline) {
+		int numOfExpired = 0;
+		TimerHandle handle = head;
+		while (handle != null) {
+			TimerHandle next = handle.next;
+			if (handle.remainingRounds <= 0 && handle.getDeadline() <= tickDeadline) {
+				remove(handle);
+				handle.expire();
+				numOfExpired++;
+			} else if (handle.isCancelled()) {
+				remove(handle);
+			} else {
+				handle.remainingRounds--;
+			}
+			handle = next;
+		}
+		return numOfExpired;
+	}
+}
@@ -0,0 +1,74 @@
+package scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A task which is scheduled on a HashedWheelTimer. The handle is linked into one bucket of the wheel, which makes
+ * both expiring and cancelling it an O(1) operation.
+ */
+public class TimerHandle {
+	private final static Logger logger = LoggerFactory.getLogger(TimerHandle.class);
+	
+	private static final int STATE_PENDING = 0;
+	private static final int STATE_CANCELLED = 1;
+	private static final int STATE_EXPIRED = 2;
+
+	private final HashedWheelTimer timer;
+	private final Runnable task;
+	private final long deadline;
+	private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+
+	// Maintained by the worker thread of the timer only.
+	long remainingRounds;
+	TimerHandle next;
+	TimerHandle previous;
+	TimerBucket bucket;
+
+	TimerHandle(HashedWheelTimer timer, Runnable task, long deadline) {
+		this.timer = timer;
+		this.task = task;
+		this.deadline = deadline;
+	}
+
+	/**
+     * Cancels the task if it has not expired yet.
+     *
+     * @return True if the task was cancelled, false if it has already expired or was cancelled before.
+     */
+	public boolean cancel() {
+		if (!state.compareAndSet(STATE_PENDING, STATE_CANCELLED)) {
+			return false;
+		}
+		timer.onCancelled(this);
+		return true;
+	}
+
+	// Checks if the task was cancelled.
+	public boolean isCancelled() {
+		return state.get() == STATE_CANCELLED;
+	}
+
+	// Checks if the task has expired and was executed.
+	public boolean isExpired() {
+		return state.get() == STATE_EXPIRED;
+	}
+
+	// Retrieves the deadline of the task, relative to the start time of the timer in nanoseconds.
+	long getDeadline() {
+		return deadline;
+	}
+
+	// Executes the task unless it was cancelled in the meantime, a failing task does not affect the other timers.
+	void expire() {
+		if (state.compareAndSet(STATE_PENDING, STATE_EXPIRED)) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				logger.error("A timer task failed.", e);
+			}
+		}
+	}
+}
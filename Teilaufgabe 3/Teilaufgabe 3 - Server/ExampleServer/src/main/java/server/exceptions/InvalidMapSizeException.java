@@ -0,0 +1,9 @@
+package server.exceptions;
+
+public class InvalidMapSizeException extends GenericExampleException {
+
+	public InvalidMapSizeException(String errorMessage) {
+		super("InvalidMapSizeException", errorMessage);
+	}
+
+}
@@ -0,0 +1,9 @@
+package server.exceptions;
+
+public class InvalidMoveException extends GenericExampleException {
+
+	public InvalidMoveException(String errorMessage) {
+		super("InvalidMoveException", errorMessage);
+	}
+
+}
@@ -0,0 +1,9 @@
+package server.exceptions;
+
+public class JournalUnavailableException extends GenericExampleException {
+
+	public JournalUnavailableException(String errorMessage) {
+		super("JournalUnavailableException", errorMessage);
+	}
+
+}
@@ -0,0 +1,9 @@
+package server.exceptions;
+
+public class ServerFullException extends GenericExampleException {
+
+	public ServerFullException(String errorMessage) {
+		super("ServerFullException", errorMessage);
+	}
+
+}
@@ -6,6 +6,8 @@ import javax.validation.Validator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -13,7 +15,7 @@ import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
 
 @SpringBootApplication
-@ComponentScan(basePackages = { "serverNetwork" })
+@ComponentScan(basePackages = { "serverNetwork", "game", "player", "map", "rules", "journal" })
 @Configuration
 public class MainServer {
 
@@ -27,4 +29,12 @@ public class MainServer {
 		app.setDefaultProperties(Collections.singletonMap("server.port", DEFAULT_PORT));
 		app.run(args);
 	}
+
+	// Serves the reactive runtime mode with Reactor Netty. Spring Boot prefers Tomcat for WebFlux as well while it is on
+	// the classpath, but the reactive mode is meant to run on event loop threads.
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+	public NettyReactiveWebServerFactory reactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
 }
@@ -0,0 +1,439 @@
+package serverNetwork;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+
+import game.GameController;
+import game.GameSnapshot;
+import game.IGameStateListener;
+import game.MoveBatch;
+import map.EMoveDirection;
+import map.HalfMapValidator;
+import map.MapController;
+import map.MapDimensions;
+import map.PackedBoard;
+import messagesbase.ResponseEnvelope;
+import messagesbase.UniqueGameIdentifier;
+import messagesbase.UniquePlayerIdentifier;
+import messagesbase.messagesfromclient.PlayerHalfMap;
+import messagesbase.messagesfromclient.PlayerMove;
+import messagesbase.messagesfromclient.PlayerRegistration;
+import player.PlayerController;
+import reactor.core.publisher.Flux;
+import rules.FullMapCompleteRule;
+import rules.GameIdExistsRule;
+import rules.MapDimensionsRule;
+import rules.MoveBatchSizeRule;
+import rules.PlayerCountRule;
+import rules.PlayerIdExistsRule;
+import rules.PlayerInGameRule;
+import rules.PlayerMembership;
+import rules.PlayerTurnRule;
+import server.exceptions.GameIdNotFoundException;
+import server.exceptions.GenericExampleException;
+import server.exceptions.InvalidMapSizeException;
+
+/**
+ * Handles the requests of the /games API independently of the web stack. It converts the network messages, validates
+ * them with the business rules and runs the commands on the mailbox of their game, so that ServerEndpoints and
+ * ReactiveServerEndpoints only adapt the results to their transport, like the ResponseAssembler does for the
+ * marshalled responses.
+ *
+ * Nothing here blocks except creating a game: commands, waiting requests and durability are all futures, which are
+ * completed by the mailbox of the game or, once the journal writer has forced a command to the disk, by the completion
+ * pool of the journal. Validation failures are thrown as GenericExampleException, either right away or through the
+ * future.
+ */
+@Component
+public class GameRequestHandler {
+	private final static Logger logger = LoggerFactory.getLogger(GameRequestHandler.class);
+
+	private final GameController gameController;
+	private final PlayerController playerController;
+	private final MapController mapController;
+	private final NetworkConverter networkConverter;
+	private final ResponseAssembler responseAssembler;
+	private final HalfMapValidator halfMapValidator;
+	private final GameIdExistsRule gameIdExistsRule;
+	private final PlayerIdExistsRule playerIdExistsRule;
+	private final PlayerInGameRule playerInGameRule;
+	private final PlayerCountRule playerCountRule;
+	private final PlayerTurnRule playerTurnRule;
+	private final MapDimensionsRule mapDimensionsRule;
+	private final FullMapCompleteRule fullMapCompleteRule;
+	private final MoveBatchSizeRule moveBatchSizeRule;
+
+	@Value("${game.long-poll-timeout-seconds:30}")
+	private long longPollTimeoutSeconds;
+
+	@Value("${game.event-heartbeat-seconds:15}")
+	private long eventHeartbeatSeconds;
+
+	public GameRequestHandler(GameController gameController, PlayerController playerController, MapController mapController,
+			NetworkConverter networkConverter, ResponseAssembler responseAssembler, HalfMapValidator halfMapValidator,
+			GameIdExistsRule gameIdExistsRule, PlayerIdExistsRule playerIdExistsRule, PlayerInGameRule playerInGameRule,
+			PlayerCountRule playerCountRule,
+			PlayerTurnRule playerTurnRule, MapDimensionsRule mapDimensionsRule, FullMapCompleteRule fullMapCompleteRule,
+			MoveBatchSizeRule moveBatchSizeRule) {
+		this.gameController = gameController;
+		this.playerController = playerController;
+		this.mapController = mapController;
+		this.networkConverter = networkConverter;
+		this.responseAssembler = responseAssembler;
+		this.halfMapValidator = halfMapValidator;
+		this.gameIdExistsRule = gameIdExistsRule;
+		this.playerIdExistsRule = playerIdExistsRule;
+		this.playerInGameRule = playerInGameRule;
+		this.playerCountRule = playerCountRule;
+		this.playerTurnRule = playerTurnRule;
+		this.mapDimensionsRule = mapDimensionsRule;
+		this.fullMapCompleteRule = fullMapCompleteRule;
+		this.moveBatchSizeRule = moveBatchSizeRule;
+	}
+
+	// Retrieves the time a waiting request waits at most, before it is answered with the current state.
+	public long getLongPollTimeoutMillis() {
+		return TimeUnit.SECONDS.toMillis(longPollTimeoutSeconds);
+	}
+
+	/**
+     * Creates a new game and generates a unique game ID. Waits until the first state of the game is durable.
+     *
+     * @param halfMapWidth  The number of columns of each half map.
+     * @param halfMapHeight The number of rows of each half map.
+     * @param seed          The seed of the random decisions of the game, or null for a random seed.
+     * @return UniqueGameIdentifier for the client.
+     * @throws InvalidMapSizeException If the half map size is not supported.
+     */
+	public UniqueGameIdentifier createGame(int halfMapWidth, int halfMapHeight, Long seed) {
+		// Validate the requested half map size.
+		MapDimensions halfMapDimensions = new MapDimensions(halfMapWidth, halfMapHeight);
+		mapDimensionsRule.validate(halfMapDimensions);
+
+		// Create a new Game in the Server and generate an unique gameId.
+		String newGameID = gameController.createNewGame(halfMapDimensions, seed);
+
+		logger.info("Created a new game with id: " + newGameID + ".");
+
+		// Convert the gameId to network format and return it.
+		return networkConverter.convertToNetworkGameId(newGameID);
+	}
+
+	/**
+     * Registers a new player in the specified game and generates a unique player ID.
+     *
+     * @param gameID             The unique identifier of the game.
+     * @param playerRegistration The registration details of the player.
+     * @return Completed with the ResponseEnvelope containing the UniquePlayerIdentifier once the player is durable.
+     */
+	public CompletableFuture<ResponseEnvelope<UniquePlayerIdentifier>> registerPlayer(UniqueGameIdentifier gameID,
+			PlayerRegistration playerRegistration) {
+		// Convert the game ID and player registration details to server format.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		List<String> playerInfo = networkConverter.convertToServerPlayerRegistration(playerRegistration);
+
+		// Validate the game ID and player count and create a new player with a unique player ID. Both run on the
+		// mailbox of the game, so that concurrent registrations cannot exceed the player limit.
+		return gameController.executeCommandAsync(gameId, () -> {
+			try {
+	            gameIdExistsRule.validate(gameId);
+	            playerCountRule.validate(gameId);
+	        } catch (GenericExampleException e) {
+	        	throw e;
+	        }
+
+			return playerController.createNewPlayer(gameId,playerInfo);
+		}).thenApply(newPlayerID -> {
+			logger.info("Created a new player with id: " + newPlayerID + " under game: " + gameId + ".");
+
+			// Convert the player ID to network format and return it inside the ResponseEnvelope.
+			return new ResponseEnvelope<>(networkConverter.convertToNetworkPlayerId(newPlayerID));
+		});
+	}
+
+	/**
+     * Receives the half-map from the player, validates it and adds it to the full map of the game.
+     *
+     * @param gameID  The unique identifier of the game.
+     * @param halfMap The half-map sent by the player.
+     * @return Completed with the ResponseEnvelope indicating the result once the half-map is durable.
+     */
+	public CompletableFuture<ResponseEnvelope<Object>> receiveHalfMap(UniqueGameIdentifier gameID, PlayerHalfMap halfMap) {
+		// Convert the game ID and player ID to server format.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		String playerId = halfMap.getUniquePlayerID();
+
+		// Validate and add the half-map on the mailbox of the game, so that it cannot race with the half-map of the opponent.
+		return gameController.executeCommandAsync(gameId, () -> {
+			// Validate the game ID, player ID, and player turn.
+			try {
+	            gameIdExistsRule.validate(gameId);
+	            playerIdExistsRule.validate(playerId);
+	            playerInGameRule.validate(new PlayerMembership(gameId,playerId));
+	            playerTurnRule.validate(playerId);
+	        } catch (GenericExampleException e) {
+	        	throw e;
+	        }
+
+			// Determine if it's the second player sending the half-map.
+			boolean isPLayerTwo = gameController.isPlayerTwoHalfMap(gameId);
+
+			// Convert the half-map to server format and validate it.
+			PackedBoard serverHalfMap = networkConverter.convertToServerHalfMap(halfMap.getMapNodes(),isPLayerTwo);
+			try {
+	            halfMapValidator.isValid(serverHalfMap, playerId, gameId);
+	        } catch (GenericExampleException e) {
+	        	throw e;
+	        }
+
+			// Add the half-map to the map controller and advance the state version.
+			mapController.addHalfMap(serverHalfMap,playerId,gameId);
+			return gameController.advanceStateVersion(gameId);
+		}).thenApply(stateVersion -> {
+			logger.info("Received halfMap from player with id: " + playerId + " under game: " + gameId + ".");
+			return new ResponseEnvelope<Object>();
+		});
+	}
+
+	/**
+     * Receives one move action from the player and applies it. The player arrives at the next field once enough move
+     * actions in the same direction have been sent, depending on the terrain of both fields. The turn switches after
+     * every move action.
+     *
+     * @param gameID     The unique identifier of the game.
+     * @param playerMove The move sent by the player.
+     * @return Completed with the ResponseEnvelope indicating the result once the move is durable.
+     */
+	public CompletableFuture<ResponseEnvelope<Object>> receiveMove(UniqueGameIdentifier gameID, PlayerMove playerMove) {
+		// Convert the game ID, player ID and move to server format.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		String playerId = playerMove.getUniquePlayerID();
+		EMoveDirection direction = networkConverter.convertToServerMove(playerMove);
+
+		// Validate and apply the move on the mailbox of the game, so that the turn is checked and switched atomically.
+		return gameController.executeCommandAsync(gameId, () -> {
+			try {
+	            gameIdExistsRule.validate(gameId);
+	            playerIdExistsRule.validate(playerId);
+	            playerInGameRule.validate(new PlayerMembership(gameId,playerId));
+	            playerTurnRule.validate(playerId);
+	            fullMapCompleteRule.validate(gameId);
+	        } catch (GenericExampleException e) {
+	        	throw e;
+	        }
+
+			gameController.applyMove(gameId,playerId,direction);
+			return Boolean.TRUE;
+		}).thenApply(applied -> new ResponseEnvelope<Object>());
+	}
+
+	/**
+     * Receives a batch of move actions from the player, e.g. all actions it takes to reach the next field. The first
+     * action is applied right away and each following one as soon as the turn returns to the player, without another
+     * request in between. The result is completed once the batch is finished and its last state is durable. If the
+     * batch is still waiting for the turn when the long-poll timeout expires, its remaining actions are cancelled on
+     * the mailbox first, so that the result reports exactly the applied ones.
+     *
+     * @param gameID          The unique identifier of the game.
+     * @param playerMoveBatch The batch of moves sent by the player.
+     * @return Completed with the marshalled ResponseEnvelope containing the MoveBatchResult.
+     */
+	public CompletableFuture<ResponseEntity<byte[]>> receiveMoveBatch(UniqueGameIdentifier gameID, PlayerMoveBatch playerMoveBatch) {
+		// Convert the game ID, player ID and moves to server format and check the size of the batch.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		String playerId = playerMoveBatch.getUniquePlayerID();
+		List<EMoveDirection> directions = networkConverter.convertToServerMoves(playerMoveBatch);
+		moveBatchSizeRule.validate(directions);
+
+		// Validate the move and start the batch on the mailbox of the game, like a single move.
+		return gameController.executeCommandAsync(gameId, () -> {
+			try {
+	            gameIdExistsRule.validate(gameId);
+	            playerIdExistsRule.validate(playerId);
+	            playerInGameRule.validate(new PlayerMembership(gameId,playerId));
+	            playerTurnRule.validate(playerId);
+	            fullMapCompleteRule.validate(gameId);
+	        } catch (GenericExampleException e) {
+	        	throw e;
+	        }
+
+			return gameController.startMoveBatch(gameId,playerId,directions);
+		}).thenCompose(moveBatch -> awaitMoveBatch(gameId,moveBatch));
+	}
+
+	/**
+     * Retrieves the current game state of the specified player.
+     *
+     * The game state ID is sent as ETag, with the version the changes start from if only the changes are sent. If the
+     * client already has this response and sends its ETag with If-None-Match, the response is null and the game state
+     * is not assembled at all. Otherwise the marshalled game state is taken from the response cache, so it is only
+     * assembled once per game state ID and player.
+     *
+     * The game state ID is the state version of the game. A client which sends the version it already knows as
+     * sinceVersion only receives the players and map nodes which have changed since then. If the changes since that
+     * version are no longer known, the complete game state is sent instead.
+     *
+     * @param gameID           The unique identifier of the game.
+     * @param playerID         The unique identifier of the player.
+     * @param sinceVersion     The state version the client already knows, if it only wants the changes.
+     * @param checkNotModified Checks the ETag against the If-None-Match header of the request and prepares the 304.
+     * @return The marshalled ResponseEnvelope containing the current GameState, null if it has not been modified.
+     */
+	public ResponseEntity<byte[]> getGameState(UniqueGameIdentifier gameID, UniquePlayerIdentifier playerID, Long sinceVersion,
+			Predicate<String> checkNotModified) {
+		// Convert the game ID and player ID to server format.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		String playerId = networkConverter.convertToServerPlayerId(playerID);
+
+		// Validate the game ID and player ID.
+		try {
+            gameIdExistsRule.validate(gameId);
+            playerIdExistsRule.validate(playerId);
+            playerInGameRule.validate(new PlayerMembership(gameId,playerId));
+        } catch (GenericExampleException e) {
+        	throw e;
+        }
+
+		// Read the latest published snapshot of the game. It never changes, so the game state is assembled without
+		// waiting for the commands which currently change the game.
+		GameSnapshot snapshot = findSnapshot(gameId);
+
+		// Answer with 304 if the client already has the current game state, in the representation it asks for.
+		if(checkNotModified.test(responseAssembler.eTagOf(snapshot,sinceVersion))) {
+			return null;
+		}
+
+		// Return only the changes if they are known, the complete game state otherwise.
+		return responseAssembler.createGameState(snapshot,playerId,sinceVersion);
+	}
+
+	/**
+     * Waits until the game state ID of the game differs from the one the player already knows and then sends the new
+     * game state. The waiting request is only a listener of the game, so a waiting player costs no thread. If the
+     * player does not know the current game state yet, it is sent right away. If nothing changes within the long-poll
+     * timeout, the current game state is sent.
+     *
+     * @param gameID      The unique identifier of the game.
+     * @param playerID    The unique identifier of the player.
+     * @param gameStateId The game state ID the player already knows. Without it the current game state is sent at once.
+     * @return Completed with the marshalled ResponseEnvelope containing the new GameState.
+     */
+	public CompletableFuture<ResponseEntity<byte[]>> awaitGameState(UniqueGameIdentifier gameID, UniquePlayerIdentifier playerID,
+			String gameStateId) {
+		// Convert the game ID and player ID to server format.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		String playerId = networkConverter.convertToServerPlayerId(playerID);
+
+		// Validate the game ID and player ID.
+		try {
+            gameIdExistsRule.validate(gameId);
+            playerIdExistsRule.validate(playerId);
+            playerInGameRule.validate(new PlayerMembership(gameId,playerId));
+        } catch (GenericExampleException e) {
+        	throw e;
+        }
+
+		// Respond right away if the player does not know the current game state yet.
+		GameSnapshot current = findSnapshot(gameId);
+		if(!current.getGameStateId().equals(gameStateId)) {
+			return CompletableFuture.completedFuture(responseAssembler.createGameState(current,playerId));
+		}
+
+		// Otherwise wait for the first snapshot that has a new game state ID, the listener is removed once it is
+		// notified or the wait has timed out.
+		CompletableFuture<GameSnapshot> nextSnapshot = new CompletableFuture<>();
+		IGameStateListener listener = nextSnapshot::complete;
+		nextSnapshot.whenComplete((snapshot, failure) -> gameController.removeStateListener(gameId,listener));
+		if(!gameController.awaitStateChange(gameId,gameStateId,listener)) {
+			throw new GameIdNotFoundException("GameId: " + gameId + " does not exist.");
+		}
+
+		// The listener is called on the mailbox of the game, so the response is marshalled on another thread. On
+		// timeout, the current game state is sent, unless the game has been removed in the meantime.
+		return nextSnapshot.completeOnTimeout(null, longPollTimeoutSeconds, TimeUnit.SECONDS)
+				.thenApplyAsync(snapshot -> responseAssembler.createGameState(snapshot != null ? snapshot : findSnapshot(gameId),playerId));
+	}
+
+	/**
+     * Opens a stream which pushes a compact state event to the player whenever the game state changes. The first event
+     * carries the current game state, the stream ends when the game is removed. Heartbeat comments are sent in between,
+     * so that connections of clients which are gone are noticed and closed. An event stream cannot carry a
+     * ResponseEnvelope, so a failed validation is sent as a single event named after the exception.
+     *
+     * @param gameID   The unique identifier of the game.
+     * @param playerID The unique identifier of the player.
+     * @return Flux of server-sent events with the game state ID as ID and the player's game state as data.
+     */
+	public Flux<ServerSentEvent<String>> streamGameState(UniqueGameIdentifier gameID, UniquePlayerIdentifier playerID) {
+		// Convert the game ID and player ID to server format.
+		String gameId = networkConverter.convertToServerGameId(gameID);
+		String playerId = networkConverter.convertToServerPlayerId(playerID);
+
+		// Validate the game ID and player ID.
+		try {
+            gameIdExistsRule.validate(gameId);
+            playerIdExistsRule.validate(playerId);
+            playerInGameRule.validate(new PlayerMembership(gameId,playerId));
+        } catch (GenericExampleException e) {
+        	return Flux.just(ServerSentEvent.builder(e.getMessage()).event(e.getErrorName()).build());
+        }
+
+		// Convert each snapshot of the game to a state event for the player, all subscribers of the game share one stream.
+		Flux<ServerSentEvent<String>> stateEvents = gameController.getSnapshotStream(gameId)
+				.map(snapshot -> networkConverter.convertToNetworkStateEvent(snapshot,playerId));
+
+		// Send heartbeats as long as the state events continue.
+		return stateEvents.publish(sharedEvents -> Flux.merge(sharedEvents,
+				Flux.interval(Duration.ofSeconds(eventHeartbeatSeconds))
+					.map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build())
+					.takeUntilOther(sharedEvents.then())));
+	}
+
+	/*
+	 * From here are the private methods for the GameRequestHandler class.
+	 */
+
+	/**
+     * Waits for a started batch of moves to finish, without holding a thread. If the long-poll timeout expires first,
+     * the remaining actions are cancelled through the mailbox of the game.
+     *
+     * @param gameId    The game ID.
+     * @param moveBatch The started batch.
+     * @return Completed with the marshalled result once the last state of the batch is durable.
+     */
+	private CompletableFuture<ResponseEntity<byte[]>> awaitMoveBatch(String gameId, MoveBatch moveBatch) {
+		return moveBatch.getCompletion().handle((finishedBatch, failure) -> Boolean.TRUE)
+				.completeOnTimeout(Boolean.FALSE, longPollTimeoutSeconds, TimeUnit.SECONDS)
+				.thenCompose(isFinished -> isFinished ? gameController.whenDurable() : gameController.executeCommandAsync(gameId, () -> {
+					gameController.cancelMoveBatch(gameId,moveBatch);
+					return null;
+				}))
+				.thenApplyAsync(durable -> responseAssembler.createMoveBatchResult(moveBatch));
+	}
+
+	/**
+     * Retrieves the latest published snapshot of the game. The game can be evicted at any time, also right after its
+     * game ID was validated, so a missing snapshot is reported like a missing game.
+     *
+     * @param gameId The game ID.
+     * @return The snapshot of the game.
+     * @throws GameIdNotFoundException If the game does not exist anymore.
+     */
+	private GameSnapshot findSnapshot(String gameId) {
+		GameSnapshot snapshot = gameController.getSnapshot(gameId);
+		if(snapshot == null) {
+			throw new GameIdNotFoundException("GameId: " + gameId + " does not exist.");
+		}
+		return snapshot;
+	}
+}
@@ -0,0 +1,89 @@
+package serverNetwork;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.springframework.stereotype.Component;
+
+import game.Game;
+import game.GameSnapshot;
+import game.IGameRemovalListener;
+import messagesbase.ResponseEnvelope;
+import messagesbase.messagesfromserver.GameState;
+
+/**
+ * Keeps the marshalled game state responses of the current game state ID of each game, one per perspective, i.e. per
+ * requesting player and, for responses with only the changes, per version the player already knows. Polls between
+ * two state changes are answered with the same bytes, without converting and marshalling the game state again. The
+ * responses of a game are replaced as soon as a snapshot with a new game state ID is requested, and dropped when the
+ * game is removed.
+ */
+@Component
+public class GameStateResponseCache implements IGameRemovalListener {
+	private final Map<String, CachedGameState> responsesByGame = new ConcurrentHashMap<>();
+	private final JAXBContext jaxbContext;
+
+	public GameStateResponseCache() {
+		try {
+			this.jaxbContext = JAXBContext.newInstance(ResponseEnvelope.class);
+		} catch (JAXBException e) {
+			throw new IllegalStateException("The JAXB context for the game state responses could not be created.", e);
+		}
+	}
+
+	/**
+     * Retrieves the marshalled game state response of the snapshot for the given perspective. If it is not cached yet,
+     * it is created, marshalled, and cached until the game state ID changes.
+     *
+     * @param snapshot        The snapshot of the game.
+     * @param perspective     Identifies the response within the snapshot, e.g. the ID of the requesting player.
+     * @param responseFactory Creates the game state response if it is not cached yet.
+     * @return The marshalled response.
+     */
+	public byte[] getResponse(GameSnapshot snapshot, String perspective, Supplier<ResponseEnvelope<GameState>> responseFactory) {
+		String gameStateId = snapshot.getGameStateId();
+		CachedGameState cachedGameState = responsesByGame.compute(snapshot.getGameId(),
+				(gameId, current) -> current != null && current.gameStateId.equals(gameStateId) ? current : new CachedGameState(gameStateId));
+
+		return cachedGameState.responses.computeIfAbsent(perspective, key -> marshal(responseFactory.get()));
+	}
+
+	// Drops the cached responses of the removed game.
+	@Override
+	public void onGameRemoved(Game game) {
+		responsesByGame.remove(game.getGameId());
+	}
+
+	/*
+	 * From here are the private methods for the GameStateResponseCache class.
+	 */
+
+	// Marshals the response to XML, a marshaller is not thread-safe, so each call creates its own.
+	private byte[] marshal(ResponseEnvelope<GameState> response) {
+		try {
+			ByteArrayOutputStream output = new ByteArrayOutputStream(8192);
+			Marshaller marshaller = jaxbContext.createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+			marshaller.marshal(response, output);
+			return output.toByteArray();
+		} catch (JAXBException e) {
+			throw new IllegalStateException("The game state response could not be marshalled.", e);
+		}
+	}
+
+	// The responses of one game state ID, keyed by their perspective.
+	private static class CachedGameState {
+		private final String gameStateId;
+		private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+
+		private CachedGameState(String gameStateId) {
+			this.gameStateId = gameStateId;
+		}
+	}
+}
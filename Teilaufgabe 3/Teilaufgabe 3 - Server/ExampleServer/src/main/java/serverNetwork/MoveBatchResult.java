@@ -0,0 +1,38 @@
+package serverNetwork;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The data of the response to a batch of move actions: how many of the sent moves were applied. Fewer moves are
+ * applied than were sent if the game ended in the meantime or the request timed out while waiting for the turn.
+ */
+@XmlRootElement(name = "moveBatchResult")
+@XmlAccessorType(XmlAccessType.NONE)
+public final class MoveBatchResult {
+	@XmlElement(name = "appliedMoves", required = true)
+	private final int appliedMoves;
+	@XmlElement(name = "sentMoves", required = true)
+	private final int sentMoves;
+
+	public MoveBatchResult() {
+		this(0, 0);
+	}
+
+	public MoveBatchResult(int appliedMoves, int sentMoves) {
+		this.appliedMoves = appliedMoves;
+		this.sentMoves = sentMoves;
+	}
+
+	// Retrieves the number of applied moves.
+	public int getAppliedMoves() {
+		return appliedMoves;
+	}
+
+	// Retrieves the number of moves in the batch.
+	public int getSentMoves() {
+		return sentMoves;
+	}
+}
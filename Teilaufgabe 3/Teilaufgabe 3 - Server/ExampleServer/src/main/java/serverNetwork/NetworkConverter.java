@@ -3,18 +3,27 @@ package serverNetwork;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
 
+import game.GameSnapshot;
+import game.MoveBatch;
+import game.StateChange;
 import map.EMapNodeAttribute;
 import map.EMapNodeTerrain;
-import map.MapNode;
+import map.EMoveDirection;
+import map.MapDimensions;
+import map.PackedBoard;
 import messagesbase.UniqueGameIdentifier;
 import messagesbase.UniquePlayerIdentifier;
+import messagesbase.messagesfromclient.EMove;
 import messagesbase.messagesfromclient.ETerrain;
 import messagesbase.messagesfromclient.PlayerHalfMapNode;
+import messagesbase.messagesfromclient.PlayerMove;
 import messagesbase.messagesfromclient.PlayerRegistration;
 import messagesbase.messagesfromserver.EFortState;
 import messagesbase.messagesfromserver.EPlayerGameState;
@@ -23,11 +32,13 @@ import messagesbase.messagesfromserver.ETreasureState;
 import messagesbase.messagesfromserver.FullMapNode;
 import messagesbase.messagesfromserver.PlayerState;
 import player.EServerPlayerGameState;
-import player.Player;
+import player.PlayerSnapshot;
+import server.exceptions.InvalidMapException;
+import server.exceptions.InvalidMoveException;
 
+@Component
 public class NetworkConverter {
 	private final static Logger logger = LoggerFactory.getLogger(NetworkConverter.class);
-	private final Random random = new Random();
 	
 	public NetworkConverter() {};
 	
@@ -86,40 +97,51 @@ public class NetworkConverter {
 	}
 	
 	/**
-     * Converts the network HalfMap to a server HalfMap in MapNode[][] format.
+     * Converts the network HalfMap to a server HalfMap in PackedBoard format.
      *
      * @param halfMapNodes The collection of HalfMap nodes from the network.
      * @param isPlayerTwo  Indicates if the half map belongs to the second player.
-     * @return The server HalfMap in MapNode[][] format.
+     * @return The server HalfMap in PackedBoard format.
+     * @throws InvalidMapException If a coordinate is negative or exceeds the largest supported half map.
      */
-	public MapNode[][] convertToServerHalfMap(Collection<PlayerHalfMapNode> halfMapNodes, boolean isPLayerTwo) {
-		int numRows = 0;
-        int numCols = 0;
+	public PackedBoard convertToServerHalfMap(Collection<PlayerHalfMapNode> halfMapNodes, boolean isPLayerTwo) {
+		int width = 0;
+        int height = 0;
+        boolean hasNegativeCoordinate = false;
 
         for (PlayerHalfMapNode node : halfMapNodes) {
-            numRows = Math.max(numRows, node.getX());
-            numCols = Math.max(numCols, node.getY());
+            width = Math.max(width, node.getX());
+            height = Math.max(height, node.getY());
+            hasNegativeCoordinate |= node.getX() < 0 || node.getY() < 0;
         }
 
-        numRows++;
-        numCols++;
+        width++;
+        height++;
 
-        MapNode[][] gameHalfMap = new MapNode[numCols][numRows];
+        // The board is allocated from the coordinates, so they must be bounded before the size rule can reject them.
+        if (hasNegativeCoordinate) {
+        	throw new InvalidMapException("The HalfMap contains a node with a negative coordinate.");
+        }
+        if (width > MapDimensions.MAX_SIDE || height > MapDimensions.MAX_SIDE) {
+        	throw new InvalidMapException("The HalfMap exceeds the maximum size of " + MapDimensions.MAX_SIDE + "x" + MapDimensions.MAX_SIDE + ".");
+        }
+
+        PackedBoard gameHalfMap = new PackedBoard(width, height);
 
         for (PlayerHalfMapNode node : halfMapNodes) {
             int x = node.getX();
             int y = node.getY();
             
-            gameHalfMap[y][x] = new MapNode(convertToEMapNodeTerrain(node.getTerrain()));
+            gameHalfMap.setTerrain(x, y, convertToEMapNodeTerrain(node.getTerrain()));
 
             // If it's the half map of the second player, set its fort and position as Enemy.
             if(node.isFortPresent()) {
             	if(isPLayerTwo) {
-            		gameHalfMap[y][x].addAttribute(EMapNodeAttribute.ENEMY_FORT);
-	            	gameHalfMap[y][x].addAttribute(EMapNodeAttribute.ENEMY_POSITION);
+            		gameHalfMap.addAttribute(x, y, EMapNodeAttribute.ENEMY_FORT);
+	            	gameHalfMap.addAttribute(x, y, EMapNodeAttribute.ENEMY_POSITION);
             	} else {
-	            	gameHalfMap[y][x].addAttribute(EMapNodeAttribute.MY_FORT);
-	            	gameHalfMap[y][x].addAttribute(EMapNodeAttribute.MY_POSITION);
+	            	gameHalfMap.addAttribute(x, y, EMapNodeAttribute.MY_FORT);
+	            	gameHalfMap.addAttribute(x, y, EMapNodeAttribute.MY_POSITION);
             	}
             }
         }
@@ -128,15 +150,51 @@ public class NetworkConverter {
     }
 	
 	/**
-     * Converts a list of server Player objects to a collection of network PlayerState objects.
+     * Converts the direction of a network move to the server format.
+     *
+     * @param playerMove The move from the network.
+     * @return The direction of the move in server format.
+     * @throws InvalidMoveException If the move has no direction.
+     */
+	public EMoveDirection convertToServerMove(PlayerMove playerMove) {
+		return convertToEMoveDirection(playerMove.getMove());
+	}
+	
+	/**
+     * Converts the directions of a network batch of moves to the server format.
      *
-     * @param playerStates The list of Player objects in server format.
+     * @param playerMoveBatch The batch of moves from the network.
+     * @return The directions of the moves in server format, in the order they are applied.
+     * @throws InvalidMoveException If a move has no direction.
+     */
+	public List<EMoveDirection> convertToServerMoves(PlayerMoveBatch playerMoveBatch) {
+		List<EMoveDirection> directions = new ArrayList<>();
+		for (EMove move : playerMoveBatch.getMoves()) {
+			directions.add(convertToEMoveDirection(move));
+		}
+		return directions;
+	}
+	
+	/**
+     * Converts a finished batch of moves to the network result, i.e. how many of its moves were applied.
+     *
+     * @param moveBatch The finished batch.
+     * @return The result of the batch in network format.
+     */
+	public MoveBatchResult convertToNetworkMoveBatchResult(MoveBatch moveBatch) {
+		return new MoveBatchResult(moveBatch.getNumOfApplied(), moveBatch.getNumOfMoves());
+	}
+	
+	/**
+     * Converts a list of server player snapshots to a collection of network PlayerState objects.
+     *
+     * @param playerStates The list of player snapshots in server format.
      * @return A collection of PlayerState objects in network format.
      */
-	public Collection<PlayerState> convertToNetworkPayerState(List<Player> playerStates) {
+	public Collection<PlayerState> convertToNetworkPayerState(List<PlayerSnapshot> playerStates) {
 		Collection<PlayerState> players = new ArrayList<>();
 		
-		for(Player player : playerStates) {
+		for(PlayerSnapshot player : playerStates) {
 			EPlayerGameState state = convertToEPlayerGameState(player.getPlayerGameState());
 			UniquePlayerIdentifier playerId = convertToNetworkPlayerId(player.getPlayerId());
 			PlayerState playerState = new PlayerState(player.getFirstName(),player.getLastName(),player.getUAccount(),state,playerId,player.isCollectedTreasure());
@@ -148,60 +206,117 @@ public class NetworkConverter {
 	
 	/**
      * Converts the server FullMap to a collection of network FullMapNode objects.
-     * If it is the second player, their position and fort need to be swapped.
+     * If it is the second player, their position and fort need to be swapped. The treasure of the player and the
+     * enemy fort are only shown on the fields the player has revealed.
      *
      * @param serverFullMap The FullMap in server format.
      * @param isPlayerTwo   Indicates if the map is for the second player.
+     * @param randomSeed    The seed of the random enemy position, the same seed always shows the same position.
      * @return A collection of FullMapNode objects in network format.
      */
-    public Collection<FullMapNode> convertToNetworkFullMap(MapNode[][] serverFullMap, boolean isPlayerTwo) {
+    public Collection<FullMapNode> convertToNetworkFullMap(PackedBoard serverFullMap, boolean isPlayerTwo, long randomSeed) {
         Collection<FullMapNode> fullMapNodes = new ArrayList<>();
 
-        for (int x = 0; x < serverFullMap.length; x++) {
-            for (int y = 0; y < serverFullMap[0].length; y++) {
-                FullMapNode fullMapNode = createFullMapNode(serverFullMap[x][y], isPlayerTwo, y, x);
+        for (int y = 0; y < serverFullMap.getHeight(); y++) {
+            for (int x = 0; x < serverFullMap.getWidth(); x++) {
+                FullMapNode fullMapNode = createFullMapNode(serverFullMap, isPlayerTwo, x, y);
                 fullMapNodes.add(fullMapNode);
             }
         }
 
-        reassignEnemyPosition(fullMapNodes);
+        // Each player sees the enemy at a different random position.
+        SplittableRandom random = new SplittableRandom(randomSeed);
+        reassignEnemyPosition(fullMapNodes, isPlayerTwo ? random.split() : random);
 
         return fullMapNodes;
     }
     
+    /**
+     * Converts the fields of the server FullMap which changed in the given change to network FullMap nodes. Only the
+     * attributes the player can see are considered, so the nodes never reveal where the enemy has moved. The enemy
+     * position shown by the last complete FullMap is not reassigned.
+     *
+     * @param serverFullMap The server FullMap in PackedBoard format.
+     * @param isPlayerTwo   Indicates if it is for the second player.
+     * @param change        The change since the version the player already knows.
+     * @return The changed network FullMap nodes.
+     */
+    public Collection<FullMapNode> convertToNetworkFullMapChanges(PackedBoard serverFullMap, boolean isPlayerTwo, StateChange change) {
+    	// The second player sees the attributes of the enemy as their own, see createFullMapNode. A newly revealed field
+    	// may show the enemy fort or the treasure, so it is sent again as well.
+    	List<EMapNodeAttribute> visibleAttributes = isPlayerTwo
+    			? List.of(EMapNodeAttribute.ENEMY_POSITION, EMapNodeAttribute.ENEMY_FORT, EMapNodeAttribute.ENEMY_TREASURE, EMapNodeAttribute.ENEMY_REVEALED)
+    			: List.of(EMapNodeAttribute.MY_POSITION, EMapNodeAttribute.MY_FORT, EMapNodeAttribute.MY_TREASURE, EMapNodeAttribute.MY_REVEALED);
+    	int[] changedFields = change.getChangedFields(visibleAttributes);
+    	
+        Collection<FullMapNode> fullMapNodes = new ArrayList<>(changedFields.length);
+        for (int field : changedFields) {
+        	int x = field % serverFullMap.getWidth();
+        	int y = field / serverFullMap.getWidth();
+        	fullMapNodes.add(createFullMapNode(serverFullMap, isPlayerTwo, x, y));
+        }
+        
+        return fullMapNodes;
+    }
+    
+    
+    /**
+     * Converts a game snapshot to a compact state event for the given player. The event carries the game state ID as
+     * its ID and the player's game state as its data, the full game state can then be fetched with If-None-Match.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param playerId The ID of the player who receives the event.
+     * @return The state event in network format.
+     */
+	public ServerSentEvent<String> convertToNetworkStateEvent(GameSnapshot snapshot, String playerId) {
+		EPlayerGameState state = EPlayerGameState.MustWait;
+		for(PlayerSnapshot player : snapshot.getPlayers()) {
+			if(player.getPlayerId().equals(playerId)) {
+				state = convertToEPlayerGameState(player.getPlayerGameState());
+			}
+		}
+		
+		return ServerSentEvent.builder(state.name()).id(snapshot.getGameStateId()).event("gameState").build();
+	}
+    
     
 	/* 
 	 * From here are the private methods for the NetworkConverter class.
 	 */
 
     /**
-     * Creates a FullMapNode with proper attributes based on whether it is the second player.
+     * Creates a FullMapNode with proper attributes based on whether it is the second player. Whether the player has
+     * revealed the field is a single bit test, so the map is never searched for what the player has seen.
      *
-     * @param mapNode    The map node.
+     * @param map         The full map.
      * @param isPlayerTwo Indicates if it is for the second player.
-     * @param y          The y-coordinate of the node.
-     * @param x          The x-coordinate of the node.
+     * @param x           The x-coordinate of the node.
+     * @param y           The y-coordinate of the node.
      * @return A FullMapNode with appropriate attributes.
      */
-    private FullMapNode createFullMapNode(MapNode mapNode, boolean isPlayerTwo, int y, int x) {
-        EPlayerPositionState playerPos = convertToEPlayerPositionState(mapNode);
-        ETreasureState treasure = convertToETreasureState(mapNode);
-        EFortState fort = convertToEFortState(mapNode);
-        ETerrain terrain = convertToETerrain(mapNode);
+    private FullMapNode createFullMapNode(PackedBoard map, boolean isPlayerTwo, int x, int y) {
+        boolean isRevealed = map.hasAttribute(x, y, isPlayerTwo ? EMapNodeAttribute.ENEMY_REVEALED : EMapNodeAttribute.MY_REVEALED);
+        EPlayerPositionState playerPos = convertToEPlayerPositionState(map, x, y);
+        ETreasureState treasure = convertToETreasureState(map, x, y, isPlayerTwo ? EMapNodeAttribute.ENEMY_TREASURE : EMapNodeAttribute.MY_TREASURE);
+        EFortState fort = convertToEFortState(map, x, y);
+        ETerrain terrain = convertToETerrain(map, x, y);
 
         if (isPlayerTwo) {
             playerPos = swapPlayerPosition(playerPos);
             fort = swapFortState(fort);
         }
 
-        if (fort == EFortState.EnemyFortPresent) {
-            fort = EFortState.NoOrUnknownFortState;
+        if (!isRevealed) {
+            treasure = ETreasureState.NoOrUnknownTreasureState;
+            if (fort == EFortState.EnemyFortPresent) {
+                fort = EFortState.NoOrUnknownFortState;
+            }
         }
 
         if (playerPos == EPlayerPositionState.EnemyPlayerPosition) {
-            return new FullMapNode(terrain, EPlayerPositionState.NoPlayerPresent, treasure, fort, y, x);
+            return new FullMapNode(terrain, EPlayerPositionState.NoPlayerPresent, treasure, fort, x, y);
         } else {
-            return new FullMapNode(terrain, playerPos, treasure, fort, y, x);
+            return new FullMapNode(terrain, playerPos, treasure, fort, x, y);
         }
     }
 
@@ -239,8 +354,9 @@ public class NetworkConverter {
      * Reassigns the enemy position to a new random position.
      *
      * @param fullMapNodes The collection of FullMapNodes.
+     * @param random       The generator which picks the position.
      */
-    private void reassignEnemyPosition(Collection<FullMapNode> fullMapNodes) {
+    private void reassignEnemyPosition(Collection<FullMapNode> fullMapNodes, SplittableRandom random) {
         List<FullMapNode> nonEnemyPositions = new ArrayList<>(fullMapNodes);
 
         int randomIndex = random.nextInt(nonEnemyPositions.size());
@@ -249,6 +365,32 @@ public class NetworkConverter {
         fullMapNodes.add(new FullMapNode(randomNonEnemyPosNode.getTerrain(), EPlayerPositionState.EnemyPlayerPosition, randomNonEnemyPosNode.getTreasureState(), randomNonEnemyPosNode.getFortState(), randomNonEnemyPosNode.getX(), randomNonEnemyPosNode.getY()));
     }
 	
+    /**
+     * Converts a network move to the direction of the move in server format.
+     *
+     * @param move The move in network format.
+     * @return The direction in server format.
+     * @throws InvalidMoveException If the move has no direction.
+     */
+	private EMoveDirection convertToEMoveDirection(EMove move) {
+		if (move == null) {
+			throw new InvalidMoveException("The move has no direction.");
+		}
+		
+		switch (move) {
+		case Up:
+			return EMoveDirection.UP;
+		case Down:
+			return EMoveDirection.DOWN;
+		case Left:
+			return EMoveDirection.LEFT;
+		case Right:
+			return EMoveDirection.RIGHT;
+		default:
+			throw new IllegalArgumentException("Unknown move: " + move);
+		}
+	}
+	
     /**
      * Converts the server player game state to a network player game state.
      *
@@ -278,19 +420,21 @@ public class NetworkConverter {
 	}
 	
 	/**
-     * Converts the map node's attributes to a network player position state.
+     * Converts the attributes of a field to a network player position state.
      *
-     * @param mapNode The map node.
+     * @param map The map.
+     * @param x   The x-coordinate of the field.
+     * @param y   The y-coordinate of the field.
      * @return The player position state in network format.
      */
-	private EPlayerPositionState convertToEPlayerPositionState(MapNode mapNode) {
+	private EPlayerPositionState convertToEPlayerPositionState(PackedBoard map, int x, int y) {
 		EPlayerPositionState playerPos = null;
 		
-    	if(mapNode.hasAttribute(EMapNodeAttribute.MY_POSITION) && mapNode.hasAttribute(EMapNodeAttribute.ENEMY_POSITION)) {
+    	if(map.hasAttribute(x, y, EMapNodeAttribute.MY_POSITION) && map.hasAttribute(x, y, EMapNodeAttribute.ENEMY_POSITION)) {
     		playerPos = EPlayerPositionState.BothPlayerPosition;
-    	} else if(mapNode.hasAttribute(EMapNodeAttribute.MY_POSITION)) {
+    	} else if(map.hasAttribute(x, y, EMapNodeAttribute.MY_POSITION)) {
     		playerPos = EPlayerPositionState.MyPlayerPosition;
-    	} else if(mapNode.hasAttribute(EMapNodeAttribute.ENEMY_POSITION)) {
+    	} else if(map.hasAttribute(x, y, EMapNodeAttribute.ENEMY_POSITION)) {
     		playerPos = EPlayerPositionState.EnemyPlayerPosition;
     	} else {
     		playerPos = EPlayerPositionState.NoPlayerPresent;
@@ -300,15 +444,18 @@ public class NetworkConverter {
 	}
 	
 	/**
-     * Converts the map node's attributes to a network treasure state.
+     * Converts the attributes of a field to a network treasure state.
      *
-     * @param mapNode The map node.
+     * @param map               The map.
+     * @param x                 The x-coordinate of the field.
+     * @param y                 The y-coordinate of the field.
+     * @param treasureAttribute The attribute of the treasure of the player the state is for.
      * @return The treasure state in network format.
      */
-	private ETreasureState convertToETreasureState(MapNode mapNode) {
+	private ETreasureState convertToETreasureState(PackedBoard map, int x, int y, EMapNodeAttribute treasureAttribute) {
 		ETreasureState treasure = null;
 
-    	if(mapNode.hasAttribute(EMapNodeAttribute.MY_TREASURE)) {
+    	if(map.hasAttribute(x, y, treasureAttribute)) {
     		treasure = ETreasureState.MyTreasureIsPresent;
     	} else {
     		treasure = ETreasureState.NoOrUnknownTreasureState;
@@ -318,17 +465,19 @@ public class NetworkConverter {
 	}
 	
 	/**
-     * Converts the map node's attributes to a network fort state.
+     * Converts the attributes of a field to a network fort state.
      *
-     * @param mapNode The map node.
+     * @param map The map.
+     * @param x   The x-coordinate of the field.
+     * @param y   The y-coordinate of the field.
      * @return The fort state in network format.
      */
-	private EFortState convertToEFortState(MapNode mapNode) {
+	private EFortState convertToEFortState(PackedBoard map, int x, int y) {
 		EFortState fort = null;
 		          	
-    	if(mapNode.hasAttribute(EMapNodeAttribute.MY_FORT)) {
+    	if(map.hasAttribute(x, y, EMapNodeAttribute.MY_FORT)) {
     		fort = EFortState.MyFortPresent;
-    	} else if(mapNode.hasAttribute(EMapNodeAttribute.ENEMY_FORT)) {
+    	} else if(map.hasAttribute(x, y, EMapNodeAttribute.ENEMY_FORT)) {
     		fort = EFortState.EnemyFortPresent;
     	} 
     	else {
@@ -339,15 +488,17 @@ public class NetworkConverter {
 	}
 	
 	/**
-     * Converts the map node's terrain to a network terrain.
+     * Converts the terrain of a field to a network terrain.
      *
-     * @param mapNode The map node.
+     * @param map The map.
+     * @param x   The x-coordinate of the field.
+     * @param y   The y-coordinate of the field.
      * @return The terrain in network format.
      */
-	private ETerrain convertToETerrain(MapNode mapNode) {
+	private ETerrain convertToETerrain(PackedBoard map, int x, int y) {
 		ETerrain terrain = null;
           		
-        EMapNodeTerrain nodes = mapNode.getTerrain();
+        EMapNodeTerrain nodes = map.getTerrain(x, y);
         switch (nodes) {
             case MOUNTAIN:
             	terrain = ETerrain.Mountain;
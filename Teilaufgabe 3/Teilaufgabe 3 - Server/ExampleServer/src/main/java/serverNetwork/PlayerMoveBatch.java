@@ -0,0 +1,42 @@
+package serverNetwork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import messagesbase.UniquePlayerIdentifier;
+import messagesbase.messagesfromclient.EMove;
+
+/**
+ * The network message of a batch of move actions, e.g. the 2 to 4 actions it takes to reach the next field. It is
+ * sent like a PlayerMove, with the moves in the order they are applied:
+ *
+ * <playerMoveBatch><uniquePlayerID>...</uniquePlayerID><moves><move>Up</move><move>Up</move></moves></playerMoveBatch>
+ */
+@XmlRootElement(name = "playerMoveBatch")
+@XmlAccessorType(XmlAccessType.NONE)
+public final class PlayerMoveBatch extends UniquePlayerIdentifier {
+	@XmlElementWrapper(name = "moves", required = true)
+	@XmlElement(name = "move", required = true)
+	private final List<EMove> moves;
+
+	public PlayerMoveBatch() {
+		this.moves = new ArrayList<>();
+	}
+
+	public PlayerMoveBatch(String uniquePlayerID, List<EMove> moves) {
+		super(uniquePlayerID);
+		this.moves = new ArrayList<>(moves);
+	}
+
+	// Retrieves the moves in the order they are applied.
+	public List<EMove> getMoves() {
+		return Collections.unmodifiableList(moves);
+	}
+}
@@ -0,0 +1,43 @@
+package serverNetwork;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.xml.Jaxb2XmlDecoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Configures the codecs of the reactive runtime mode. The XML decoder of WebFlux lets the error of a malformed request
+ * body escape as NoSuchElementException, which is answered with 500, while the servlet mode answers it with 400. The
+ * decoder registered here reports it as DecodingException instead, which WebFlux answers with 400 as well.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCodecConfiguration implements WebFluxConfigurer {
+
+	@Override
+	public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+		configurer.defaultCodecs().jaxb2Decoder(new MalformedXmlDecoder());
+	}
+
+	// Reports a request body which is no well-formed XML as DecodingException.
+	private static class MalformedXmlDecoder extends Jaxb2XmlDecoder {
+
+		@Override
+		public Object decode(DataBuffer dataBuffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints)
+				throws DecodingException {
+			try {
+				return super.decode(dataBuffer, targetType, mimeType, hints);
+			} catch (NoSuchElementException e) {
+				throw new DecodingException("The request body is no well-formed XML: " + e.getMessage(), e);
+			}
+		}
+	}
+}
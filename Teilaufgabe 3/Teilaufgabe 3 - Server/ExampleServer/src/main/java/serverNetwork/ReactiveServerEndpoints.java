@@ -0,0 +1,190 @@
+package serverNetwork;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import messagesbase.ResponseEnvelope;
+import messagesbase.UniqueGameIdentifier;
+import messagesbase.UniquePlayerIdentifier;
+import messagesbase.messagesfromclient.PlayerHalfMap;
+import messagesbase.messagesfromclient.PlayerMove;
+import messagesbase.messagesfromclient.PlayerRegistration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import server.exceptions.GenericExampleException;
+import server.exceptions.InvalidMapSizeException;
+
+/**
+ * Serves the same /games API as ServerEndpoints with Spring WebFlux on Reactor Netty, when the server is started with
+ * spring.main.web-application-type=reactive. A few event loop threads serve all connections, so no handler may block.
+ * The requests are handled by the GameRequestHandler, whose futures never block, this class only adapts them to Mono.
+ * The futures of the commands are completed by the mailbox of a game or the journal, so their responses are encoded
+ * on the parallel scheduler instead of holding up the next command or the next force of the journal.
+ */
+@RestController
+@RequestMapping(value = "/games")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerEndpoints {
+	private final GameRequestHandler requestHandler;
+
+	public ReactiveServerEndpoints(GameRequestHandler requestHandler) {
+		this.requestHandler = requestHandler;
+	}
+
+	/**
+     * Creates a new game for the client and generates a unique game ID. Creating a game waits until its first state
+     * is durable, which is rare compared to the other requests, so it runs on a worker thread instead of the event loop.
+     *
+     * @param enableDebugMode        Enables debug mode if true.
+     * @param enableDummyCompetition Enables dummy competition mode if true.
+     * @param halfMapWidth           The number of columns of each half map, 10 unless configured otherwise.
+     * @param halfMapHeight          The number of rows of each half map, 5 unless configured otherwise.
+     * @return Mono of the UniqueGameIdentifier for the client.
+     * @throws InvalidMapSizeException If the half map size is not supported.
+     */
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
+	public @ResponseBody Mono<UniqueGameIdentifier> newGame(
+			@RequestParam(required = false, defaultValue = "false", value = "enableDebugMode") boolean enableDebugMode,
+			@RequestParam(required = false, defaultValue = "false", value = "enableDummyCompetition") boolean enableDummyCompetition,
+			@RequestParam(required = false, defaultValue = "${game.half-map-width:10}", value = "halfMapWidth") int halfMapWidth,
+			@RequestParam(required = false, defaultValue = "${game.half-map-height:5}", value = "halfMapHeight") int halfMapHeight,
+			@RequestParam(required = false, value = "seed") Long seed) {
+
+		return Mono.fromCallable(() -> requestHandler.createGame(halfMapWidth,halfMapHeight,seed))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+     * Registers a new player in the specified game and generates a unique player ID.
+     *
+     * @param gameID             The unique identifier of the game.
+     * @param playerRegistration The registration details of the player.
+     * @return Mono of the ResponseEnvelope containing the UniquePlayerIdentifier for the client.
+     */
+	@RequestMapping(value = "/{gameID}/players", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+	public @ResponseBody Mono<ResponseEnvelope<UniquePlayerIdentifier>> registerPlayer(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @RequestBody PlayerRegistration playerRegistration) {
+
+		return Mono.fromFuture(requestHandler.registerPlayer(gameID,playerRegistration)).publishOn(Schedulers.parallel());
+	}
+
+	/**
+     * Receives the half-map from the player and processes it.
+     *
+     * @param gameID The unique identifier of the game.
+     * @param halfMap The half-map sent by the player.
+     * @return Mono of the ResponseEnvelope indicating the result of the operation.
+     */
+	@RequestMapping(value = "/{gameID}/halfmaps", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+	public @ResponseBody Mono<ResponseEnvelope<Object>> receiveHalfMap(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @RequestBody PlayerHalfMap halfMap) {
+
+		return Mono.fromFuture(requestHandler.receiveHalfMap(gameID,halfMap)).publishOn(Schedulers.parallel());
+	}
+
+	/**
+     * Receives one move action from the player and applies it, see GameRequestHandler.receiveMove.
+     *
+     * @param gameID     The unique identifier of the game.
+     * @param playerMove The move sent by the player.
+     * @return Mono of the ResponseEnvelope indicating the result of the operation.
+     */
+	@RequestMapping(value = "/{gameID}/moves", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+	public @ResponseBody Mono<ResponseEnvelope<Object>> receiveMove(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @RequestBody PlayerMove playerMove) {
+
+		return Mono.fromFuture(requestHandler.receiveMove(gameID,playerMove)).publishOn(Schedulers.parallel());
+	}
+
+	/**
+     * Receives a batch of move actions from the player, see GameRequestHandler.receiveMoveBatch. The request waits for
+     * the turns of the batch without occupying a thread.
+     *
+     * @param gameID          The unique identifier of the game.
+     * @param playerMoveBatch The batch of moves sent by the player.
+     * @return Mono of the marshalled ResponseEnvelope containing the MoveBatchResult.
+     */
+	@RequestMapping(value = "/{gameID}/moves/batch", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+	public Mono<ResponseEntity<byte[]>> receiveMoveBatch(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @RequestBody PlayerMoveBatch playerMoveBatch) {
+
+		return Mono.fromFuture(requestHandler.receiveMoveBatch(gameID,playerMoveBatch)).publishOn(Schedulers.parallel());
+	}
+
+	/**
+     * Sends the current game state to the specified player, see GameRequestHandler.getGameState. Reading the snapshot
+     * never waits, so the response is assembled on the event loop.
+     *
+     * @param gameID       The unique identifier of the game.
+     * @param playerID     The unique identifier of the player.
+     * @param sinceVersion The state version the client already knows, if it only wants the changes.
+     * @param exchange     The exchange, used to check the If-None-Match header.
+     * @return The marshalled ResponseEnvelope containing the current GameState, null if it has not been modified.
+     */
+	@RequestMapping(value = "/{gameID}/states/{playerID}", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
+	public ResponseEntity<byte[]> sendGameState(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @PathVariable UniquePlayerIdentifier playerID,
+			@RequestParam(required = false, value = "sinceVersion") Long sinceVersion,
+			ServerWebExchange exchange) {
+
+		return requestHandler.getGameState(gameID,playerID,sinceVersion,exchange::checkNotModified);
+	}
+
+	/**
+     * Waits until the game state ID of the game differs from the one the player already knows and then sends the new
+     * game state, see GameRequestHandler.awaitGameState. The waiting request is only a listener of the game.
+     *
+     * @param gameID      The unique identifier of the game.
+     * @param playerID    The unique identifier of the player.
+     * @param gameStateId The game state ID the player already knows. Without it the current game state is sent at once.
+     * @return Mono of the marshalled ResponseEnvelope containing the new GameState.
+     */
+	@RequestMapping(value = "/{gameID}/states/{playerID}/changes", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
+	public Mono<ResponseEntity<byte[]>> awaitGameState(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @PathVariable UniquePlayerIdentifier playerID,
+			@RequestParam(required = false, value = "gameStateId") String gameStateId) {
+
+		return Mono.fromFuture(requestHandler.awaitGameState(gameID,playerID,gameStateId));
+	}
+
+	/**
+     * Opens a stream which pushes a compact state event to the player whenever the game state changes, see
+     * GameRequestHandler.streamGameState.
+     *
+     * @param gameID   The unique identifier of the game.
+     * @param playerID The unique identifier of the player.
+     * @return Flux of server-sent events with the game state ID as ID and the player's game state as data.
+     */
+	@RequestMapping(value = "/{gameID}/states/{playerID}/events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<String>> streamGameState(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @PathVariable UniquePlayerIdentifier playerID) {
+
+		return requestHandler.streamGameState(gameID,playerID);
+	}
+
+	// Answers a failed validation with a ResponseEnvelope carrying the exception, with status 200 like the servlet mode.
+	@ExceptionHandler({ GenericExampleException.class })
+	public @ResponseBody ResponseEnvelope<?> handleException(GenericExampleException ex) {
+		return new ResponseEnvelope<>(ex.getErrorName(), ex.getMessage());
+	}
+}
@@ -0,0 +1,180 @@
+package serverNetwork;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+import java.util.concurrent.CompletionException;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import game.GameController;
+import game.GameSnapshot;
+import game.MoveBatch;
+import game.StateChange;
+import messagesbase.ResponseEnvelope;
+import messagesbase.messagesfromserver.FullMap;
+import messagesbase.messagesfromserver.GameState;
+import messagesbase.messagesfromserver.PlayerState;
+import player.PlayerController;
+
+/**
+ * Assembles the marshalled responses which the endpoints send as they are, i.e. the game states from the response
+ * cache and the results of move batches. It is shared by the servlet and the reactive endpoints, so both runtime modes
+ * send the same XML.
+ */
+@Component
+public class ResponseAssembler {
+	private final PlayerController playerController;
+	private final NetworkConverter networkConverter;
+	private final GameStateResponseCache responseCache;
+	// Knows the result of a batch of moves, which the ResponseEnvelope of the network messages does not know.
+	private final JAXBContext moveBatchContext;
+
+	public ResponseAssembler(GameController gameController, PlayerController playerController,
+			NetworkConverter networkConverter, GameStateResponseCache responseCache) {
+		this.playerController = playerController;
+		this.networkConverter = networkConverter;
+		this.responseCache = responseCache;
+		try {
+			this.moveBatchContext = JAXBContext.newInstance(ResponseEnvelope.class, MoveBatchResult.class);
+		} catch (JAXBException e) {
+			throw new IllegalStateException("The JAXB context for the move batch responses could not be created.", e);
+		}
+
+		// Drop the cached game state responses of removed games.
+		gameController.addGameRemovalListener(responseCache);
+	}
+
+	/**
+     * Retrieves the marshalled game state of a snapshot from the response cache, with an ETag that can be used for
+     * If-None-Match. Only the changes are sent if the player knows the given version and the changes since then are
+     * still known, the complete game state otherwise. See eTagOf for the ETag of each.
+     *
+     * @param snapshot     The snapshot of the game.
+     * @param playerId     The ID of the requesting player.
+     * @param sinceVersion The state version the player already knows, null if it wants the complete game state.
+     * @return The marshalled ResponseEnvelope containing the GameState.
+     */
+	public ResponseEntity<byte[]> createGameState(GameSnapshot snapshot, String playerId, Long sinceVersion) {
+		StateChange change = sinceVersion != null ? snapshot.getChangesSince(sinceVersion) : null;
+		if(change == null) {
+			return createGameState(snapshot,playerId);
+		}
+		byte[] response = responseCache.getResponse(snapshot,playerId + "@" + sinceVersion,() -> assembleGameStateChanges(snapshot,playerId,change));
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).eTag(changesETag(snapshot,sinceVersion)).body(response);
+	}
+
+	/**
+     * Retrieves the ETag of the game state which createGameState sends for the given version. The complete game state
+     * is tagged with its game state ID. The changes are a different representation of the same state, so they are
+     * tagged with the game state ID and the version they start from, e.g. 7-d5. Otherwise a client which has the
+     * changes would be told that it has the complete game state, and the other way around.
+     *
+     * @param snapshot     The snapshot of the game.
+     * @param sinceVersion The state version the player already knows, null if it wants the complete game state.
+     * @return The ETag of the response, without quotes.
+     */
+	public String eTagOf(GameSnapshot snapshot, Long sinceVersion) {
+		if(sinceVersion == null || snapshot.getChangesSince(sinceVersion) == null) {
+			return snapshot.getGameStateId();
+		}
+		return changesETag(snapshot,sinceVersion);
+	}
+
+	// Retrieves the marshalled complete game state of a snapshot from the response cache, with its game state ID as ETag.
+	public ResponseEntity<byte[]> createGameState(GameSnapshot snapshot, String playerId) {
+		byte[] response = responseCache.getResponse(snapshot,playerId,() -> assembleGameState(snapshot,playerId));
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).eTag(snapshot.getGameStateId()).body(response);
+	}
+
+	/**
+     * Marshals the result of a finished batch of moves, i.e. the number of applied moves.
+     *
+     * @param moveBatch The finished batch.
+     * @return The marshalled ResponseEnvelope containing the MoveBatchResult.
+     * @throws RuntimeException The exception of the move which was rejected, if the batch failed.
+     */
+	public ResponseEntity<byte[]> createMoveBatchResult(MoveBatch moveBatch) {
+		try {
+			moveBatch.getCompletion().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+
+		ResponseEnvelope<MoveBatchResult> response = new ResponseEnvelope<MoveBatchResult>(networkConverter.convertToNetworkMoveBatchResult(moveBatch));
+		try {
+			ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+			Marshaller marshaller = moveBatchContext.createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+			marshaller.marshal(response, output);
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body(output.toByteArray());
+		} catch (JAXBException e) {
+			throw new IllegalStateException("The result of the move batch could not be marshalled.", e);
+		}
+	}
+
+	/*
+	 * From here are the private methods for the ResponseAssembler class.
+	 */
+
+	// Retrieves the ETag of the changes since the given version.
+	private static String changesETag(GameSnapshot snapshot, long sinceVersion) {
+		return snapshot.getGameStateId() + "-d" + sinceVersion;
+	}
+
+	/**
+     * Assembles the game state of a snapshot as seen by the given player.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param playerId The ID of the requesting player.
+     * @return ResponseEnvelope containing the GameState.
+     */
+	private ResponseEnvelope<GameState> assembleGameState(GameSnapshot snapshot, String playerId) {
+		// Retrieve and convert the player states to network format.
+		Collection<PlayerState> players = networkConverter.convertToNetworkPayerState(playerController.getPlayerState(snapshot,playerId));
+
+		// Retrieve the game state ID of the snapshot.
+		String gameStateID = snapshot.getGameStateId();
+
+		// Return the game state with the full map if available. Determine if it's the game state for the second Player.
+		if(snapshot.isMapComplete()) {
+			boolean isPlayerTwo = snapshot.isPlayerTwo(playerId);
+			FullMap networkFullMap = new FullMap(networkConverter.convertToNetworkFullMap(snapshot.getFullMap(),isPlayerTwo,snapshot.getRandomSeed()));
+			return new ResponseEnvelope<GameState>(new GameState(networkFullMap, players, gameStateID));
+		}
+
+		// Return the game state without the full map.
+		return new ResponseEnvelope<GameState>(new GameState(players,gameStateID));
+	}
+
+	/**
+     * Assembles the changes of a snapshot as seen by the given player: only the players whose state changed and the
+     * map nodes where an attribute visible to the player changed.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param playerId The ID of the requesting player.
+     * @param change   The change since the version the player already knows.
+     * @return ResponseEnvelope containing the GameState with only the changes.
+     */
+	private ResponseEnvelope<GameState> assembleGameStateChanges(GameSnapshot snapshot, String playerId, StateChange change) {
+		Collection<PlayerState> players = networkConverter.convertToNetworkPayerState(
+				playerController.getPlayerState(snapshot,playerId,change.getChangedPlayerIds()));
+		String gameStateID = snapshot.getGameStateId();
+
+		// A change never completes the full map, so the map is either complete in both versions or in none.
+		if(snapshot.isMapComplete()) {
+			boolean isPlayerTwo = snapshot.isPlayerTwo(playerId);
+			FullMap changedNodes = new FullMap(networkConverter.convertToNetworkFullMapChanges(snapshot.getFullMap(),isPlayerTwo,change));
+			return new ResponseEnvelope<GameState>(new GameState(changedNodes, players, gameStateID));
+		}
+		return new ResponseEnvelope<GameState>(new GameState(players,gameStateID));
+	}
+}
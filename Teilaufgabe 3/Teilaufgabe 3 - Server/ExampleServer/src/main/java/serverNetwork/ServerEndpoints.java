@@ -1,14 +1,17 @@
 package serverNetwork;
 
-import java.util.Collection;
-import java.util.List;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletResponse;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,55 +21,60 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import game.GameController;
-import map.HalfMapValidator;
-import map.MapController;
-import map.MapNode;
-import map.ServerFullMap;
 import messagesbase.ResponseEnvelope;
 import messagesbase.UniqueGameIdentifier;
 import messagesbase.UniquePlayerIdentifier;
 import messagesbase.messagesfromclient.PlayerHalfMap;
+import messagesbase.messagesfromclient.PlayerMove;
 import messagesbase.messagesfromclient.PlayerRegistration;
-import messagesbase.messagesfromserver.FullMap;
-import messagesbase.messagesfromserver.GameState;
-import messagesbase.messagesfromserver.PlayerState;
-import player.PlayerController;
-import rules.GameIdExistsRule;
-import rules.PlayerCountRule;
-import rules.PlayerIdExistsRule;
-import rules.PlayerTurnRule;
+import reactor.core.Disposable;
 import server.exceptions.GenericExampleException;
+import server.exceptions.InvalidMapSizeException;
 
+/**
+ * Serves the /games API with Spring MVC on Tomcat, one thread per request which is not waiting asynchronously. This is
+ * the default runtime mode, ReactiveServerEndpoints serves the same API when the server is started as reactive. The
+ * requests are handled by the GameRequestHandler, this class only adapts its futures to the servlet container.
+ */
 @RestController
 @RequestMapping(value = "/games")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ServerEndpoints {
-	private final static Logger logger = LoggerFactory.getLogger(ServerEndpoints.class);
-	
-	private final GameController gameController = new GameController();
-	private final PlayerController playerController = new PlayerController();
-	private final NetworkConverter networkConverter = new NetworkConverter();
-	
+	// The time a waiting request gets beyond the long-poll timeout, before the container gives up on its response.
+	private static final long RESPONSE_GRACE_MILLIS = 10000;
+
+	private final GameRequestHandler requestHandler;
+
+	@Value("${game.event-stream-timeout-seconds:1800}")
+	private long eventStreamTimeoutSeconds;
+
+	public ServerEndpoints(GameRequestHandler requestHandler) {
+		this.requestHandler = requestHandler;
+	}
+
 	/**
      * Creates a new game for the client and generates a unique game ID.
      *
      * @param enableDebugMode        Enables debug mode if true.
      * @param enableDummyCompetition Enables dummy competition mode if true.
+     * @param halfMapWidth           The number of columns of each half map, 10 unless configured otherwise.
+     * @param halfMapHeight          The number of rows of each half map, 5 unless configured otherwise.
      * @return UniqueGameIdentifier for the client.
+     * @throws InvalidMapSizeException If the half map size is not supported.
      */
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
 	public @ResponseBody UniqueGameIdentifier newGame(
 			@RequestParam(required = false, defaultValue = "false", value = "enableDebugMode") boolean enableDebugMode,
-			@RequestParam(required = false, defaultValue = "false", value = "enableDummyCompetition") boolean enableDummyCompetition) {
-		
-		// Create a new Game in the Server and generate an unique gameId.
-		String newGameID = gameController.createNewGame();
-		
-		logger.info("Created a new game with id: " + newGameID + ".");
-		
-		// Convert the gameId to network format and return it.
-		return networkConverter.convertToNetworkGameId(newGameID);
+			@RequestParam(required = false, defaultValue = "false", value = "enableDummyCompetition") boolean enableDummyCompetition,
+			@RequestParam(required = false, defaultValue = "${game.half-map-width:10}", value = "halfMapWidth") int halfMapWidth,
+			@RequestParam(required = false, defaultValue = "${game.half-map-height:5}", value = "halfMapHeight") int halfMapHeight,
+			@RequestParam(required = false, value = "seed") Long seed) {
+
+		return requestHandler.createGame(halfMapWidth,halfMapHeight,seed);
 	}
 
 	/**
@@ -74,129 +82,182 @@ public class ServerEndpoints {
      *
      * @param gameID             The unique identifier of the game.
      * @param playerRegistration The registration details of the player.
-     * @return ResponseEnvelope containing the UniquePlayerIdentifier for the client.
+     * @return Completed with the ResponseEnvelope containing the UniquePlayerIdentifier for the client.
      */
 	@RequestMapping(value = "/{gameID}/players", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-	public @ResponseBody ResponseEnvelope<UniquePlayerIdentifier> registerPlayer(
+	public @ResponseBody CompletableFuture<ResponseEnvelope<UniquePlayerIdentifier>> registerPlayer(
 			@Validated @PathVariable UniqueGameIdentifier gameID,
 			@Validated @RequestBody PlayerRegistration playerRegistration) {
-		
-		// Convert the game ID and player registration details to server format.
-		String gameId = networkConverter.convertToServerGameId(gameID);
-		List<String> playerInfo = networkConverter.convertToServerPlayerRegistration(playerRegistration);
-		
-		// Validate the game ID and player count.
-		try {
-            new GameIdExistsRule(gameController).validate(gameId);
-            new PlayerCountRule(gameController).validate(gameId);
-        } catch (GenericExampleException e) {
-        	throw e;
-        }
-		
-		// Create a new player and generate a unique player ID.
-		String newPlayerID = playerController.createNewPlayer(gameId,playerInfo);
-
-		logger.info("Created a new player with id: " + newPlayerID + " under game: " + gameId + ".");
-		
-		// Convert the player ID to network format and return it inside the ResponseEnvelope.
-		return new ResponseEnvelope<>(networkConverter.convertToNetworkPlayerId(newPlayerID));
+
+		return requestHandler.registerPlayer(gameID,playerRegistration);
 	}
-	
+
 	/**
      * Receives the half-map from the player and processes it.
      *
      * @param gameID The unique identifier of the game.
      * @param halfMap The half-map sent by the player.
-     * @return ResponseEnvelope indicating the result of the operation.
+     * @return Completed with the ResponseEnvelope indicating the result of the operation.
      */
 	@RequestMapping(value = "/{gameID}/halfmaps", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-	public @ResponseBody ResponseEnvelope<Object> receiveHalfMap(
+	public @ResponseBody CompletableFuture<ResponseEnvelope<Object>> receiveHalfMap(
 			@Validated @PathVariable UniqueGameIdentifier gameID,
 			@Validated @RequestBody PlayerHalfMap halfMap) {
-		
-		// Convert the game ID and player ID to server format.
-		String gameId = networkConverter.convertToServerGameId(gameID);
-		String playerId = halfMap.getUniquePlayerID();
-		
-		// Validate the game ID, player ID, and player turn.
-		try {
-            new GameIdExistsRule(gameController).validate(gameId);
-            new PlayerIdExistsRule(playerController).validate(playerId);
-            new PlayerTurnRule(playerController).validate(playerId);
-        } catch (GenericExampleException e) {
-        	throw e;
-        }
-		
-		// Determine if it's the second player sending the half-map.
-		boolean isPLayerTwo = gameController.isPlayerTwoHalfMap(gameId);
-		
-		// Convert the half-map to server format and validate it.
-		MapNode[][] serverHalfMap = networkConverter.convertToServerHalfMap(halfMap.getMapNodes(),isPLayerTwo);
-		try {
-			HalfMapValidator halfMapValidator = new HalfMapValidator();
-            halfMapValidator.isValid(serverHalfMap, playerId, gameId);
-        } catch (GenericExampleException e) {
-        	throw e;
-        }
-		
-		// Add the half-map to the map controller and generate a new game state ID.
-		MapController mapController = new MapController();
-		mapController.addHalfMap(serverHalfMap,playerId,gameId);
-		gameController.generateGameStateId(gameId);
-		
-		logger.info("Received halfMap from player with id: " + playerId + " under game: " + gameId + ".");
-		
-		// Return a ResponseEnvelope.
-		return new ResponseEnvelope<Object>();
+
+		return requestHandler.receiveHalfMap(gameID,halfMap);
 	}
-	
+
 	/**
-     * Sends the current game state to the specified player.
+     * Receives one move action from the player and applies it, see GameRequestHandler.receiveMove.
      *
-     * @param gameID  The unique identifier of the game.
-     * @param playerID The unique identifier of the player.
-     * @return ResponseEnvelope containing the current GameState.
+     * @param gameID     The unique identifier of the game.
+     * @param playerMove The move sent by the player.
+     * @return Completed with the ResponseEnvelope indicating the result of the operation.
+     */
+	@RequestMapping(value = "/{gameID}/moves", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+	public @ResponseBody CompletableFuture<ResponseEnvelope<Object>> receiveMove(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @RequestBody PlayerMove playerMove) {
+
+		return requestHandler.receiveMove(gameID,playerMove);
+	}
+
+	/**
+     * Receives a batch of move actions from the player, see GameRequestHandler.receiveMoveBatch. The request is parked
+     * without occupying a thread until the batch is finished.
+     *
+     * @param gameID          The unique identifier of the game.
+     * @param playerMoveBatch The batch of moves sent by the player.
+     * @return DeferredResult which is completed with the marshalled ResponseEnvelope containing the MoveBatchResult.
+     */
+	@RequestMapping(value = "/{gameID}/moves/batch", method = RequestMethod.POST, consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+	public DeferredResult<ResponseEntity<byte[]>> receiveMoveBatch(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @RequestBody PlayerMoveBatch playerMoveBatch) {
+
+		return toWaitingResult(requestHandler.receiveMoveBatch(gameID,playerMoveBatch));
+	}
+
+	/**
+     * Sends the current game state to the specified player, see GameRequestHandler.getGameState.
+     *
+     * @param gameID       The unique identifier of the game.
+     * @param playerID     The unique identifier of the player.
+     * @param sinceVersion The state version the client already knows, if it only wants the changes.
+     * @param request      The request, used to check the If-None-Match header.
+     * @return The marshalled ResponseEnvelope containing the current GameState, null if it has not been modified.
      */
 	@RequestMapping(value = "/{gameID}/states/{playerID}", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
-	public @ResponseBody ResponseEnvelope<GameState> sendGameState(
+	public ResponseEntity<byte[]> sendGameState(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @PathVariable UniquePlayerIdentifier playerID,
+			@RequestParam(required = false, value = "sinceVersion") Long sinceVersion,
+			WebRequest request) {
+
+		return requestHandler.getGameState(gameID,playerID,sinceVersion,request::checkNotModified);
+	}
+
+	/**
+     * Waits until the game state ID of the game differs from the one the player already knows and then sends the new
+     * game state, see GameRequestHandler.awaitGameState. The request is parked without occupying a thread, so a
+     * waiting player costs no server CPU.
+     *
+     * @param gameID      The unique identifier of the game.
+     * @param playerID    The unique identifier of the player.
+     * @param gameStateId The game state ID the player already knows. Without it the current game state is sent at once.
+     * @return DeferredResult which is completed with the marshalled ResponseEnvelope containing the new GameState.
+     */
+	@RequestMapping(value = "/{gameID}/states/{playerID}/changes", method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
+	public DeferredResult<ResponseEntity<byte[]>> awaitGameState(
+			@Validated @PathVariable UniqueGameIdentifier gameID,
+			@Validated @PathVariable UniquePlayerIdentifier playerID,
+			@RequestParam(required = false, value = "gameStateId") String gameStateId) {
+
+		return toWaitingResult(requestHandler.awaitGameState(gameID,playerID,gameStateId));
+	}
+
+	/**
+     * Opens a stream which pushes a compact state event to the player whenever the game state changes, see
+     * GameRequestHandler.streamGameState. The stream holds its connection without a thread, but it is closed after the
+     * event stream timeout, so that the container is never left with connections nobody limits. Clients simply open
+     * a new stream then, its first event carries the current game state.
+     *
+     * @param gameID   The unique identifier of the game.
+     * @param playerID The unique identifier of the player.
+     * @return SseEmitter which sends the events with the game state ID as ID and the player's game state as data.
+     */
+	@RequestMapping(value = "/{gameID}/states/{playerID}/events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamGameState(
 			@Validated @PathVariable UniqueGameIdentifier gameID,
 			@Validated @PathVariable UniquePlayerIdentifier playerID) {
-		
-		// Convert the game ID and player ID to server format.
-		String gameId = networkConverter.convertToServerGameId(gameID);
-		String playerId = networkConverter.convertToServerPlayerId(playerID);
-		
-		// Validate the game ID and player ID.
-		try {
-            new GameIdExistsRule(gameController).validate(gameId);
-            new PlayerIdExistsRule(playerController).validate(playerId);
-        } catch (GenericExampleException e) {
-        	throw e;
-        }
-		
-		// Retrieve and convert the player states to network format.
-		Collection<PlayerState> players = networkConverter.convertToNetworkPayerState(playerController.getPlayerState(gameId,playerId));
-		
-		// Retrieve the current game state ID.
-		String gameStateID = gameController.getGameStateId(gameId);
-		
-		// Retrieve the full map if available and return the game state. Determine if it's the game state for the second Player.
-		boolean isPlayerTwo = gameController.isPlayerTwo(gameId,playerId);
-		ServerFullMap fullMap = gameController.getFullMap(gameId);
-				if(fullMap != null && fullMap.isComplete()) {
-					FullMap networkFullMap = new FullMap(networkConverter.convertToNetworkFullMap(fullMap.getFullMap(),isPlayerTwo));
-					return new ResponseEnvelope<GameState>(new GameState(networkFullMap, players, gameStateID));
-				}
-
-		// Return the game state without the full map.
-		return new ResponseEnvelope<GameState>(new GameState(players,gameStateID));
+
+		SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(eventStreamTimeoutSeconds));
+		Disposable subscription = requestHandler.streamGameState(gameID,playerID).subscribe(
+				event -> sendEvent(emitter,event), emitter::completeWithError, emitter::complete);
+
+		// Stop listening to the game once the stream is closed, for whatever reason.
+		emitter.onTimeout(emitter::complete);
+		emitter.onCompletion(subscription::dispose);
+		emitter.onError(failure -> subscription.dispose());
+		return emitter;
 	}
 
 	@ExceptionHandler({ GenericExampleException.class })
 	public @ResponseBody ResponseEnvelope<?> handleException(GenericExampleException ex, HttpServletResponse response) {
 		ResponseEnvelope<?> result = new ResponseEnvelope<>(ex.getErrorName(), ex.getMessage());
-		
+
 		response.setStatus(HttpServletResponse.SC_OK);
 		return result;
 	}
+
+	/*
+	 * From here are the private methods for the ServerEndpoints class.
+	 */
+
+	/**
+     * Parks a request until the response of a waiting request is ready. The handler already answers within the
+     * long-poll timeout, so the request itself only times out if this response is overdue.
+     *
+     * @param response The response of the waiting request.
+     * @return DeferredResult which is completed with the response, or with the exception of the handler.
+     */
+	private DeferredResult<ResponseEntity<byte[]>> toWaitingResult(CompletableFuture<ResponseEntity<byte[]>> response) {
+		DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>(requestHandler.getLongPollTimeoutMillis() + RESPONSE_GRACE_MILLIS);
+		response.whenComplete((value, failure) -> {
+			if(failure != null) {
+				result.setErrorResult(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+			} else {
+				result.setResult(value);
+			}
+		});
+		return result;
+	}
+
+	/**
+     * Sends a state event or heartbeat to the stream of a player. If the client is gone, the stream is closed, which
+     * also ends its subscription to the game.
+     *
+     * @param emitter The stream of the player.
+     * @param event   The event to send.
+     */
+	private void sendEvent(SseEmitter emitter, ServerSentEvent<String> event) {
+		SseEmitter.SseEventBuilder builder = SseEmitter.event();
+		if(event.comment() != null) {
+			builder.comment(event.comment());
+		}
+		if(event.id() != null) {
+			builder.id(event.id());
+		}
+		if(event.event() != null) {
+			builder.name(event.event());
+		}
+		if(event.data() != null) {
+			builder.data(event.data());
+		}
+		try {
+			emitter.send(builder);
+		} catch (IOException | IllegalStateException e) {
+			emitter.completeWithError(e);
+		}
+	}
 }
@@ -0,0 +1,108 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameMailboxTest {
+    private ExecutorService commandPool;
+    private GameMailbox mailbox;
+
+    @BeforeEach
+    void setUp() {
+        commandPool = Executors.newFixedThreadPool(4);
+        mailbox = new GameMailbox(commandPool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandPool.shutdownNow();
+    }
+
+    @Test
+    void testCommandsRunInSubmissionOrder() {
+        // The list is not thread-safe on purpose, the mailbox alone has to keep the commands apart.
+        List<Integer> executed = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            int number = index;
+            mailbox.submit(() -> executed.add(number));
+        }
+        int size = mailbox.execute(executed::size);
+
+        assertEquals(1000, size, "Every submitted command should run before the waiting one");
+        for (int index = 0; index < 1000; index++) {
+            assertEquals(index, executed.get(index), "The commands should run in the order they were submitted");
+        }
+    }
+
+    @Test
+    void testCommandsNeverRunConcurrently() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        int numOfThreads = 8;
+        int commandsPerThread = 500;
+        CountDownLatch done = new CountDownLatch(numOfThreads * commandsPerThread);
+        ExecutorService submitters = Executors.newFixedThreadPool(numOfThreads);
+        for (int thread = 0; thread < numOfThreads; thread++) {
+            submitters.execute(() -> {
+                for (int command = 0; command < commandsPerThread; command++) {
+                    mailbox.submit(() -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Every command should run");
+        submitters.shutdownNow();
+        assertEquals(1, maxRunning.get(), "At most one command of the mailbox should run at a time");
+    }
+
+    @Test
+    void testExecuteReturnsResultAndRethrows() {
+        assertEquals("result", mailbox.execute(() -> "result"), "The result of the command should be returned");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> mailbox.execute(() -> {
+            throw new IllegalArgumentException("Failing on purpose");
+        }));
+        assertEquals("Failing on purpose", exception.getMessage());
+    }
+
+    @Test
+    void testFailingCommandDoesNotStopTheMailbox() {
+        mailbox.submit(() -> {
+            throw new IllegalStateException("Failing on purpose");
+        });
+        assertEquals(Boolean.TRUE, mailbox.execute(() -> Boolean.TRUE), "Commands after a failing one should still run");
+    }
+
+    @Test
+    void testNestedCommandOfTheSameMailboxRunsInline() {
+        assertFalse(mailbox.isCurrentThread(), "The test thread is not a command of the mailbox");
+
+        String result = mailbox.execute(() -> {
+            assertTrue(mailbox.isCurrentThread(), "The command should run on the mailbox");
+            return mailbox.execute(() -> "nested");
+        });
+        assertEquals("nested", result, "A nested command should run inline instead of waiting for itself");
+    }
+
+    @Test
+    void testCommandMustNotWaitForAnotherMailbox() {
+        GameMailbox otherMailbox = new GameMailbox(commandPool);
+
+        assertThrows(IllegalStateException.class, () -> mailbox.execute(() -> otherMailbox.execute(() -> "blocked")));
+    }
+}
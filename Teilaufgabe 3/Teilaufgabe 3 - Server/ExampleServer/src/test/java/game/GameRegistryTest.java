@@ -0,0 +1,93 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import map.MapDimensions;
+import player.Player;
+import server.exceptions.ServerFullException;
+
+class GameRegistryTest {
+    private static final long HOUR_MILLIS = 3_600_000;
+
+    private GameRegistry registry;
+    private List<Game> removedGames;
+
+    @BeforeEach
+    void setUp() {
+        registry = new GameRegistry();
+        removedGames = new ArrayList<>();
+        registry.addRemovalListener(removedGames::add);
+        // Nothing is due with the idle timeout or the retention, only the least recently used eviction makes room.
+        registry.setRetention(HOUR_MILLIS, HOUR_MILLIS, 0);
+    }
+
+    @Test
+    void testFinishedGameIsEvictedBeforeRunningOne() throws InterruptedException {
+        registry.setCapacity(2);
+        Game running = createGame("running");
+        assertTrue(registry.register(running));
+        Thread.sleep(5);
+        Game finished = createGame("finished");
+        finish(finished);
+        assertTrue(registry.register(finished));
+
+        assertTrue(registry.register(createGame("new")), "The finished game should make room for the new one");
+
+        assertTrue(registry.contains("running"), "The running game should be kept, although it was accessed less recently");
+        assertFalse(registry.contains("finished"));
+        assertTrue(finished.isRemoved());
+        assertEquals(List.of(finished), removedGames, "The listeners should be notified about the evicted game");
+    }
+
+    @Test
+    void testFullRegistryOfRunningGamesRejectsNewGame() {
+        registry.setCapacity(2);
+        assertTrue(registry.register(createGame("lobby")));
+        assertTrue(registry.register(createGame("running")));
+
+        assertThrows(ServerFullException.class, () -> registry.register(createGame("new")),
+                "Running games should not be evicted before their idle timeout");
+        assertEquals(2, registry.size());
+        assertTrue(registry.contains("lobby"), "A game waiting for its second player should be kept");
+        assertTrue(removedGames.isEmpty());
+    }
+
+    @Test
+    void testIdleGameIsEvictedToMakeRoom() {
+        registry.setCapacity(1);
+        registry.setRetention(0, HOUR_MILLIS, HOUR_MILLIS);
+        Game idle = createGame("idle");
+        assertTrue(registry.register(idle));
+
+        assertTrue(registry.register(createGame("new")), "A game past the idle timeout should make room");
+        assertTrue(idle.isRemoved());
+        assertFalse(registry.contains("idle"));
+    }
+
+    @Test
+    void testDuplicateGameIdIsNotRegistered() {
+        Game original = createGame("game1");
+        assertTrue(registry.register(original));
+
+        assertFalse(registry.register(createGame("game1")), "A second game with the same ID should be refused");
+        assertSame(original, registry.find("game1"), "The registered game should not be replaced");
+        assertEquals(1, registry.size());
+    }
+
+    // Creates a game whose mailbox runs the commands on the calling thread.
+    private static Game createGame(String gameId) {
+        return new Game(gameId, MapDimensions.DEFAULT_HALF_MAP, 1L, Runnable::run);
+    }
+
+    // Finishes the game by letting its only player lose.
+    private static void finish(Game game) {
+        game.addPlayer(new Player(game.getGameId(), "player1", "masked1", List.of("First", "Player", "first")));
+        game.setLose("player1");
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import map.EMapNodeAttribute;
+
+class GameSnapshotTest {
+    private static final List<EMapNodeAttribute> POSITIONS = List.of(EMapNodeAttribute.MY_POSITION, EMapNodeAttribute.ENEMY_POSITION);
+
+    @Test
+    void testChangesSinceOlderVersionAreCombined() {
+        GameSnapshot snapshot = createSnapshot(false);
+
+        StateChange change = snapshot.getChangesSince(5);
+
+        assertNotNull(change, "The changes since a retained version should be known");
+        assertEquals(7, change.getVersion(), "The combined change should lead to the version of the snapshot");
+        assertArrayEquals(new int[] { 3, 9 }, change.getChangedFields(List.of(EMapNodeAttribute.MY_POSITION)));
+        assertArrayEquals(new int[] { 1, 3, 9 }, change.getChangedFields(POSITIONS), "The fields should be merged without duplicates");
+        assertEquals(Set.of("player2"), change.getChangedPlayerIds(), "Only the players changed after the version should be included");
+        assertFalse(change.isMapReplaced());
+    }
+
+    @Test
+    void testChangesSinceCurrentVersionAreEmpty() {
+        StateChange change = createSnapshot(false).getChangesSince(7);
+
+        assertNotNull(change);
+        assertEquals(7, change.getVersion());
+        assertEquals(0, change.getChangedFields(List.of(EMapNodeAttribute.values())).length, "Nothing should have changed");
+        assertTrue(change.getChangedPlayerIds().isEmpty());
+    }
+
+    @Test
+    void testChangesSinceOldestRetainedVersionAreKnown() {
+        StateChange change = createSnapshot(false).getChangesSince(3);
+
+        assertNotNull(change, "The first retained change starts right after the version");
+        assertArrayEquals(new int[] { 1, 3, 5, 9 }, change.getChangedFields(POSITIONS));
+        assertEquals(Set.of("player1", "player2"), change.getChangedPlayerIds());
+    }
+
+    @Test
+    void testChangesSinceUnknownVersionRequireFullState() {
+        GameSnapshot snapshot = createSnapshot(false);
+
+        assertNull(snapshot.getChangesSince(2), "A version older than the retained changes needs the full state");
+        assertNull(snapshot.getChangesSince(8), "A version the snapshot has not reached needs the full state");
+    }
+
+    @Test
+    void testChangesAcrossCompletedMapRequireFullState() {
+        GameSnapshot snapshot = createSnapshot(true);
+
+        assertNull(snapshot.getChangesSince(5), "The completed full map cannot be sent field by field");
+        assertNotNull(snapshot.getChangesSince(6), "The changes after the full map was completed are known");
+    }
+
+    // Creates a snapshot at version 7 which retains the changes leading to the versions 4 to 7, the full map is
+    // completed with version 6 if requested.
+    private static GameSnapshot createSnapshot(boolean isMapCompletedAtSix) {
+        List<StateChange> changes = List.of(
+                createChange(4, EMapNodeAttribute.MY_POSITION, new int[] { 3 }, "player1", false),
+                createChange(5, EMapNodeAttribute.MY_POSITION, new int[] { 5 }, "player1", false),
+                createChange(6, EMapNodeAttribute.ENEMY_POSITION, new int[] { 1, 3 }, "player2", isMapCompletedAtSix),
+                createChange(7, EMapNodeAttribute.MY_POSITION, new int[] { 3, 9 }, "player2", false));
+        return new GameSnapshot("game1", 7, List.of(), null, null, changes, 1L);
+    }
+
+    // Creates a change of one attribute and one player.
+    private static StateChange createChange(long version, EMapNodeAttribute attribute, int[] fields, String playerId, boolean isMapReplaced) {
+        Map<EMapNodeAttribute, int[]> changedFields = new EnumMap<>(EMapNodeAttribute.class);
+        changedFields.put(attribute, fields);
+        return new StateChange(version, changedFields, Set.of(playerId), isMapReplaced);
+    }
+}
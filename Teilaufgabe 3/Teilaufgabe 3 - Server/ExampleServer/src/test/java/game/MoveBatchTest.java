@@ -0,0 +1,142 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import map.EMoveDirection;
+import map.HalfMapFixtures;
+import map.MapController;
+import map.MapDimensions;
+import map.PackedBoard;
+import player.PlayerController;
+import server.exceptions.InvalidMoveException;
+
+class MoveBatchTest {
+    private static final List<EMoveDirection> THREE_DOWN = List.of(EMoveDirection.DOWN, EMoveDirection.DOWN, EMoveDirection.DOWN);
+
+    private GameController gameController;
+    private PlayerController playerController;
+    private String gameId;
+    private String actingPlayerId;
+    private String waitingPlayerId;
+
+    @BeforeEach
+    void setUp() {
+        gameController = new GameController();
+        playerController = new PlayerController(gameController);
+        MapController mapController = new MapController(gameController);
+        gameId = gameController.createNewGame(new MapDimensions(10, 5), 42L);
+
+        String firstPlayerId = gameController.executeCommand(gameId, () -> playerController.createNewPlayer(gameId, List.of("First", "Player", "first")));
+        String secondPlayerId = gameController.executeCommand(gameId, () -> playerController.createNewPlayer(gameId, List.of("Second", "Player", "second")));
+        addHalfMap(mapController, firstPlayerId, false);
+        addHalfMap(mapController, secondPlayerId, true);
+
+        actingPlayerId = playerController.isTurn(firstPlayerId) ? firstPlayerId : secondPlayerId;
+        waitingPlayerId = actingPlayerId.equals(firstPlayerId) ? secondPlayerId : firstPlayerId;
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameController.shutdown();
+    }
+
+    @Test
+    void testActionsAreAppliedInConsecutiveTurns() throws InterruptedException, ExecutionException {
+        MoveBatch batch = startBatch(THREE_DOWN);
+        assertEquals(1, batch.getNumOfApplied(), "The first action should be applied right away");
+        assertFalse(batch.getCompletion().isDone());
+
+        moveWaitingPlayer();
+        assertEquals(2, batch.getNumOfApplied(), "The next action should be applied once the turn returns");
+        moveWaitingPlayer();
+
+        assertTrue(batch.getCompletion().isDone(), "The batch should be completed once all actions are applied");
+        assertSame(batch, batch.getCompletion().get());
+        assertEquals(3, batch.getNumOfApplied());
+        assertFalse(playerController.isTurn(actingPlayerId), "The player should wait after the last action of the batch");
+    }
+
+    @Test
+    void testCancelledBatchAppliesNoFurtherActions() {
+        MoveBatch batch = startBatch(THREE_DOWN);
+        String stateBeforeCancel = gameController.getGameStateId(gameId);
+
+        gameController.executeCommand(gameId, () -> {
+            gameController.cancelMoveBatch(gameId, batch);
+            return null;
+        });
+
+        assertTrue(batch.getCompletion().isDone(), "The cancelled batch should be completed by the same command");
+        assertFalse(batch.getCompletion().isCompletedExceptionally());
+        assertEquals(stateBeforeCancel, gameController.getGameStateId(gameId), "Cancelling should not change the state");
+
+        moveWaitingPlayer();
+        assertEquals(1, batch.getNumOfApplied(), "No action should be applied after the cancellation");
+        assertTrue(playerController.isTurn(actingPlayerId), "The player should have to act again");
+    }
+
+    @Test
+    void testBatchEndsWithTheGame() {
+        MoveBatch batch = startBatch(THREE_DOWN);
+
+        gameController.executeCommand(gameId, () -> {
+            gameController.setLose(waitingPlayerId, gameId);
+            return null;
+        });
+
+        assertTrue(batch.getCompletion().isDone(), "The batch should be completed once the game has ended");
+        assertFalse(batch.getCompletion().isCompletedExceptionally());
+        assertEquals(1, batch.getNumOfApplied());
+    }
+
+    @Test
+    void testInvalidActionFailsTheBatch() {
+        MoveBatch batch = startBatch(List.of(EMoveDirection.LEFT, EMoveDirection.DOWN));
+
+        assertTrue(batch.getCompletion().isCompletedExceptionally(), "A move into water should fail the batch");
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> batch.getCompletion().get());
+        assertInstanceOf(InvalidMoveException.class, exception.getCause());
+        assertEquals(0, batch.getNumOfApplied());
+    }
+
+    @Test
+    void testBatchOfMissingGameIsCompletedRightAway() {
+        MoveBatch started = gameController.startMoveBatch("unknown", actingPlayerId, THREE_DOWN);
+        assertTrue(started.getCompletion().isDone(), "A batch of a game which does not exist should be completed right away");
+        assertEquals(0, started.getNumOfApplied());
+
+        MoveBatch cancelled = new MoveBatch(actingPlayerId, THREE_DOWN);
+        gameController.cancelMoveBatch("unknown", cancelled);
+        assertTrue(cancelled.getCompletion().isDone(), "Cancelling a batch of a removed game should complete it right away");
+    }
+
+    // Starts a batch of the player who must act, like the batch endpoint does.
+    private MoveBatch startBatch(List<EMoveDirection> directions) {
+        return gameController.executeCommand(gameId, () -> gameController.startMoveBatch(gameId, actingPlayerId, directions));
+    }
+
+    // Lets the waiting player make one move action down, which returns the turn to the player with the batch.
+    private void moveWaitingPlayer() {
+        gameController.executeCommand(gameId, () -> {
+            gameController.applyMove(gameId, waitingPlayerId, EMoveDirection.DOWN);
+            return null;
+        });
+    }
+
+    // Adds the half map of a player, which lets the batches move down from the fort, like the half map endpoint does.
+    private void addHalfMap(MapController mapController, String playerId, boolean isPlayerTwo) {
+        PackedBoard halfMap = HalfMapFixtures.createGrassHalfMap(10, 5, isPlayerTwo);
+        gameController.executeCommand(gameId, () -> {
+            mapController.addHalfMap(halfMap, playerId, gameId);
+            gameController.advanceStateVersion(gameId);
+            return null;
+        });
+    }
+}
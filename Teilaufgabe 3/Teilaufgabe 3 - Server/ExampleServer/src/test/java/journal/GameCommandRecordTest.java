@@ -0,0 +1,97 @@
+package journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import game.EGameCommand;
+import game.Game;
+import game.GameCommand;
+import map.EMapNodeAttribute;
+import map.EMapNodeTerrain;
+import map.EMoveDirection;
+import map.MapDimensions;
+import map.PackedBoard;
+import player.Player;
+
+class GameCommandRecordTest {
+
+    @Test
+    void testCommandsAreDecodedAsEncoded() throws IOException {
+        Game game = createGame();
+        game.advanceStateVersion();
+        PackedBoard halfMap = new PackedBoard(3, 2);
+        halfMap.setTerrain(2, 1, EMapNodeTerrain.MOUNTAIN);
+        halfMap.addAttribute(2, 1, EMapNodeAttribute.MY_FORT);
+        List<GameCommand> commands = List.of(
+                GameCommand.playerAdded(new Player("game1", "player1", "masked1", Arrays.asList("First", null, "first"))),
+                GameCommand.halfMapAdded("player1", halfMap),
+                GameCommand.moved("player1", EMoveDirection.LEFT),
+                GameCommand.lost("player2"),
+                GameCommand.turnExpired("player1"));
+
+        GameCommandRecord record = decode(GameCommandRecord.encode(game, commands));
+
+        assertEquals("game1", record.getGameId());
+        assertEquals(game.getStateVersion(), record.getStateVersion(), "The record should carry the state version the commands led to");
+        assertFalse(record.isCreation());
+        assertEquals(5, record.getCommands().size());
+
+        Player player = record.getCommands().get(0).getPlayer();
+        assertEquals("player1", player.getPlayerId());
+        assertEquals("masked1", player.getMaskedPlayerId());
+        assertEquals("First", player.getFirstName());
+        assertNull(player.getLastName(), "A missing name should stay missing");
+        assertEquals("first", player.getUAccount());
+        assertEquals("game1", player.getGameId());
+
+        PackedBoard decodedHalfMap = record.getCommands().get(1).getHalfMap();
+        assertEquals(EMapNodeTerrain.MOUNTAIN, decodedHalfMap.getTerrain(2, 1));
+        assertTrue(decodedHalfMap.hasAttribute(2, 1, EMapNodeAttribute.MY_FORT));
+        assertNull(decodedHalfMap.getTerrain(0, 0));
+
+        assertEquals(EGameCommand.Moved, record.getCommands().get(2).getType());
+        assertEquals(EMoveDirection.LEFT, record.getCommands().get(2).getDirection());
+        assertEquals(EGameCommand.Lost, record.getCommands().get(3).getType());
+        assertEquals("player2", record.getCommands().get(3).getPlayerId());
+        assertEquals(EGameCommand.TurnExpired, record.getCommands().get(4).getType());
+    }
+
+    @Test
+    void testCreationIsRecognised() throws IOException {
+        GameCommandRecord record = decode(GameCommandRecord.encode(createGame(), List.of(GameCommand.created(new MapDimensions(12, 6), -7L))));
+
+        assertTrue(record.isCreation());
+        GameCommand creation = record.getCommands().get(0);
+        assertEquals(12, creation.getHalfMapDimensions().getWidth());
+        assertEquals(6, creation.getHalfMapDimensions().getHeight());
+        assertEquals(-7L, creation.getSeed());
+    }
+
+    @Test
+    void testInvalidRecordsAreRejected() {
+        byte[] encoded = GameCommandRecord.encode(createGame(), List.of(GameCommand.moved("player1", EMoveDirection.UP)));
+        byte[] unknownDirection = encoded.clone();
+        unknownDirection[unknownDirection.length - 1] = 9;
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        assertThrows(IOException.class, () -> decode(unknownDirection), "An unknown direction should be rejected");
+        assertThrows(IOException.class, () -> decode(truncated), "A truncated record should be rejected");
+    }
+
+    // Creates a game whose commands are encoded, its mailbox is never used.
+    private static Game createGame() {
+        return new Game("game1", MapDimensions.DEFAULT_HALF_MAP, 1L, Runnable::run);
+    }
+
+    // Decodes an encoded record.
+    private static GameCommandRecord decode(byte[] encoded) throws IOException {
+        return GameCommandRecord.decode(new DataInputStream(new ByteArrayInputStream(encoded)));
+    }
+}
@@ -0,0 +1,258 @@
+package journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import game.Game;
+import game.GameController;
+import map.EMapNodeAttribute;
+import map.EMoveDirection;
+import map.HalfMapFixtures;
+import map.MapController;
+import map.MapDimensions;
+import map.MovementState;
+import map.PackedBoard;
+import player.Player;
+import player.PlayerController;
+import server.exceptions.InvalidMoveException;
+
+class GameJournalTest {
+    private static final long NO_SNAPSHOTS = 3600;
+    private static final EMoveDirection[] SAFE_MOVES = { EMoveDirection.DOWN, EMoveDirection.RIGHT, EMoveDirection.RIGHT };
+
+    @TempDir
+    Path directory;
+
+    private GameController gameController;
+    private PlayerController playerController;
+    private MapController mapController;
+    private GameJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        stopServer();
+    }
+
+    @Test
+    void testGamesAreRecoveredAfterRestart() throws IOException {
+        startServer(NO_SNAPSHOTS);
+        String playedGameId = createPlayedGame(8);
+        String waitingGameId = gameController.createNewGame(new MapDimensions(10, 5), 7L);
+        String waitingPlayerId = addPlayer(waitingGameId, "Waiting");
+        String playedState = describe(playedGameId);
+        String waitingState = describe(waitingGameId);
+
+        stopServer();
+        startServer(NO_SNAPSHOTS);
+
+        assertEquals(playedState, describe(playedGameId), "The commands should lead to the same state again");
+        assertEquals(waitingState, describe(waitingGameId), "A game without a full map should be recovered as well");
+        assertTrue(playerController.checkPlayerIDUsed(waitingPlayerId), "The players should be registered again");
+    }
+
+    @Test
+    void testLossByInvalidMoveIsRecovered() throws IOException {
+        startServer(NO_SNAPSHOTS);
+        String gameId = createPlayedGame(3);
+        String actingPlayerId = findActingPlayer(gameId);
+        assertThrows(InvalidMoveException.class, () -> move(gameId, actingPlayerId, EMoveDirection.LEFT), "The move should lead into water");
+        String lostState = describe(gameId);
+
+        stopServer();
+        startServer(NO_SNAPSHOTS);
+
+        assertEquals(lostState, describe(gameId), "The replayed move should let the player lose again");
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws IOException {
+        startServer(NO_SNAPSHOTS);
+        String gameId = createPlayedGame(5);
+        String state = describe(gameId);
+        stopServer();
+
+        // A crash tore the record after the last durable one, only its header reached the disk.
+        ByteBuffer header = ByteBuffer.allocate(JournalWriter.FRAME_HEADER_SIZE).putInt(100).putInt(12345);
+        Files.write(lastFile("segment-"), header.array(), StandardOpenOption.APPEND);
+        startServer(NO_SNAPSHOTS);
+
+        assertEquals(state, describe(gameId), "The durable records before the torn one should be recovered");
+    }
+
+    @Test
+    void testRemovedGameIsNotRecovered() throws IOException {
+        startServer(NO_SNAPSHOTS);
+        String removedGameId = createPlayedGame(2);
+        String keptGameId = createPlayedGame(2);
+        journal.onGameRemoved(findGame(removedGameId));
+
+        stopServer();
+        startServer(NO_SNAPSHOTS);
+
+        assertFalse(gameController.checkGameIDUsed(removedGameId), "The removed game should not be recovered");
+        assertTrue(gameController.checkGameIDUsed(keptGameId));
+    }
+
+    @Test
+    void testSnapshotReplacesOlderSegments() throws IOException, InterruptedException {
+        startServer(1);
+        String gameId = createPlayedGame(4);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!hasFile("snapshot-") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(hasFile("snapshot-"), "A snapshot should be written");
+        playMoves(gameId, 4);
+        String state = describe(gameId);
+
+        stopServer();
+        assertFalse(Files.exists(directory.resolve(JournalWriter.segmentName(1))), "The segment before the snapshot should be deleted");
+        startServer(NO_SNAPSHOTS);
+
+        assertEquals(state, describe(gameId), "The commands after the snapshot should be executed on its image");
+    }
+
+    @Test
+    void testGamesBeyondCapacityAreSkipped() throws IOException {
+        startServer(NO_SNAPSHOTS);
+        List<String> gameIds = List.of(createPlayedGame(2), createPlayedGame(2), createPlayedGame(2));
+
+        stopServer();
+        startServer(NO_SNAPSHOTS, 2);
+
+        assertEquals(2, gameController.getActiveGames().size(), "The server should start with as many games as fit into its capacity");
+        assertEquals(2, gameIds.stream().filter(gameController::checkGameIDUsed).count());
+    }
+
+    // Starts a server instance on the journal directory, which recovers the games recorded in it.
+    private void startServer(long snapshotIntervalSeconds) throws IOException {
+        startServer(snapshotIntervalSeconds, 5000);
+    }
+
+    // Starts a server instance with the given capacity of active games on the journal directory.
+    private void startServer(long snapshotIntervalSeconds, int capacity) throws IOException {
+        gameController = new GameController();
+        gameController.setCapacity(capacity);
+        playerController = new PlayerController(gameController);
+        mapController = new MapController(gameController);
+        journal = new GameJournal(gameController, playerController, mapController, true, directory.toString(), 64,
+                snapshotIntervalSeconds, true);
+    }
+
+    // Stops the server instance, like it is shut down.
+    private void stopServer() {
+        if (journal != null) {
+            journal.shutdown();
+            gameController.shutdown();
+            journal = null;
+        }
+    }
+
+    // Creates a game with two players and their half maps, and lets the players make the given number of move actions.
+    private String createPlayedGame(int numOfMoves) {
+        String gameId = gameController.createNewGame(new MapDimensions(10, 5), null);
+        String firstPlayerId = addPlayer(gameId, "First");
+        String secondPlayerId = addPlayer(gameId, "Second");
+        addHalfMap(gameId, firstPlayerId, false);
+        addHalfMap(gameId, secondPlayerId, true);
+        playMoves(gameId, numOfMoves);
+        return gameId;
+    }
+
+    // Registers a player, like the player endpoint does.
+    private String addPlayer(String gameId, String firstName) {
+        return gameController.executeCommand(gameId, () -> playerController.createNewPlayer(gameId, List.of(firstName, "Player", firstName.toLowerCase())));
+    }
+
+    // Adds the half map of a player, on which the safe moves stay and a move left loses, as a recorded command.
+    private void addHalfMap(String gameId, String playerId, boolean isPlayerTwo) {
+        PackedBoard halfMap = HalfMapFixtures.createGrassHalfMap(10, 5, isPlayerTwo);
+        gameController.executeCommand(gameId, () -> {
+            mapController.addHalfMap(halfMap, playerId, gameId);
+            gameController.advanceStateVersion(gameId);
+            return null;
+        });
+    }
+
+    // Lets the players make move actions which stay on their own half map.
+    private void playMoves(String gameId, int numOfMoves) {
+        for (int index = 0; index < numOfMoves; index++) {
+            move(gameId, findActingPlayer(gameId), SAFE_MOVES[index % SAFE_MOVES.length]);
+        }
+    }
+
+    // Applies one move action, like the move endpoint does.
+    private void move(String gameId, String playerId, EMoveDirection direction) {
+        gameController.executeCommand(gameId, () -> {
+            gameController.applyMove(gameId, playerId, direction);
+            return null;
+        });
+    }
+
+    // Retrieves the ID of the player who must act.
+    private String findActingPlayer(String gameId) {
+        return gameController.executeCommand(gameId, () -> findGame(gameId).getPlayerIdToAct());
+    }
+
+    // Retrieves the active game with the given ID.
+    private Game findGame(String gameId) {
+        return gameController.getActiveGames().stream().filter(game -> game.getGameId().equals(gameId)).findFirst().orElseThrow();
+    }
+
+    // Describes everything a game restored from the journal must have kept: the state version, the players, the full
+    // map and the progress of the moves.
+    private String describe(String gameId) {
+        return gameController.executeCommand(gameId, () -> {
+            Game game = findGame(gameId);
+            StringBuilder description = new StringBuilder("Version ").append(game.getStateVersion());
+            for (Player player : game.getPlayers()) {
+                description.append(", ").append(player.getPlayerId()).append(' ').append(player.getPlayerGameState())
+                        .append(player.isCollectedTreasure() ? " with treasure" : "");
+            }
+            if (game.getFullMap() != null && game.getFullMap().isComplete()) {
+                PackedBoard board = game.getFullMap().getFullMap();
+                for (int y = 0; y < board.getHeight(); y++) {
+                    description.append('\n');
+                    for (int x = 0; x < board.getWidth(); x++) {
+                        description.append(board.getTerrain(x, y).name().charAt(0));
+                        for (EMapNodeAttribute attribute : EMapNodeAttribute.values()) {
+                            description.append(board.hasAttribute(x, y, attribute) ? attribute.ordinal() : "");
+                        }
+                        description.append(' ');
+                    }
+                }
+                MovementState movement = game.getMovement();
+                for (int player = MovementState.PLAYER_ONE; player <= MovementState.PLAYER_TWO; player++) {
+                    description.append("\nPlayer ").append(player).append(" moving ").append(movement.getDirectionOrdinal(player))
+                            .append(" with progress ").append(movement.getProgress(player));
+                }
+            }
+            return description.toString();
+        });
+    }
+
+    // Checks if the journal directory contains a file whose name starts with the prefix.
+    private boolean hasFile(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.anyMatch(file -> file.getFileName().toString().startsWith(prefix));
+        }
+    }
+
+    // Retrieves the file of the journal directory with the highest index whose name starts with the prefix.
+    private Path lastFile(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import server.exceptions.JournalUnavailableException;
+
+class JournalWriterTest {
+    @TempDir
+    Path directory;
+
+    private JournalWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testRecordsAreReadInAppendOrder() throws IOException {
+        writer = new JournalWriter(directory, 1, 1024 * 1024);
+        for (int index = 0; index < 100; index++) {
+            writer.append(payload("record " + index));
+        }
+        writer.awaitDurable(writer.getAppendedSequence());
+
+        List<byte[]> records = JournalReader.readRecords(directory.resolve(JournalWriter.segmentName(1)));
+        assertEquals(100, records.size(), "Every durable record should be read");
+        for (int index = 0; index < 100; index++) {
+            assertEquals("record " + index, text(records.get(index)));
+        }
+    }
+
+    @Test
+    void testWhenDurableCompletesOnceWritten() throws Exception {
+        writer = new JournalWriter(directory, 1, 1024 * 1024);
+        long sequence = writer.append(payload("durable"));
+
+        writer.whenDurable(sequence).get(5, TimeUnit.SECONDS);
+        assertTrue(writer.whenDurable(sequence).isDone(), "A record which is durable already should complete right away");
+    }
+
+    @Test
+    void testRotationSplitsRecordsBetweenSegments() throws Exception {
+        writer = new JournalWriter(directory, 1, 1024 * 1024);
+        writer.append(payload("before"));
+        long newSegment = writer.rotate().get(5, TimeUnit.SECONDS);
+        writer.append(payload("after"));
+        writer.awaitDurable(writer.getAppendedSequence());
+
+        assertEquals(2, newSegment, "The journal should continue in the next segment");
+        assertEquals(List.of("before"), readTexts(1));
+        assertEquals(List.of("after"), readTexts(2));
+    }
+
+    @Test
+    void testFullSegmentContinuesInNextOne() throws IOException {
+        // Each record takes 16 bytes, so a segment of 40 bytes is full after three of them.
+        writer = new JournalWriter(directory, 1, 40);
+        for (int index = 0; index < 10; index++) {
+            writer.append(payload("record " + index));
+        }
+        writer.awaitDurable(writer.getAppendedSequence());
+
+        List<String> texts = new ArrayList<>();
+        for (long segment = 1; Files.exists(directory.resolve(JournalWriter.segmentName(segment))); segment++) {
+            List<String> segmentTexts = readTexts(segment);
+            assertTrue(segmentTexts.size() <= 3, "A segment should not grow much beyond its size");
+            texts.addAll(segmentTexts);
+        }
+        assertEquals(10, texts.size(), "No record should be lost between the segments");
+        assertEquals("record 9", texts.get(9));
+    }
+
+    @Test
+    void testFailedWriteRejectsLaterRecords() throws Exception {
+        Path journalDirectory = Files.createDirectory(directory.resolve("journal"));
+        writer = new JournalWriter(journalDirectory, 1, 1024 * 1024);
+        writer.append(payload("durable"));
+        writer.awaitDurable(writer.getAppendedSequence());
+
+        // The next segment cannot be created once the directory is gone.
+        Files.delete(journalDirectory.resolve(JournalWriter.segmentName(1)));
+        Files.delete(journalDirectory);
+        CompletableFuture<Long> rotated = writer.rotate();
+
+        assertThrows(ExecutionException.class, () -> rotated.get(5, TimeUnit.SECONDS), "The rotation should fail");
+        // Waiting returns once the writer has stopped, a record which is not durable by then never becomes durable.
+        assertThrows(JournalUnavailableException.class, () -> writer.awaitDurable(writer.getAppendedSequence() + 1));
+        assertThrows(JournalUnavailableException.class, () -> writer.append(payload("rejected")), "No record should be accepted after the failure");
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> writer.whenDurable(writer.getAppendedSequence() + 1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(JournalUnavailableException.class, exception.getCause());
+        assertThrows(ExecutionException.class, () -> writer.rotate().get(5, TimeUnit.SECONDS), "No rotation should be accepted after the failure");
+    }
+
+    @Test
+    void testCloseWritesQueuedRecords() throws IOException {
+        writer = new JournalWriter(directory, 1, 1024 * 1024);
+        for (int index = 0; index < 10; index++) {
+            writer.append(payload("record " + index));
+        }
+        writer.close();
+
+        assertEquals(10, readTexts(1).size(), "The queued records should be written before the writer stops");
+        assertThrows(JournalUnavailableException.class, () -> writer.append(payload("rejected")));
+        writer = null;
+    }
+
+    @Test
+    void testReaderStopsAtTornRecord() throws IOException {
+        Path file = directory.resolve("torn.log");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            JournalWriter.writeFrame(channel, payload("first"));
+            JournalWriter.writeFrame(channel, payload("second"));
+        }
+        byte[] content = Files.readAllBytes(file);
+
+        // Only part of the last record reached the disk.
+        Files.write(file, Arrays.copyOf(content, content.length - 3));
+        assertEquals(List.of("first"), texts(JournalReader.readRecords(file)), "The torn record should be ignored");
+
+        // Only the header of the last record reached the disk.
+        Files.write(file, Arrays.copyOf(content, content.length - "second".length()));
+        assertEquals(List.of("first"), texts(JournalReader.readRecords(file)), "The record without payload should be ignored");
+    }
+
+    @Test
+    void testReaderStopsAtChecksumMismatch() throws IOException {
+        Path file = directory.resolve("corrupt.log");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            JournalWriter.writeFrame(channel, payload("first"));
+            JournalWriter.writeFrame(channel, payload("second"));
+            JournalWriter.writeFrame(channel, payload("third"));
+        }
+        byte[] content = Files.readAllBytes(file);
+        int secondPayload = 2 * JournalWriter.FRAME_HEADER_SIZE + "first".length();
+        content[secondPayload] ^= 1;
+        Files.write(file, content);
+
+        assertEquals(List.of("first"), texts(JournalReader.readRecords(file)),
+                "Reading should stop at the record whose checksum does not match");
+    }
+
+    // Encodes the text as the payload of a record.
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Decodes the payload of a record written by payload.
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    // Decodes the payloads of several records.
+    private static List<String> texts(List<byte[]> payloads) {
+        List<String> texts = new ArrayList<>();
+        for (byte[] payload : payloads) {
+            texts.add(text(payload));
+        }
+        return texts;
+    }
+
+    // Reads the records of the segment with the given index.
+    private List<String> readTexts(long segment) throws IOException {
+        return texts(JournalReader.readRecords(directory.resolve(JournalWriter.segmentName(segment))));
+    }
+}
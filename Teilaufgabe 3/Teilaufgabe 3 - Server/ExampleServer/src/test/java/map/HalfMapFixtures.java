@@ -0,0 +1,24 @@
+package map;
+
+// Half maps shared by the tests which play a game through the controllers.
+public final class HalfMapFixtures {
+
+    private HalfMapFixtures() {
+    }
+
+    // Creates a grass half map with the fort and the position at (1, 1) and water to its left, so that moving left from
+    // the fort leads into the water. The second player's fort and position are marked as the enemy's, like the
+    // converter of the half map endpoint does.
+    public static PackedBoard createGrassHalfMap(int width, int height, boolean isPlayerTwo) {
+        PackedBoard halfMap = new PackedBoard(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                halfMap.setTerrain(x, y, EMapNodeTerrain.GRASS);
+            }
+        }
+        halfMap.setTerrain(0, 1, EMapNodeTerrain.WATER);
+        halfMap.addAttribute(1, 1, isPlayerTwo ? EMapNodeAttribute.ENEMY_FORT : EMapNodeAttribute.MY_FORT);
+        halfMap.addAttribute(1, 1, isPlayerTwo ? EMapNodeAttribute.ENEMY_POSITION : EMapNodeAttribute.MY_POSITION);
+        return halfMap;
+    }
+}
@@ -0,0 +1,112 @@
+package map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LandConnectivityTest {
+
+    @Test
+    void testConnectedLand() {
+        // 4x2 map, the water at (1, 0) and (3, 1) is passed via the other row.
+        long land = bits(0, 2, 3, 4, 5, 6);
+
+        assertEquals(-1, LandConnectivity.findFirstUnreachable(land, 4, 2, 0));
+        assertEquals(-1, LandConnectivity.findFirstUnreachable(toArray(land), 4, 2, 0));
+    }
+
+    @Test
+    void testStepsDoNotWrapIntoNextRow() {
+        // 3x2 map, the last field of the first row and the first field of the second row are neighbours in the bitset only.
+        long land = bits(2, 3);
+
+        assertEquals(3, LandConnectivity.findFirstUnreachable(land, 3, 2, 2));
+        assertEquals(2, LandConnectivity.findFirstUnreachable(land, 3, 2, 3));
+        assertEquals(3, LandConnectivity.findFirstUnreachable(toArray(land), 3, 2, 2));
+        assertEquals(2, LandConnectivity.findFirstUnreachable(toArray(land), 3, 2, 3));
+    }
+
+    @Test
+    void testReportsFirstUnreachableFieldColumnByColumn() {
+        // 4x3 map, unreachable fields at (3, 0) and (2, 2), the one in column 2 comes first.
+        long land = bits(0, 1, 4, 5, 3, 10);
+
+        assertEquals(10, LandConnectivity.findFirstUnreachable(land, 4, 3, 0));
+        assertEquals(10, LandConnectivity.findFirstUnreachable(toArray(land), 4, 3, 0));
+    }
+
+    @Test
+    void testFullSingleBitboard() {
+        // 8x8 fields use every bit of the long, including the sign bit.
+        long land = -1L;
+
+        assertEquals(-1, LandConnectivity.findFirstUnreachable(land, 8, 8, 63));
+        assertEquals(63, LandConnectivity.findFirstUnreachable(land & ~bits(55, 62), 8, 8, 0),
+                "The last field is cut off by the water on its two neighbours");
+    }
+
+    @Test
+    void testBitboardAndSearchAgree() {
+        Random random = new Random(42);
+        for (int round = 0; round < 1000; round++) {
+            int width = 2 + random.nextInt(7);
+            int height = 2 + random.nextInt(Long.SIZE / width - 1);
+            long land = random.nextLong() & (width * height == Long.SIZE ? -1L : (1L << (width * height)) - 1);
+            if (land == 0) {
+                continue;
+            }
+            int start = Long.numberOfTrailingZeros(land);
+
+            assertEquals(LandConnectivity.findFirstUnreachable(toArray(land), width, height, start),
+                    LandConnectivity.findFirstUnreachable(land, width, height, start),
+                    "Both checks should agree on the " + width + "x" + height + " map " + Long.toBinaryString(land));
+        }
+    }
+
+    @Test
+    void testSearchOnLargeMap() {
+        // 100x100 map with a wall of water in column 50, except for a gap in the last row.
+        int width = 100;
+        int height = 100;
+        long[] land = new long[(width * height + 63) >>> 6];
+        for (int index = 0; index < width * height; index++) {
+            if (index % width != 50 || index / width == height - 1) {
+                land[index >>> 6] |= 1L << index;
+            }
+        }
+
+        assertEquals(-1, LandConnectivity.findFirstUnreachable(land, width, height, 0), "The gap should connect both sides");
+
+        int gap = (height - 1) * width + 50;
+        land[gap >>> 6] &= ~(1L << gap);
+        assertEquals(51, LandConnectivity.findFirstUnreachable(land, width, height, 0), "Without the gap the right side is unreachable");
+    }
+
+    @Test
+    void testReachableFromWaterIsEmpty() {
+        long[] reached = LandConnectivity.findReachable(toArray(bits(0, 1)), 2, 2, 3);
+
+        assertEquals(0, reached[0], "Nothing is reachable from a start field which is not land");
+    }
+
+    @Test
+    void testMapTooLargeForBitboard() {
+        assertThrows(IllegalArgumentException.class, () -> LandConnectivity.findFirstUnreachable(-1L, 13, 5, 0));
+    }
+
+    // Creates a bitboard with the bits of the given fields set.
+    private static long bits(int... indices) {
+        long bits = 0;
+        for (int index : indices) {
+            bits |= 1L << index;
+        }
+        return bits;
+    }
+
+    // Wraps a bitboard into a bitset for the search on maps of any size.
+    private static long[] toArray(long bits) {
+        return new long[] { bits };
+    }
+}
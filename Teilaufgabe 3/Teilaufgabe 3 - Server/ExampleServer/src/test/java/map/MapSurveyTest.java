@@ -0,0 +1,122 @@
+package map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MapSurveyTest {
+
+    @Test
+    void testCountsTerrainAndForts() {
+        PackedBoard map = createMap(
+                "GGMW",
+                "FGMW",
+                "GG.W");
+
+        MapSurvey survey = MapSurvey.of(map, new MapDimensions(4, 3));
+
+        assertEquals(4, survey.getWidth());
+        assertEquals(3, survey.getHeight());
+        assertEquals(6, survey.getNumOfGrass(), "The fort field is grass as well");
+        assertEquals(2, survey.getNumOfMountains());
+        assertEquals(3, survey.getNumOfWater());
+        assertEquals(1, survey.getNumOfMissingFields());
+        assertEquals(1, survey.getNumOfForts());
+    }
+
+    @Test
+    void testCountsWaterOnEachEdge() {
+        PackedBoard map = createMap(
+                "WGGW",
+                "GGGW",
+                "WWGG");
+
+        MapSurvey survey = MapSurvey.of(map, new MapDimensions(4, 3));
+
+        assertEquals(2, survey.getNumOfLeftEdgeWater());
+        assertEquals(2, survey.getNumOfRightEdgeWater());
+        assertEquals(2, survey.getNumOfTopEdgeWater());
+        assertEquals(2, survey.getNumOfBottomEdgeWater(), "A corner should count for both of its edges");
+    }
+
+    @Test
+    void testConnectedLandHasNoIsolatedField() {
+        PackedBoard map = createMap(
+                "GWGG",
+                "GWMW",
+                "GGGW");
+
+        MapSurvey survey = MapSurvey.of(map, new MapDimensions(4, 3));
+
+        assertFalse(survey.hasIsolatedField(), "The land fields are connected around the water");
+        assertEquals(-1, survey.getIsolatedX());
+        assertEquals(-1, survey.getIsolatedY());
+    }
+
+    @Test
+    void testReportsFirstIsolatedFieldColumnByColumn() {
+        PackedBoard map = createMap(
+                "GGWGG",
+                "GGWWW",
+                "GWWWG");
+
+        MapSurvey survey = MapSurvey.of(map, new MapDimensions(5, 3));
+
+        assertTrue(survey.hasIsolatedField());
+        assertEquals(3, survey.getIsolatedX(), "The island in column 3 comes before the one in column 4");
+        assertEquals(0, survey.getIsolatedY());
+    }
+
+    @Test
+    void testFindsIsolatedFieldOnLargeMap() {
+        // 20x10 fields do not fit into a single bitboard, so the breadth-first search is used.
+        String[] rows = new String[10];
+        for (int y = 0; y < rows.length; y++) {
+            rows[y] = "GGGGGGGGGGGGGGGGGGGG";
+        }
+        rows[4] = "GGGGGGGGGGGGGGGWWWGG";
+        rows[5] = "GGGGGGGGGGGGGGGWMWGG";
+        rows[6] = "GGGGGGGGGGGGGGGWWWGG";
+
+        MapSurvey survey = MapSurvey.of(createMap(rows), new MapDimensions(20, 10));
+
+        assertTrue(survey.hasIsolatedField(), "The mountain surrounded by water should be isolated");
+        assertEquals(16, survey.getIsolatedX());
+        assertEquals(5, survey.getIsolatedY());
+    }
+
+    @Test
+    void testMapWithoutLand() {
+        MapSurvey survey = MapSurvey.of(createMap("WW", "WW"), new MapDimensions(2, 2));
+
+        assertEquals(4, survey.getNumOfWater());
+        assertFalse(survey.hasIsolatedField(), "A map without land has no isolated field");
+    }
+
+    // Creates a map from rows of G (grass), M (mountain), W (water), F (grass with a fort) and . (no terrain).
+    private static PackedBoard createMap(String... rows) {
+        PackedBoard map = new PackedBoard(rows[0].length(), rows.length);
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                switch (rows[y].charAt(x)) {
+                case 'G':
+                    map.setTerrain(x, y, EMapNodeTerrain.GRASS);
+                    break;
+                case 'M':
+                    map.setTerrain(x, y, EMapNodeTerrain.MOUNTAIN);
+                    break;
+                case 'W':
+                    map.setTerrain(x, y, EMapNodeTerrain.WATER);
+                    break;
+                case 'F':
+                    map.setTerrain(x, y, EMapNodeTerrain.GRASS);
+                    map.addAttribute(x, y, EMapNodeAttribute.MY_FORT);
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+        return map;
+    }
+}
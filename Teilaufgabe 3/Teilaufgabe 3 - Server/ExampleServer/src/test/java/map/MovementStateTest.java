@@ -0,0 +1,128 @@
+package map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.exceptions.InvalidMoveException;
+
+class MovementStateTest {
+    private PackedBoard fullMap;
+    private MovementState movement;
+
+    @BeforeEach
+    void setUp() {
+        // G G M M
+        // W G G G
+        fullMap = new PackedBoard(4, 2);
+        fullMap.setTerrain(0, 0, EMapNodeTerrain.GRASS);
+        fullMap.setTerrain(1, 0, EMapNodeTerrain.GRASS);
+        fullMap.setTerrain(2, 0, EMapNodeTerrain.MOUNTAIN);
+        fullMap.setTerrain(3, 0, EMapNodeTerrain.MOUNTAIN);
+        fullMap.setTerrain(0, 1, EMapNodeTerrain.WATER);
+        fullMap.setTerrain(1, 1, EMapNodeTerrain.GRASS);
+        fullMap.setTerrain(2, 1, EMapNodeTerrain.GRASS);
+        fullMap.setTerrain(3, 1, EMapNodeTerrain.GRASS);
+        fullMap.addAttribute(0, 0, EMapNodeAttribute.MY_POSITION);
+        fullMap.addAttribute(3, 1, EMapNodeAttribute.ENEMY_POSITION);
+        movement = MovementState.of(fullMap);
+    }
+
+    @Test
+    void testFindsPositionsOfBothPlayers() {
+        assertEquals(0, movement.getX(MovementState.PLAYER_ONE));
+        assertEquals(0, movement.getY(MovementState.PLAYER_ONE));
+        assertEquals(3, movement.getX(MovementState.PLAYER_TWO));
+        assertEquals(1, movement.getY(MovementState.PLAYER_TWO));
+        assertEquals(-1, movement.getDirectionOrdinal(MovementState.PLAYER_ONE), "No player has moved yet");
+    }
+
+    @Test
+    void testStepCostsDependOnBothFields() {
+        assertEquals(2, countActionsToArrive(MovementState.PLAYER_ONE, EMoveDirection.RIGHT), "Grass to grass should cost 2 move actions");
+        assertEquals(3, countActionsToArrive(MovementState.PLAYER_ONE, EMoveDirection.RIGHT), "Grass to mountain should cost 3 move actions");
+        assertEquals(4, countActionsToArrive(MovementState.PLAYER_ONE, EMoveDirection.RIGHT), "Mountain to mountain should cost 4 move actions");
+        assertEquals(3, countActionsToArrive(MovementState.PLAYER_ONE, EMoveDirection.DOWN), "Mountain to grass should cost 3 move actions");
+
+        assertEquals(3, movement.getX(MovementState.PLAYER_ONE));
+        assertEquals(1, movement.getY(MovementState.PLAYER_ONE));
+    }
+
+    @Test
+    void testArrivalMovesPositionOnTheMap() {
+        assertFalse(movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.RIGHT));
+        assertTrue(fullMap.hasAttribute(0, 0, EMapNodeAttribute.MY_POSITION), "The player should stay until arriving");
+        assertEquals(1, movement.getProgress(MovementState.PLAYER_ONE));
+        assertEquals(EMoveDirection.RIGHT.ordinal(), movement.getDirectionOrdinal(MovementState.PLAYER_ONE));
+
+        assertTrue(movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.RIGHT));
+        assertFalse(fullMap.hasAttribute(0, 0, EMapNodeAttribute.MY_POSITION), "The old field should be left");
+        assertTrue(fullMap.hasAttribute(1, 0, EMapNodeAttribute.MY_POSITION), "The new field should be entered");
+        assertEquals(0, movement.getProgress(MovementState.PLAYER_ONE), "The progress should start again after arriving");
+        assertEquals(-1, movement.getDirectionOrdinal(MovementState.PLAYER_ONE));
+    }
+
+    @Test
+    void testChangingDirectionDiscardsProgress() {
+        movement.applyMove(fullMap, MovementState.PLAYER_TWO, EMoveDirection.LEFT);
+        movement.applyMove(fullMap, MovementState.PLAYER_TWO, EMoveDirection.UP);
+        assertEquals(1, movement.getProgress(MovementState.PLAYER_TWO), "The progress to the left should be discarded");
+
+        assertEquals(2, countActionsToArrive(MovementState.PLAYER_TWO, EMoveDirection.LEFT), "The step to the left should start from scratch");
+        assertEquals(2, movement.getX(MovementState.PLAYER_TWO));
+        assertEquals(1, movement.getY(MovementState.PLAYER_TWO));
+    }
+
+    @Test
+    void testPlayersMoveIndependently() {
+        movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.RIGHT);
+        movement.applyMove(fullMap, MovementState.PLAYER_TWO, EMoveDirection.LEFT);
+
+        assertEquals(1, movement.getProgress(MovementState.PLAYER_ONE), "The move of the other player should not discard the progress");
+        assertTrue(movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.RIGHT));
+    }
+
+    @Test
+    void testInvalidMovesAreRejectedRightAway() {
+        assertThrows(InvalidMoveException.class, () -> movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.UP),
+                "The move should leave the map");
+        assertThrows(InvalidMoveException.class, () -> movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.DOWN),
+                "The move should lead into water");
+        assertThrows(InvalidMoveException.class, () -> movement.applyMove(fullMap, MovementState.PLAYER_TWO, EMoveDirection.RIGHT),
+                "The move should leave the map");
+
+        assertEquals(0, movement.getProgress(MovementState.PLAYER_ONE), "A rejected move should not add progress");
+        assertTrue(fullMap.hasAttribute(0, 0, EMapNodeAttribute.MY_POSITION));
+    }
+
+    @Test
+    void testRestoreKeepsProgress() {
+        movement.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.RIGHT);
+        int[] directions = { movement.getDirectionOrdinal(MovementState.PLAYER_ONE), movement.getDirectionOrdinal(MovementState.PLAYER_TWO) };
+        int[] progress = { movement.getProgress(MovementState.PLAYER_ONE), movement.getProgress(MovementState.PLAYER_TWO) };
+
+        MovementState restored = MovementState.restore(fullMap, directions, progress);
+
+        assertEquals(1, restored.getProgress(MovementState.PLAYER_ONE));
+        assertEquals(-1, restored.getDirectionOrdinal(MovementState.PLAYER_TWO));
+        assertTrue(restored.applyMove(fullMap, MovementState.PLAYER_ONE, EMoveDirection.RIGHT), "The restored progress should count");
+    }
+
+    @Test
+    void testMapWithoutPosition() {
+        fullMap.removeAttribute(3, 1, EMapNodeAttribute.ENEMY_POSITION);
+
+        assertThrows(IllegalStateException.class, () -> MovementState.of(fullMap));
+    }
+
+    // Applies move actions in the direction until the player arrives at the next field, returns their number.
+    private int countActionsToArrive(int player, EMoveDirection direction) {
+        int numOfActions = 1;
+        while (!movement.applyMove(fullMap, player, direction)) {
+            numOfActions++;
+            assertTrue(numOfActions <= 4, "No step should cost more than 4 move actions");
+        }
+        return numOfActions;
+    }
+}
@@ -0,0 +1,173 @@
+package map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+class PackedBoardTest {
+
+    @Test
+    void testNewBoardIsEmpty() {
+        PackedBoard board = new PackedBoard(3, 2);
+
+        assertEquals(3, board.getWidth());
+        assertEquals(2, board.getHeight());
+        assertNull(board.getTerrain(2, 1), "A new field should have no terrain");
+        assertFalse(board.isFullyCovered(), "A new board should not be fully covered");
+        assertFalse(board.hasAnyAttribute(EMapNodeAttribute.MY_FORT), "A new board should have no attribute");
+    }
+
+    @Test
+    void testTerrainCoversBoard() {
+        PackedBoard board = createGrassBoard(3, 2);
+        board.setTerrain(1, 1, EMapNodeTerrain.WATER);
+
+        assertTrue(board.isFullyCovered(), "Every field has a terrain");
+        assertEquals(EMapNodeTerrain.WATER, board.getTerrain(1, 1));
+        assertEquals(EMapNodeTerrain.GRASS, board.getTerrain(0, 1));
+    }
+
+    @Test
+    void testAddAndRemoveAttribute() {
+        PackedBoard board = new PackedBoard(100, 100);
+        board.addAttribute(99, 99, EMapNodeAttribute.MY_TREASURE);
+
+        assertTrue(board.hasAttribute(99, 99, EMapNodeAttribute.MY_TREASURE), "The attribute should be on the last field");
+        assertFalse(board.hasAttribute(98, 99, EMapNodeAttribute.MY_TREASURE), "The neighbour should not have the attribute");
+        assertFalse(board.hasAttribute(99, 99, EMapNodeAttribute.ENEMY_TREASURE), "Other attributes should not be set");
+        assertTrue(board.hasAnyAttribute(EMapNodeAttribute.MY_TREASURE));
+
+        board.removeAttribute(99, 99, EMapNodeAttribute.MY_TREASURE);
+        assertFalse(board.hasAnyAttribute(EMapNodeAttribute.MY_TREASURE), "The attribute should be removed");
+    }
+
+    @Test
+    void testInvalidSizeAndField() {
+        assertThrows(IllegalArgumentException.class, () -> new PackedBoard(0, 5));
+
+        PackedBoard board = new PackedBoard(4, 4);
+        assertThrows(IndexOutOfBoundsException.class, () -> board.getTerrain(4, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> board.addAttribute(0, -1, EMapNodeAttribute.MY_FORT));
+    }
+
+    @Test
+    void testCopySharesUntilWritten() {
+        // 100x100 fields span several chunks of the bitmasks.
+        PackedBoard original = createGrassBoard(100, 100);
+        original.addAttribute(5, 5, EMapNodeAttribute.MY_POSITION);
+        PackedBoard copy = new PackedBoard(original);
+
+        original.removeAttribute(5, 5, EMapNodeAttribute.MY_POSITION);
+        original.addAttribute(90, 90, EMapNodeAttribute.MY_POSITION);
+        original.setTerrain(0, 0, EMapNodeTerrain.WATER);
+        copy.addAttribute(50, 50, EMapNodeAttribute.ENEMY_FORT);
+
+        assertTrue(copy.hasAttribute(5, 5, EMapNodeAttribute.MY_POSITION), "The copy should keep the old position");
+        assertFalse(copy.hasAttribute(90, 90, EMapNodeAttribute.MY_POSITION), "The copy should not see the new position");
+        assertEquals(EMapNodeTerrain.GRASS, copy.getTerrain(0, 0), "The copy should keep the old terrain");
+        assertFalse(original.hasAttribute(50, 50, EMapNodeAttribute.ENEMY_FORT), "The original should not see changes of the copy");
+        assertTrue(original.hasAttribute(90, 90, EMapNodeAttribute.MY_POSITION));
+        assertEquals(EMapNodeTerrain.WATER, original.getTerrain(0, 0));
+    }
+
+    @Test
+    void testCopyFromWithOffset() {
+        PackedBoard half = createGrassBoard(2, 2);
+        half.setTerrain(1, 0, EMapNodeTerrain.MOUNTAIN);
+        half.addAttribute(1, 1, EMapNodeAttribute.ENEMY_FORT);
+        PackedBoard full = createGrassBoard(4, 2);
+
+        full.copyFrom(half, 2, 0);
+
+        assertEquals(EMapNodeTerrain.MOUNTAIN, full.getTerrain(3, 0), "The terrain should be placed at the offset");
+        assertTrue(full.hasAttribute(3, 1, EMapNodeAttribute.ENEMY_FORT), "The attribute should be placed at the offset");
+        assertFalse(full.hasAttribute(1, 1, EMapNodeAttribute.ENEMY_FORT), "The field without offset should stay empty");
+        assertThrows(IllegalArgumentException.class, () -> full.copyFrom(half, 3, 0), "A board which does not fit should be rejected");
+    }
+
+    @Test
+    void testWriteAndReadKeepBoard() throws IOException {
+        PackedBoard board = createGrassBoard(70, 70);
+        board.setTerrain(69, 0, EMapNodeTerrain.WATER);
+        board.addAttribute(0, 69, EMapNodeAttribute.MY_FORT);
+        board.addAttribute(65, 65, EMapNodeAttribute.ENEMY_REVEALED);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        board.writeTo(new DataOutputStream(buffer));
+        PackedBoard read = PackedBoard.readFrom(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+
+        for (int y = 0; y < 70; y++) {
+            for (int x = 0; x < 70; x++) {
+                assertEquals(board.getTerrain(x, y), read.getTerrain(x, y), "The terrain of (" + x + ", " + y + ") should be kept");
+                for (EMapNodeAttribute attribute : EMapNodeAttribute.values()) {
+                    assertEquals(board.hasAttribute(x, y, attribute), read.hasAttribute(x, y, attribute),
+                            "The attribute " + attribute + " of (" + x + ", " + y + ") should be kept");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testReadRejectsInvalidSize() {
+        byte[] invalid = { 0, 0, 0, 0, 0, 0, 0, 5 };
+        assertThrows(IOException.class, () -> PackedBoard.readFrom(new DataInputStream(new ByteArrayInputStream(invalid))));
+    }
+
+    @Test
+    void testChangesAreRecordedOnlyOnceRecording() {
+        PackedBoard board = new PackedBoard(10, 10);
+        board.addAttribute(1, 1, EMapNodeAttribute.MY_POSITION);
+        assertFalse(board.isRecordingChanges());
+        assertEquals(0, board.drainChangedFields(EMapNodeAttribute.MY_POSITION).length, "Nothing is recorded before recording starts");
+
+        board.recordChanges();
+        board.removeAttribute(1, 1, EMapNodeAttribute.MY_POSITION);
+        board.addAttribute(2, 1, EMapNodeAttribute.MY_POSITION);
+        board.addAttribute(2, 1, EMapNodeAttribute.MY_POSITION);
+        board.addAttribute(0, 0, EMapNodeAttribute.MY_POSITION);
+
+        assertArrayEquals(new int[] { 0, 11, 12 }, board.drainChangedFields(EMapNodeAttribute.MY_POSITION),
+                "The changed fields should be reported once each and in ascending order");
+        assertEquals(0, board.drainChangedFields(EMapNodeAttribute.MY_POSITION).length, "Draining should start the next recording");
+    }
+
+    @Test
+    void testChangeWhichIsUndoneIsNotReported() {
+        PackedBoard board = new PackedBoard(10, 10);
+        board.recordChanges();
+        board.addAttribute(3, 3, EMapNodeAttribute.MY_REVEALED);
+        board.removeAttribute(3, 3, EMapNodeAttribute.MY_REVEALED);
+        board.addAttribute(4, 4, EMapNodeAttribute.ENEMY_REVEALED);
+
+        assertEquals(0, board.drainChangedFields(EMapNodeAttribute.MY_REVEALED).length, "A field which was added and removed has not changed");
+        assertArrayEquals(new int[] { 44 }, board.drainChangedFields(EMapNodeAttribute.ENEMY_REVEALED));
+    }
+
+    @Test
+    void testCopyDoesNotRecordChanges() {
+        PackedBoard board = new PackedBoard(10, 10);
+        board.recordChanges();
+        PackedBoard copy = new PackedBoard(board);
+        copy.addAttribute(1, 1, EMapNodeAttribute.MY_FORT);
+
+        assertFalse(copy.isRecordingChanges(), "The copy should not record changes");
+        assertEquals(0, board.drainChangedFields(EMapNodeAttribute.MY_FORT).length, "Changes of the copy should not be recorded on the original");
+    }
+
+    // Creates a board whose fields are all grass.
+    private static PackedBoard createGrassBoard(int width, int height) {
+        PackedBoard board = new PackedBoard(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                board.setTerrain(x, y, EMapNodeTerrain.GRASS);
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,90 @@
+package map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class TreasurePlacementTest {
+
+    @Test
+    void testSameSeedPlacesSameField() {
+        for (long seed = 0; seed < 100; seed++) {
+            PackedBoard first = createLargeMap();
+            PackedBoard second = createLargeMap();
+
+            int firstField = TreasurePlacement.placeTreasure(first, EMapNodeAttribute.MY_FORT, EMapNodeAttribute.MY_TREASURE, new SplittableRandom(seed));
+            int secondField = TreasurePlacement.placeTreasure(second, EMapNodeAttribute.MY_FORT, EMapNodeAttribute.MY_TREASURE, new SplittableRandom(seed));
+
+            assertEquals(firstField, secondField, "The seed " + seed + " should always place the treasure on the same field");
+        }
+    }
+
+    @Test
+    void testTreasureIsMarkedOnTheMap() {
+        PackedBoard map = createLargeMap();
+
+        int field = TreasurePlacement.placeTreasure(map, EMapNodeAttribute.MY_FORT, EMapNodeAttribute.MY_TREASURE, new SplittableRandom(7));
+
+        assertTrue(map.hasAttribute(field % 20, field / 20, EMapNodeAttribute.MY_TREASURE), "The treasure should be on the returned field");
+        assertFalse(map.hasAnyAttribute(EMapNodeAttribute.ENEMY_TREASURE), "Only the treasure of the player should be placed");
+    }
+
+    @Test
+    void testOnlyReachableGrassIsChosen() {
+        // 20x10 map with the fort at (0, 0), a mountain at (1, 0) and a grass island at (17, 5) behind water.
+        boolean[] chosen = new boolean[200];
+        for (long seed = 0; seed < 5000; seed++) {
+            PackedBoard map = createLargeMap();
+            int field = TreasurePlacement.placeTreasure(map, EMapNodeAttribute.MY_FORT, EMapNodeAttribute.MY_TREASURE, new SplittableRandom(seed));
+            int x = field % 20;
+            int y = field / 20;
+
+            assertEquals(EMapNodeTerrain.GRASS, map.getTerrain(x, y), "The treasure should lie on grass");
+            assertFalse(map.hasAttribute(x, y, EMapNodeAttribute.MY_FORT), "The treasure should not lie on the fort");
+            assertNotEquals(5 * 20 + 17, field, "The treasure should not lie on a field which cannot be reached");
+            chosen[field] = true;
+        }
+
+        // Every reachable grass field can be chosen, in each word of the bitset.
+        for (int field = 0; field < 200; field++) {
+            int x = field % 20;
+            int y = field / 20;
+            boolean isCandidate = createLargeMap().getTerrain(x, y) == EMapNodeTerrain.GRASS && field != 0 && field != 5 * 20 + 17;
+            assertEquals(isCandidate, chosen[field], "The field (" + x + ", " + y + ") was " + (chosen[field] ? "" : "not ") + "chosen");
+        }
+    }
+
+    @Test
+    void testNoFieldWithoutFortOrGrass() {
+        PackedBoard withoutFort = createLargeMap();
+        withoutFort.removeAttribute(0, 0, EMapNodeAttribute.MY_FORT);
+        assertEquals(-1, TreasurePlacement.placeTreasure(withoutFort, EMapNodeAttribute.MY_FORT, EMapNodeAttribute.MY_TREASURE, new SplittableRandom(1)),
+                "Without a fort there is no reachable field");
+
+        PackedBoard onlyFort = new PackedBoard(2, 2);
+        onlyFort.setTerrain(0, 0, EMapNodeTerrain.GRASS);
+        onlyFort.setTerrain(1, 0, EMapNodeTerrain.MOUNTAIN);
+        onlyFort.setTerrain(0, 1, EMapNodeTerrain.WATER);
+        onlyFort.setTerrain(1, 1, EMapNodeTerrain.MOUNTAIN);
+        onlyFort.addAttribute(0, 0, EMapNodeAttribute.ENEMY_FORT);
+        assertEquals(-1, TreasurePlacement.placeTreasure(onlyFort, EMapNodeAttribute.ENEMY_FORT, EMapNodeAttribute.ENEMY_TREASURE, new SplittableRandom(1)),
+                "The fort is the only grass field");
+        assertFalse(onlyFort.hasAnyAttribute(EMapNodeAttribute.ENEMY_TREASURE));
+    }
+
+    // Creates a 20x10 grass map with the fort at (0, 0), a mountain at (1, 0) and a grass island at (17, 5) behind water.
+    private static PackedBoard createLargeMap() {
+        PackedBoard map = new PackedBoard(20, 10);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 20; x++) {
+                boolean isAroundIsland = Math.abs(x - 17) <= 1 && Math.abs(y - 5) <= 1 && (x != 17 || y != 5);
+                map.setTerrain(x, y, isAroundIsland ? EMapNodeTerrain.WATER : EMapNodeTerrain.GRASS);
+            }
+        }
+        map.setTerrain(1, 0, EMapNodeTerrain.MOUNTAIN);
+        map.addAttribute(0, 0, EMapNodeAttribute.MY_FORT);
+        return map;
+    }
+}
@@ -0,0 +1,108 @@
+package scheduler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HashedWheelTimerTest {
+    private static final long TICK_MILLIS = 10;
+    private static final int TICKS_PER_WHEEL = 8;
+
+    private HashedWheelTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        timer = new HashedWheelTimer("test-timer", TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void testTaskRunsAfterDelay() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        TimerHandle handle = timer.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS), "The task should run");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 50 - TICK_MILLIS, "The task should not run before its delay, but ran after " + elapsedMillis + " ms");
+        assertTrue(handle.isExpired(), "The handle should be expired once the task ran");
+        assertFalse(handle.cancel(), "An expired handle cannot be cancelled");
+    }
+
+    @Test
+    void testDelayLongerThanOneRoundOfTheWheel() throws InterruptedException {
+        // One round of the wheel takes 8 ticks of 10 ms, the task has to wait for the third round.
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timer.schedule(ran::countDown, 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS), "The task should run");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 200 - TICK_MILLIS, "The task should wait for the later round, but ran after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testCancelledTaskDoesNotRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimerHandle handle = timer.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(handle.cancel(), "A pending handle should be cancelled");
+        assertFalse(handle.cancel(), "A handle cannot be cancelled twice");
+        assertTrue(handle.isCancelled(), "The handle should report the cancellation");
+
+        CountDownLatch later = new CountDownLatch(1);
+        timer.schedule(later::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(2, TimeUnit.SECONDS), "A later task should still run");
+        assertEquals(0, runs.get(), "The cancelled task should not run");
+    }
+
+    @Test
+    void testFailingTaskDoesNotStopTheTimer() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        timer.schedule(() -> {
+            throw new IllegalStateException("Failing on purpose");
+        }, 10, TimeUnit.MILLISECONDS);
+        timer.schedule(ran::countDown, 40, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS), "The task after the failing one should run");
+    }
+
+    @Test
+    void testManyTimersInTheSameBucket() throws InterruptedException {
+        int numOfTasks = 1000;
+        CountDownLatch ran = new CountDownLatch(numOfTasks / 2);
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        for (int index = 0; index < numOfTasks; index++) {
+            if (index % 2 == 0) {
+                timer.schedule(ran::countDown, 30, TimeUnit.MILLISECONDS);
+            } else {
+                timer.schedule(cancelledRuns::incrementAndGet, 30, TimeUnit.MILLISECONDS).cancel();
+            }
+        }
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS), "Every task which was not cancelled should run");
+        assertEquals(0, cancelledRuns.get(), "No cancelled task should run");
+    }
+
+    @Test
+    void testScheduleAfterStop() {
+        timer.stop();
+        assertThrows(IllegalStateException.class, () -> timer.schedule(() -> {}, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("invalid", 0, TimeUnit.MILLISECONDS, 8));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("invalid", 10, TimeUnit.MILLISECONDS, 0));
+    }
+}
@@ -0,0 +1,85 @@
+package serverNetwork;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import game.Game;
+import game.GameSnapshot;
+import map.MapDimensions;
+import messagesbase.ResponseEnvelope;
+import messagesbase.messagesfromserver.GameState;
+
+class GameStateResponseCacheTest {
+    private final GameStateResponseCache responseCache = new GameStateResponseCache();
+    private final AtomicInteger numOfCreated = new AtomicInteger();
+
+    @Test
+    void testSameVersionIsAnsweredFromCache() {
+        GameSnapshot snapshot = createSnapshot(7);
+
+        byte[] first = responseCache.getResponse(snapshot, "player1", responseFactory("7"));
+        byte[] second = responseCache.getResponse(createSnapshot(7), "player1", responseFactory("7"));
+
+        assertSame(first, second, "A poll of the same game state ID should get the cached bytes");
+        assertEquals(1, numOfCreated.get(), "The response should be created only once");
+        assertTrue(new String(first, StandardCharsets.UTF_8).contains("<gameStateId>7</gameStateId>"));
+    }
+
+    @Test
+    void testNewVersionReplacesCachedResponses() {
+        byte[] before = responseCache.getResponse(createSnapshot(7), "player1", responseFactory("7"));
+        byte[] after = responseCache.getResponse(createSnapshot(8), "player1", responseFactory("8"));
+
+        assertEquals(2, numOfCreated.get(), "A new game state ID should create the response again");
+        assertTrue(new String(after, StandardCharsets.UTF_8).contains("<gameStateId>8</gameStateId>"));
+
+        responseCache.getResponse(createSnapshot(7), "player1", responseFactory("7"));
+        assertEquals(3, numOfCreated.get(), "The responses of the older game state ID should have been dropped");
+        assertNotSame(before, responseCache.getResponse(createSnapshot(7), "player1", responseFactory("7")));
+    }
+
+    @Test
+    void testPerspectivesAreCachedSeparately() {
+        GameSnapshot snapshot = createSnapshot(7);
+
+        byte[] firstPlayer = responseCache.getResponse(snapshot, "player1", responseFactory("7"));
+        byte[] secondPlayer = responseCache.getResponse(snapshot, "player2", responseFactory("7"));
+        byte[] changes = responseCache.getResponse(snapshot, "player1@5", responseFactory("7"));
+
+        assertEquals(3, numOfCreated.get(), "Each perspective should get its own response");
+        assertNotSame(firstPlayer, secondPlayer);
+        assertNotSame(firstPlayer, changes);
+        assertSame(secondPlayer, responseCache.getResponse(snapshot, "player2", responseFactory("7")),
+                "The response of one player should not replace the one of the other player");
+    }
+
+    @Test
+    void testRemovedGameIsDropped() {
+        GameSnapshot snapshot = createSnapshot(7);
+        byte[] before = responseCache.getResponse(snapshot, "player1", responseFactory("7"));
+
+        responseCache.onGameRemoved(new Game("game1", MapDimensions.DEFAULT_HALF_MAP, 1L, Runnable::run));
+
+        assertNotSame(before, responseCache.getResponse(snapshot, "player1", responseFactory("7")));
+        assertEquals(2, numOfCreated.get(), "The responses of a removed game should not be kept");
+    }
+
+    // Creates a snapshot of the game without players or full map at the given version.
+    private static GameSnapshot createSnapshot(long version) {
+        return new GameSnapshot("game1", version, List.of(), null, null, List.of(), 1L);
+    }
+
+    // Creates a factory of a game state response without players, which counts how often it is used.
+    private Supplier<ResponseEnvelope<GameState>> responseFactory(String gameStateId) {
+        return () -> {
+            numOfCreated.incrementAndGet();
+            return new ResponseEnvelope<GameState>(new GameState(List.of(), gameStateId));
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package serverNetwork;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import map.EMapNodeAttribute;
+import map.EMapNodeTerrain;
+import map.PackedBoard;
+import map.VisibilityMasks;
+import messagesbase.messagesfromserver.EFortState;
+import messagesbase.messagesfromserver.ETreasureState;
+import messagesbase.messagesfromserver.FullMapNode;
+
+class NetworkConverterTest {
+    private final NetworkConverter networkConverter = new NetworkConverter();
+
+    private PackedBoard fullMap;
+    private VisibilityMasks visibilityMasks;
+
+    @BeforeEach
+    void setUp() {
+        // 5x3 grass map with a mountain at (3, 1), from which the 3x3 fields around it are seen. The first player has
+        // the fort at (0, 0) and the treasure at (1, 2), the second player the fort at (4, 2) and the treasure at (3, 0).
+        fullMap = new PackedBoard(5, 3);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 5; x++) {
+                fullMap.setTerrain(x, y, EMapNodeTerrain.GRASS);
+            }
+        }
+        fullMap.setTerrain(3, 1, EMapNodeTerrain.MOUNTAIN);
+        fullMap.addAttribute(0, 0, EMapNodeAttribute.MY_FORT);
+        fullMap.addAttribute(1, 2, EMapNodeAttribute.MY_TREASURE);
+        fullMap.addAttribute(4, 2, EMapNodeAttribute.ENEMY_FORT);
+        fullMap.addAttribute(3, 0, EMapNodeAttribute.ENEMY_TREASURE);
+        visibilityMasks = new VisibilityMasks(fullMap);
+    }
+
+    @Test
+    void testPlayerOneSeesOnlyWhatPlayerOneRevealed() {
+        Collection<FullMapNode> hidden = networkConverter.convertToNetworkFullMap(fullMap, false, 1L);
+        assertEquals(EFortState.MyFortPresent, findNode(hidden, 0, 0).getFortState(), "The own fort should always be shown");
+        assertEquals(EFortState.NoOrUnknownFortState, findNode(hidden, 4, 2).getFortState(), "The enemy fort should not be shown before it is revealed");
+        assertEquals(ETreasureState.NoOrUnknownTreasureState, findNode(hidden, 1, 2).getTreasureState());
+
+        // The second player looks from the mountain, which reveals nothing to the first player.
+        visibilityMasks.reveal(fullMap, 3, 1, EMapNodeAttribute.ENEMY_REVEALED);
+        Collection<FullMapNode> revealedByEnemy = networkConverter.convertToNetworkFullMap(fullMap, false, 1L);
+        assertEquals(EFortState.NoOrUnknownFortState, findNode(revealedByEnemy, 4, 2).getFortState(),
+                "The fields revealed by the enemy should stay hidden from the first player");
+
+        visibilityMasks.reveal(fullMap, 3, 1, EMapNodeAttribute.MY_REVEALED);
+        visibilityMasks.reveal(fullMap, 1, 2, EMapNodeAttribute.MY_REVEALED);
+        Collection<FullMapNode> revealed = networkConverter.convertToNetworkFullMap(fullMap, false, 1L);
+        assertEquals(EFortState.EnemyFortPresent, findNode(revealed, 4, 2).getFortState(), "The enemy fort seen from the mountain should be shown");
+        assertEquals(ETreasureState.MyTreasureIsPresent, findNode(revealed, 1, 2).getTreasureState());
+        assertEquals(ETreasureState.NoOrUnknownTreasureState, findNode(revealed, 3, 0).getTreasureState(),
+                "The treasure of the enemy should never be shown");
+    }
+
+    @Test
+    void testPlayerTwoSeesMirroredAttributes() {
+        Collection<FullMapNode> hidden = networkConverter.convertToNetworkFullMap(fullMap, true, 1L);
+        assertEquals(EFortState.MyFortPresent, findNode(hidden, 4, 2).getFortState(), "The second player should see their fort as their own");
+        assertEquals(EFortState.NoOrUnknownFortState, findNode(hidden, 0, 0).getFortState(), "The enemy fort should not be shown before it is revealed");
+        assertEquals(ETreasureState.NoOrUnknownTreasureState, findNode(hidden, 3, 0).getTreasureState());
+
+        // The first player looks from the field of their fort, which reveals nothing to the second player.
+        visibilityMasks.reveal(fullMap, 0, 0, EMapNodeAttribute.MY_REVEALED);
+        assertEquals(EFortState.NoOrUnknownFortState, findNode(networkConverter.convertToNetworkFullMap(fullMap, true, 1L), 0, 0).getFortState(),
+                "The fields revealed by the enemy should stay hidden from the second player");
+
+        visibilityMasks.reveal(fullMap, 3, 1, EMapNodeAttribute.ENEMY_REVEALED);
+        visibilityMasks.reveal(fullMap, 0, 0, EMapNodeAttribute.ENEMY_REVEALED);
+        Collection<FullMapNode> revealed = networkConverter.convertToNetworkFullMap(fullMap, true, 1L);
+        assertEquals(ETreasureState.MyTreasureIsPresent, findNode(revealed, 3, 0).getTreasureState(), "The treasure seen from the mountain should be shown");
+        assertEquals(EFortState.EnemyFortPresent, findNode(revealed, 0, 0).getFortState());
+        assertEquals(ETreasureState.NoOrUnknownTreasureState, findNode(revealed, 1, 2).getTreasureState(),
+                "The treasure of the enemy should never be shown");
+    }
+
+    // Finds the node at the given coordinates.
+    private static FullMapNode findNode(Collection<FullMapNode> nodes, int x, int y) {
+        return nodes.stream().filter(node -> node.getX() == x && node.getY() == y).findFirst().orElseThrow();
+    }
+}
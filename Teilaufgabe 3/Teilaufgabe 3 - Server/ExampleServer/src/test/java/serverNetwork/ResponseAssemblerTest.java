@@ -0,0 +1,64 @@
+package serverNetwork;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import game.GameController;
+import game.GameSnapshot;
+import game.StateChange;
+import map.EMapNodeAttribute;
+import player.PlayerController;
+
+class ResponseAssemblerTest {
+    private GameController gameController;
+    private ResponseAssembler responseAssembler;
+
+    @BeforeEach
+    void setUp() {
+        gameController = new GameController();
+        responseAssembler = new ResponseAssembler(gameController, new PlayerController(gameController), new NetworkConverter(),
+                new GameStateResponseCache());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameController.shutdown();
+    }
+
+    @Test
+    void testChangesAreTaggedWithTheirStartVersion() {
+        GameSnapshot snapshot = createSnapshot();
+
+        assertEquals("7-d5", responseAssembler.eTagOf(snapshot, 5L));
+        assertEquals("\"7-d5\"", responseAssembler.createGameState(snapshot, "player1", 5L).getHeaders().getETag(),
+                "The changes should be sent with the ETag which eTagOf announces");
+        assertEquals("7-d7", responseAssembler.eTagOf(snapshot, 7L), "The empty changes are a representation of their own as well");
+    }
+
+    @Test
+    void testFullStateIsTaggedWithGameStateId() {
+        GameSnapshot snapshot = createSnapshot();
+
+        assertEquals("7", responseAssembler.eTagOf(snapshot, null));
+        assertEquals("7", responseAssembler.eTagOf(snapshot, 2L), "A version older than the retained changes gets the full state");
+        assertEquals("\"7\"", responseAssembler.createGameState(snapshot, "player1", 2L).getHeaders().getETag());
+    }
+
+    // Creates a snapshot at version 7 without players or full map, which retains the changes leading to the versions 5 to 7.
+    private static GameSnapshot createSnapshot() {
+        List<StateChange> changes = List.of(createChange(5), createChange(6), createChange(7));
+        return new GameSnapshot("game1", 7, List.of(), null, null, changes, 1L);
+    }
+
+    // Creates a change which only changes the state of the first player.
+    private static StateChange createChange(long version) {
+        return new StateChange(version, new EnumMap<>(EMapNodeAttribute.class), Set.of("player1"), false);
+    }
+}